@@ -1,10 +1,12 @@
 package com.diamondhunter.entity.base;
 
+import com.diamondhunter.graphics.sprite.RenderQueue;
 import com.diamondhunter.graphics.sprite.Sprite;
 import com.diamondhunter.hub.DiamondHunter;
 import com.diamondhunter.util.input.KeyHandler;
 import com.diamondhunter.util.input.MouseHandler;
 import com.diamondhunter.util.logic.AABB;
+import com.diamondhunter.util.logic.Camera;
 import com.diamondhunter.util.logic.Vector2f;
 
 import java.awt.*;
@@ -145,13 +147,65 @@ public abstract class Entity {
     }
 
     public void render(Graphics2D g) {
-        sprite.render(g, pos.getWorldVector());
+        sprite.render(g, pos.getWorldX(), pos.getWorldY(), sprite.getWidth(), sprite.getHeight());
+    }
+
+    /**
+     * Renders this {@code Entity} in between two updates. Entities that move can override
+     * this to interpolate their position, otherwise this is the same as
+     * {@link #render(Graphics2D)}.
+     *
+     * @param g     The graphics to render with
+     * @param alpha How far, from {@code 0} to {@code 1}, this frame is between the last
+     *              update and the next one
+     */
+    public void render(Graphics2D g, float alpha) {
+        render(g);
+    }
+
+    /**
+     * Adds this {@code Entity} to a render queue, at its {@link #depth}. Entities that
+     * override {@link #render(Graphics2D, float)} to draw something else should override
+     * this as well.
+     *
+     * @param queue The queue to render into
+     * @param alpha How far, from {@code 0} to {@code 1}, this frame is between the last
+     *              update and the next one
+     */
+    public void render(RenderQueue queue, float alpha) {
+        sprite.queue(queue, RenderQueue.ENTITY_LAYER, depth, pos.getWorldX(), pos.getWorldY(), sprite.getWidth(), sprite.getHeight());
     }
 
     public void update() {
         updateCollision();
     }
 
+    /**
+     * Whether any part of this {@code Entity} can be seen by the given camera. Entities that
+     * cannot be seen are not rendered. Entities that draw outside of their sprite's bounds
+     * should override this.
+     *
+     * @param camera The camera to check
+     * @return Returns {@code true} if this {@code Entity} is visible.
+     */
+    public boolean isVisible(Camera camera) {
+        return camera.isVisible(pos.getPositionX(), pos.getPositionY(), sprite.getWidth(), sprite.getHeight());
+    }
+
+    /**
+     * Captures what this {@code Entity} looks like right now into the given snapshot so it
+     * can be rendered by another thread. Entities that move or render differently should
+     * override this.
+     *
+     * @param snapshot The snapshot to capture into
+     */
+    public void snapshot(EntitySnapshot snapshot) {
+        float worldX = pos.getWorldX();
+        float worldY = pos.getWorldY();
+
+        snapshot.add(sprite, depth, worldX, worldY, worldX, worldY);
+    }
+
     /**
      * A method used to take user input.
      *
@@ -1,7 +1,9 @@
 package com.diamondhunter.entity.base;
 
+import com.diamondhunter.graphics.sprite.RenderQueue;
 import com.diamondhunter.util.input.KeyHandler;
 import com.diamondhunter.util.input.MouseHandler;
+import com.diamondhunter.util.logic.Camera;
 
 import java.awt.*;
 import java.lang.reflect.Array;
@@ -15,7 +17,12 @@ public final class EntityManager {
 
     private String identifier;
     private List<Entity> entities;
-    private Comparator<Entity> depthSorter = (o1, o2) -> Float.compare(o2.depth, o1.depth);
+
+    // The entities in the order they are rendered in, highest depth first. It is kept
+    // between frames and only rebuilt from the list when entities are added or removed
+    private Entity[] depthOrder = new Entity[16];
+    private int depthOrderSize;
+    private volatile boolean depthOrderChanged = true;
 
     private EntityManager(String identifier){
         this(identifier, new ArrayList<>());
@@ -54,6 +61,7 @@ public final class EntityManager {
 
     public void setEntities(List<Entity> entities) {
         this.entities = entities;
+        depthOrderChanged = true;
     }
 
     public void update(){
@@ -63,10 +71,105 @@ public final class EntityManager {
     }
 
     public void render(Graphics2D g){
-        entities.sort(depthSorter);
+        render(g, 1.0f);
+    }
+
+    public void render(Graphics2D g, float alpha){
+        render(g, alpha, Camera.getMainCamera());
+    }
+
+    /**
+     * Renders every entity that the given camera can see, sorted by depth. The order of the
+     * last frame is sorted again, which is close to free when few depths changed, and the
+     * list of entities itself is left as it is.
+     *
+     * @param g      The graphics to render with
+     * @param alpha  How far, from {@code 0} to {@code 1}, this frame is between the last
+     *               update and the next one
+     * @param camera The camera to render from
+     */
+    public void render(Graphics2D g, float alpha, Camera camera){
+        sortByDepth();
+
+        for(int i = 0; i < depthOrderSize; i++){
+            Entity entity = depthOrder[i];
+
+            if(entity.isVisible(camera))
+                entity.render(g, alpha);
+        }
+    }
+
+    /*
+     * Brings the depth order up to date with an insertion sort. Most entities keep their
+     * depth from one frame to the next, so the order is nearly sorted already and only the
+     * entities whose depth changed are moved. Entities with the same depth keep their order.
+     */
+    private void sortByDepth(){
+        if(depthOrderChanged || depthOrderSize != entities.size()){
+            depthOrderChanged = false;
+
+            int size = entities.size();
+
+            if(depthOrder.length < size)
+                depthOrder = new Entity[Math.max(size, depthOrder.length * 2)];
+
+            for(int i = 0; i < size; i++)
+                depthOrder[i] = entities.get(i);
+
+            // Don't keep removed entities alive
+            Arrays.fill(depthOrder, size, Math.max(size, depthOrderSize), null);
+            depthOrderSize = size;
+        }
+
+        for(int i = 1; i < depthOrderSize; i++){
+            Entity entity = depthOrder[i];
+            int j = i - 1;
+
+            while(j >= 0 && Float.compare(depthOrder[j].depth, entity.depth) < 0){
+                depthOrder[j + 1] = depthOrder[j];
+                j--;
+            }
+
+            depthOrder[j + 1] = entity;
+        }
+    }
+
+    /**
+     * Adds every entity that the given camera can see to a render queue. The queue sorts
+     * them by depth, so unlike {@link #render(Graphics2D, float, Camera)} the entities don't
+     * have to be sorted first.
+     *
+     * @param queue  The queue to render into
+     * @param alpha  How far, from {@code 0} to {@code 1}, this frame is between the last
+     *               update and the next one
+     * @param camera The camera to render from
+     */
+    public void render(RenderQueue queue, float alpha, Camera camera){
+        for(int i = 0; i < this.entities.size(); i++){
+            Entity entity = entities.get(i);
+
+            if(entity.isVisible(camera))
+                entity.render(queue, alpha);
+        }
+    }
+
+    /**
+     * Captures every entity that the main camera can see, with its depth, into the given
+     * snapshot so that they can be rendered by another thread.
+     *
+     * @param snapshot The snapshot to capture into
+     * @param tick     The update that the snapshot is captured from
+     */
+    public void snapshot(EntitySnapshot snapshot, long tick){
+        snapshot.clear(tick);
+
+        Camera camera = Camera.getMainCamera();
 
         for(int i = 0; i < this.entities.size(); i++){
-            entities.get(i).render(g);
+            Entity entity = entities.get(i);
+
+            if(entity.isVisible(camera))
+                entity.snapshot(snapshot);
         }
     }
 
@@ -78,10 +181,12 @@ public final class EntityManager {
 
     public void removeEntity(int index){
         entities.remove(index);
+        depthOrderChanged = true;
     }
 
     public void removeEntity(Entity e){
         entities.remove(e);
+        depthOrderChanged = true;
     }
 
     public <T extends Entity> void removeEntity(Class<T> clazz){
@@ -110,6 +215,7 @@ public final class EntityManager {
 
     public void addEntity(Entity e){
         entities.add(e);
+        depthOrderChanged = true;
     }
 
     public <T extends Entity> T[] getEntities(Class<T> clazz){
@@ -124,6 +230,13 @@ public final class EntityManager {
         return Arrays.copyOf(entities.toArray(), entities.size(), (Class<? extends T[]>) Array.newInstance(clazz, entities.size()).getClass());
     }
 
+    /**
+     * The entities of this manager, in the order they were added. Add and remove entities
+     * with {@link #addEntity(Entity)} and {@link #removeEntity(Entity)} rather than through
+     * this list, so the depth order is rebuilt for the next frame.
+     *
+     * @return Returns the list of entities.
+     */
     public List<Entity> getEntities() {
         return entities;
     }
@@ -0,0 +1,158 @@
+package com.diamondhunter.entity.base;
+
+import com.diamondhunter.graphics.sprite.RenderQueue;
+import com.diamondhunter.graphics.sprite.Sprite;
+
+import java.awt.*;
+import java.util.Arrays;
+
+/**
+ * An {@code EntitySnapshot} is everything that is needed to render the entities of an
+ * {@link EntityManager} at one point in time. It is captured by the simulation thread
+ * with {@link EntityManager#snapshot(EntitySnapshot, long)} and then rendered by the
+ * render thread, so the render thread never reads an entity while it is being updated.
+ * <p>
+ * Snapshots are reused to avoid creating garbage every update. A snapshot is only
+ * written to by the simulation thread while it owns it and it is never changed again
+ * once it has been handed to the render thread (see
+ * {@link com.diamondhunter.util.concurrent.TripleBuffer}).
+ */
+public final class EntitySnapshot {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private Sprite[] sprites = new Sprite[DEFAULT_CAPACITY];
+    private float[] depths = new float[DEFAULT_CAPACITY];
+    private float[] xs = new float[DEFAULT_CAPACITY];
+    private float[] ys = new float[DEFAULT_CAPACITY];
+    private float[] lastXs = new float[DEFAULT_CAPACITY];
+    private float[] lastYs = new float[DEFAULT_CAPACITY];
+
+    private int size;
+
+    private long tick;
+    private long time;
+
+    /**
+     * Empties this snapshot so it can be captured again.
+     *
+     * @param tick The update that this snapshot will be captured from
+     */
+    void clear(long tick) {
+        // Don't keep old sprites alive
+        Arrays.fill(sprites, 0, size, null);
+
+        this.size = 0;
+        this.tick = tick;
+        this.time = System.nanoTime();
+    }
+
+    /**
+     * Adds an entity with the {@link Entity#DEFAULT_DEPTH default depth} to this snapshot.
+     *
+     * @param sprite The sprite to render
+     * @param x      The on-screen x position after the last update
+     * @param y      The on-screen y position after the last update
+     * @param lastX  The on-screen x position before the last update
+     * @param lastY  The on-screen y position before the last update
+     */
+    public void add(Sprite sprite, float x, float y, float lastX, float lastY) {
+        add(sprite, Entity.DEFAULT_DEPTH, x, y, lastX, lastY);
+    }
+
+    /**
+     * Adds an entity to this snapshot. When rendered with a {@link RenderQueue}, entities
+     * are sorted by their depth, otherwise they are rendered in the order that they are
+     * added.
+     *
+     * @param sprite The sprite to render
+     * @param depth  The depth of the entity
+     * @param x      The on-screen x position after the last update
+     * @param y      The on-screen y position after the last update
+     * @param lastX  The on-screen x position before the last update
+     * @param lastY  The on-screen y position before the last update
+     */
+    public void add(Sprite sprite, float depth, float x, float y, float lastX, float lastY) {
+        if (size == sprites.length) {
+            int capacity = size * 2;
+
+            sprites = Arrays.copyOf(sprites, capacity);
+            depths = Arrays.copyOf(depths, capacity);
+            xs = Arrays.copyOf(xs, capacity);
+            ys = Arrays.copyOf(ys, capacity);
+            lastXs = Arrays.copyOf(lastXs, capacity);
+            lastYs = Arrays.copyOf(lastYs, capacity);
+        }
+
+        sprites[size] = sprite;
+        depths[size] = depth;
+        xs[size] = x;
+        ys[size] = y;
+        lastXs[size] = lastX;
+        lastYs[size] = lastY;
+        size++;
+    }
+
+    /**
+     * Renders every entity in this snapshot.
+     *
+     * @param g     The graphics to render with
+     * @param alpha How far, from {@code 0} to {@code 1}, this frame is between the last
+     *              update and the next one
+     */
+    public void render(Graphics2D g, float alpha) {
+        for (int i = 0; i < size; i++) {
+            Sprite sprite = sprites[i];
+
+            float x = lastXs[i] + (xs[i] - lastXs[i]) * alpha;
+            float y = lastYs[i] + (ys[i] - lastYs[i]) * alpha;
+
+            sprite.render(g, x, y, sprite.getWidth(), sprite.getHeight());
+        }
+    }
+
+    /**
+     * Adds every entity in this snapshot to a render queue, which sorts them by depth.
+     *
+     * @param queue The queue to render into
+     * @param alpha How far, from {@code 0} to {@code 1}, this frame is between the last
+     *              update and the next one
+     */
+    public void render(RenderQueue queue, float alpha) {
+        for (int i = 0; i < size; i++) {
+            Sprite sprite = sprites[i];
+
+            float x = lastXs[i] + (xs[i] - lastXs[i]) * alpha;
+            float y = lastYs[i] + (ys[i] - lastYs[i]) * alpha;
+
+            sprite.queue(queue, RenderQueue.ENTITY_LAYER, depths[i], x, y, sprite.getWidth(), sprite.getHeight());
+        }
+    }
+
+    /**
+     * The amount of entities in this snapshot.
+     *
+     * @return Returns the amount of entities in this snapshot.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * The update that this snapshot was captured from.
+     *
+     * @return Returns the update count when this snapshot was captured.
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * The time, in nanoseconds, at which this snapshot was captured.
+     *
+     * @return Returns the time at which this snapshot was captured.
+     */
+    public long getTime() {
+        return time;
+    }
+}
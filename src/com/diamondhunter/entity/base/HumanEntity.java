@@ -1,13 +1,16 @@
 package com.diamondhunter.entity.base;
 
+import com.diamondhunter.graphics.sprite.RenderQueue;
 import com.diamondhunter.graphics.sprite.Sprite;
 import com.diamondhunter.util.general.Utils;
 import com.diamondhunter.util.input.KeyHandler;
 import com.diamondhunter.util.input.MouseHandler;
 import com.diamondhunter.util.input.MovementDirection;
 import com.diamondhunter.util.logic.AABB;
+import com.diamondhunter.util.logic.Camera;
 import com.diamondhunter.util.logic.Vector2f;
 
+import java.awt.Graphics2D;
 import java.util.LinkedHashSet;
 import java.util.Set;
 
@@ -53,6 +56,16 @@ public abstract class HumanEntity extends Entity {
      * The maximum speed at which this entity can move at.
      */
     protected float maxSpeed = 1.5f;
+    /**
+     * The x position of this entity before the last {@link #move()}. This is used to
+     * interpolate the position of this entity when it is rendered in between updates.
+     */
+    protected float lastX;
+    /**
+     * The y position of this entity before the last {@link #move()}. This is used to
+     * interpolate the position of this entity when it is rendered in between updates.
+     */
+    protected float lastY;
     /**
      * The current directions that this entity is moving in. If this entity is not moving,
      * this set will have one value that is equal to {@link MovementDirection#NO_DIRECTION}.
@@ -86,6 +99,8 @@ public abstract class HumanEntity extends Entity {
      */
     public HumanEntity(Sprite sprite, Vector2f pos) {
         super(sprite, pos);
+        lastX = pos.x;
+        lastY = pos.y;
     }
 
     /**
@@ -97,6 +112,8 @@ public abstract class HumanEntity extends Entity {
      */
     public HumanEntity(Sprite sprite, Vector2f pos, AABB.Rectangle collision) {
         super(sprite, pos, collision);
+        lastX = pos.x;
+        lastY = pos.y;
     }
 
     /**
@@ -108,6 +125,8 @@ public abstract class HumanEntity extends Entity {
      */
     public HumanEntity(EntityManager manager, Sprite sprite, Vector2f pos) {
         super(manager, sprite, pos);
+        lastX = pos.x;
+        lastY = pos.y;
     }
 
     /**
@@ -120,6 +139,8 @@ public abstract class HumanEntity extends Entity {
      */
     public HumanEntity(EntityManager manager, Sprite sprite, Vector2f pos, AABB.Rectangle collision) {
         super(manager, sprite, pos, collision);
+        lastX = pos.x;
+        lastY = pos.y;
     }
 
     /**
@@ -134,6 +155,66 @@ public abstract class HumanEntity extends Entity {
         move();
     }
 
+    /**
+     * Renders this entity in between its last position and its current one so that it
+     * moves smoothly even when the game renders faster or slower than it updates.
+     *
+     * @param g     The graphics to render with
+     * @param alpha How far, from {@code 0} to {@code 1}, this frame is between the last
+     *              update and the next one
+     */
+    @Override
+    public void render(Graphics2D g, float alpha) {
+        float x = pos.getWorldX() - (pos.x - lastX) * (1.0f - alpha);
+        float y = pos.getWorldY() - (pos.y - lastY) * (1.0f - alpha);
+
+        sprite.render(g, x, y, sprite.getWidth(), sprite.getHeight());
+    }
+
+    /**
+     * Adds this entity to a render queue in between its last position and its current one.
+     *
+     * @param queue The queue to render into
+     * @param alpha How far, from {@code 0} to {@code 1}, this frame is between the last
+     *              update and the next one
+     */
+    @Override
+    public void render(RenderQueue queue, float alpha) {
+        float x = pos.getWorldX() - (pos.x - lastX) * (1.0f - alpha);
+        float y = pos.getWorldY() - (pos.y - lastY) * (1.0f - alpha);
+
+        sprite.queue(queue, RenderQueue.ENTITY_LAYER, depth, x, y, sprite.getWidth(), sprite.getHeight());
+    }
+
+    /**
+     * Whether this entity can be seen at its last or its current position, since it is
+     * rendered in between them.
+     *
+     * @param camera The camera to check
+     * @return Returns {@code true} if this entity is visible.
+     */
+    @Override
+    public boolean isVisible(Camera camera) {
+        float x = Math.min(pos.getPositionX(), pos.getPositionX() - (pos.x - lastX));
+        float y = Math.min(pos.getPositionY(), pos.getPositionY() - (pos.y - lastY));
+
+        return camera.isVisible(x, y, sprite.getWidth() + Math.abs(pos.x - lastX), sprite.getHeight() + Math.abs(pos.y - lastY));
+    }
+
+    /**
+     * Captures both the last position and the current position of this entity so that
+     * the render thread can interpolate between them.
+     *
+     * @param snapshot The snapshot to capture into
+     */
+    @Override
+    public void snapshot(EntitySnapshot snapshot) {
+        float worldX = pos.getWorldX();
+        float worldY = pos.getWorldY();
+
+        snapshot.add(sprite, depth, worldX, worldY, worldX - (pos.x - lastX), worldY - (pos.y - lastY));
+    }
+
     /**
      * Moves this given entity to a certain position according to their direction.
      * The speed at which this entity moves at can be customized by changing the
@@ -154,6 +235,10 @@ public abstract class HumanEntity extends Entity {
      */
     private float move() {
 
+        // Save where we were so we can interpolate when rendering
+        lastX = pos.x;
+        lastY = pos.y;
+
         // Move up if up == true
         if (up) {
 
@@ -256,11 +341,8 @@ public abstract class HumanEntity extends Entity {
         if (left && right)
             dx = 0;
 
-        // Created for efficiency
-        Vector2f worldVector = pos.getWorldVector();
-
         // The distance moved squared
-        float returnValue = worldVector.distanceSq(worldVector.x + dx, worldVector.y + dy);
+        float returnValue = dx * dx + dy * dy;
 
         // Add movement amount to position
         pos.x += dx;
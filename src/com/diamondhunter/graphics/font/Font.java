@@ -35,7 +35,7 @@ public abstract class Font {
 	public abstract void renderText(Graphics2D g, String text, float x, float y);
 
 	public void renderText(Graphics2D g, String text, Vector2f pos) {
-		renderText(g, text, pos.getPosition().x, pos.getPosition().y);
+		renderText(g, text, pos.getPositionX(), pos.getPositionY());
 	}
 
 	public AABB.Rectangle getStringBounds(String str) {
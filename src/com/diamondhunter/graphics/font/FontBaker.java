@@ -0,0 +1,299 @@
+package com.diamondhunter.graphics.font;
+
+import com.diamondhunter.graphics.sprite.Sprite;
+import com.diamondhunter.graphics.sprite.SpriteSheet;
+import com.diamondhunter.hub.DiamondHunter;
+import com.diamondhunter.util.logging.Logger;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.awt.font.LineMetrics;
+import java.awt.image.BufferedImage;
+import java.io.*;
+import java.net.URL;
+
+/**
+ * A {@code FontBaker} draws the letters of a TrueType font into a font sheet once, so the
+ * font can be rendered as an {@link ImageFont} instead of through
+ * {@link Graphics2D#drawString(String, int, int)}, which lays the text out and rasterizes it
+ * again every time it is drawn.
+ * <p>
+ * The sheet has a cell for every letter from {@link #FIRST_LETTER} to {@link #LAST_LETTER},
+ * sixteen to a row, in the order that {@link ImageFont} expects. Every letter is drawn on the
+ * same baseline and keeps its own advance, so the baked font is laid out like the TrueType
+ * font with fractional metrics off.
+ * <p>
+ * Baked sheets and their metrics are saved in the cache directory, named after the font,
+ * its style and size, so each font only has to be baked the first time the game runs.
+ */
+public final class FontBaker {
+
+    public static final char FIRST_LETTER = ' ';
+    public static final char LAST_LETTER = '\u00FF';
+
+    private static final int COLUMNS = 16;
+
+    // Changed whenever the way fonts are baked changes, so old sheets aren't used anymore
+    private static final int CACHE_VERSION = 1;
+
+    private File cacheDirectory;
+    private boolean antialiased = true;
+    private Color color = Color.WHITE;
+
+    /**
+     * Creates a baker that caches in the {@link #getDefaultCacheDirectory() default directory}.
+     */
+    public FontBaker() {
+        this(getDefaultCacheDirectory());
+    }
+
+    /**
+     * Creates a baker that caches in the given directory.
+     *
+     * @param cacheDirectory The directory or {@code null} to bake every font again.
+     */
+    public FontBaker(File cacheDirectory) {
+        this.cacheDirectory = cacheDirectory;
+    }
+
+    /**
+     * Loads a TrueType font resource and bakes it at the given size.
+     *
+     * @param path The path of the font resource
+     * @param size The size in points
+     * @return Returns the baked font or {@code null} if the font could not be loaded.
+     */
+    public ImageFont bake(String path, float size) {
+        TextFont font = new TextFont(path);
+
+        if (font.getFont() == null)
+            return null;
+
+        font.setSize(size);
+        return font.toImageFont(this);
+    }
+
+    /**
+     * Bakes a font, or loads it from the cache if it was baked before. The baked font has a
+     * size of {@code 1}; other sizes scale the letters of the sheet.
+     *
+     * @param path The path of the file that the font was loaded from
+     * @param font The font to bake
+     * @return Returns the baked font.
+     */
+    public ImageFont bake(URL path, java.awt.Font font) {
+        String key = getCacheKey(font);
+        Atlas atlas = cacheDirectory == null ? null : load(key);
+
+        if (atlas == null) {
+            atlas = rasterize(font);
+
+            if (cacheDirectory != null)
+                save(key, atlas);
+        }
+
+        @SuppressWarnings("deprecation")
+        SpriteSheet sheet = new SpriteSheet(new Sprite(atlas.image), atlas.cellWidth, atlas.cellHeight);
+
+        ImageFont imageFont = new ImageFont(path, sheet);
+        imageFont.setSize(1);
+        imageFont.setLetterAdvances(atlas.advances);
+        imageFont.setLetterOrigin(atlas.origin);
+        imageFont.setLineSpacing(atlas.lineHeight);
+
+        return imageFont;
+    }
+
+    /*
+     * Draws every letter into a cell that fits the largest of them. The cells share one
+     * baseline and one origin, so letters that reach below the baseline or back over the
+     * previous letter aren't cut off.
+     */
+    private Atlas rasterize(java.awt.Font font) {
+        FontRenderContext context = new FontRenderContext(null, antialiased, false);
+        int count = LAST_LETTER - FIRST_LETTER + 1;
+
+        GlyphVector[] glyphs = new GlyphVector[count];
+        int[] advances = new int[count];
+
+        LineMetrics lineMetrics = font.getLineMetrics("Ag", context);
+        int minX = 0;
+        int minY = -(int) Math.ceil(lineMetrics.getAscent());
+        int maxX = 1;
+        int maxY = (int) Math.ceil(lineMetrics.getDescent());
+
+        for (int i = 0; i < count; i++) {
+            char ch = (char) (FIRST_LETTER + i);
+
+            if (Character.isISOControl(ch))
+                continue;
+
+            glyphs[i] = font.createGlyphVector(context, new char[]{ch});
+            advances[i] = Math.round(glyphs[i].getGlyphMetrics(0).getAdvanceX());
+
+            Rectangle bounds = glyphs[i].getPixelBounds(context, 0, 0);
+
+            if (!bounds.isEmpty()) {
+                minX = Math.min(minX, bounds.x);
+                minY = Math.min(minY, bounds.y);
+                maxX = Math.max(maxX, bounds.x + bounds.width);
+                maxY = Math.max(maxY, bounds.y + bounds.height);
+            }
+        }
+
+        Atlas atlas = new Atlas();
+        atlas.cellWidth = maxX - minX;
+        atlas.cellHeight = maxY - minY;
+        atlas.origin = -minX;
+        atlas.lineHeight = (int) Math.ceil(lineMetrics.getHeight());
+        atlas.advances = advances;
+        atlas.image = new BufferedImage(COLUMNS * atlas.cellWidth, (count + COLUMNS - 1) / COLUMNS * atlas.cellHeight,
+                BufferedImage.TYPE_INT_ARGB);
+
+        Graphics2D g = atlas.image.createGraphics();
+        g.setColor(color);
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, antialiased
+                ? RenderingHints.VALUE_TEXT_ANTIALIAS_ON : RenderingHints.VALUE_TEXT_ANTIALIAS_OFF);
+        g.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_OFF);
+
+        for (int i = 0; i < count; i++) {
+            if (glyphs[i] == null)
+                continue;
+
+            int x = i % COLUMNS * atlas.cellWidth;
+            int y = i / COLUMNS * atlas.cellHeight;
+
+            g.setClip(x, y, atlas.cellWidth, atlas.cellHeight);
+            g.drawGlyphVector(glyphs[i], x + atlas.origin, y - minY);
+        }
+
+        g.dispose();
+        return atlas;
+    }
+
+    private Atlas load(String key) {
+        File imageFile = new File(cacheDirectory, key + ".png");
+        File metricsFile = new File(cacheDirectory, key + ".metrics");
+
+        if (!imageFile.isFile() || !metricsFile.isFile())
+            return null;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(metricsFile)))) {
+            Atlas atlas = new Atlas();
+            atlas.cellWidth = in.readInt();
+            atlas.cellHeight = in.readInt();
+            atlas.origin = in.readInt();
+            atlas.lineHeight = in.readInt();
+            atlas.advances = new int[in.readInt()];
+
+            if (atlas.advances.length != LAST_LETTER - FIRST_LETTER + 1)
+                throw new IOException("Expected " + (LAST_LETTER - FIRST_LETTER + 1) + " letters, found " + atlas.advances.length);
+
+            for (int i = 0; i < atlas.advances.length; i++)
+                atlas.advances[i] = in.readInt();
+
+            atlas.image = ImageIO.read(imageFile);
+
+            if (atlas.image == null)
+                throw new IOException("Unreadable font sheet");
+
+            return atlas;
+        } catch (IOException e) {
+            DiamondHunter.getImplementation().getLogger().logLine(Logger.Level.WARNING, "Could not load baked font \"" + key
+                    + "\", baking it again: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // The metrics are written last, so a sheet that was only partly saved is baked again
+    private void save(String key, Atlas atlas) {
+        File imageFile = new File(cacheDirectory, key + ".png");
+        File metricsFile = new File(cacheDirectory, key + ".metrics");
+
+        if (!cacheDirectory.isDirectory() && !cacheDirectory.mkdirs()) {
+            DiamondHunter.getImplementation().getLogger().logLine(Logger.Level.WARNING, "Could not create font cache \""
+                    + cacheDirectory.getPath() + "\"");
+            return;
+        }
+
+        try {
+            ImageIO.write(atlas.image, "png", imageFile);
+
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(metricsFile)))) {
+                out.writeInt(atlas.cellWidth);
+                out.writeInt(atlas.cellHeight);
+                out.writeInt(atlas.origin);
+                out.writeInt(atlas.lineHeight);
+                out.writeInt(atlas.advances.length);
+
+                for (int advance : atlas.advances)
+                    out.writeInt(advance);
+            }
+        } catch (IOException e) {
+            DiamondHunter.getImplementation().getLogger().logLine(Logger.Level.WARNING, "Could not cache baked font \"" + key
+                    + "\": " + e.getMessage());
+        }
+    }
+
+    /**
+     * The name that a font is cached under. It changes with everything that changes the
+     * baked sheet.
+     *
+     * @param font The font to name
+     * @return Returns the name, without a file extension.
+     */
+    public String getCacheKey(java.awt.Font font) {
+        return font.getFontName().replaceAll("[^A-Za-z0-9]+", "_") + "-" + font.getStyle() + "-" + font.getSize2D()
+                + (antialiased ? "-aa" : "") + "-" + Integer.toHexString(color.getRGB()) + "-v" + CACHE_VERSION;
+    }
+
+    /**
+     * The directory fonts are cached in unless another one is given: the
+     * {@code .diamondhunter/fonts} directory of the home of the user.
+     *
+     * @return Returns the directory, which may not exist yet.
+     */
+    public static File getDefaultCacheDirectory() {
+        return new File(System.getProperty("user.home"), ".diamondhunter" + File.separator + "fonts");
+    }
+
+    public File getCacheDirectory() {
+        return cacheDirectory;
+    }
+
+    public void setCacheDirectory(File cacheDirectory) {
+        this.cacheDirectory = cacheDirectory;
+    }
+
+    public boolean isAntialiased() {
+        return antialiased;
+    }
+
+    public void setAntialiased(boolean antialiased) {
+        this.antialiased = antialiased;
+    }
+
+    public Color getColor() {
+        return color;
+    }
+
+    /**
+     * Sets the color the letters are baked in. Image fonts can't change their color while
+     * rendering, so text in another color needs a font baked in that color.
+     *
+     * @param color The color of the letters
+     */
+    public void setColor(Color color) {
+        this.color = color;
+    }
+
+    private static final class Atlas {
+        private BufferedImage image;
+        private int cellWidth, cellHeight;
+        private int origin;
+        private int lineHeight;
+        private int[] advances;
+    }
+}
@@ -0,0 +1,209 @@
+package com.diamondhunter.graphics.font;
+
+import com.diamondhunter.graphics.sprite.RenderQueue;
+import com.diamondhunter.graphics.sprite.Sprite;
+import com.diamondhunter.util.loading.ImageLoader;
+import com.diamondhunter.util.logic.AABB;
+import com.diamondhunter.util.logic.Vector2f;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+/**
+ * A {@code GlyphRun} is a text that was laid out by an {@link ImageFont}: the letters it is
+ * made of, where each of them goes and the bounds of all of them together. The positions are
+ * relative to the position that the text is rendered at, so a run can be rendered anywhere
+ * without being laid out again.
+ * <p>
+ * Once a run was rendered {@link #BAKE_RENDERS} times, its letters are drawn into one image
+ * that is rendered from then on, so text that doesn't change is a single image instead of
+ * one sprite per letter.
+ * <p>
+ * Runs are meant to be used by the thread that renders only.
+ */
+public final class GlyphRun {
+
+    /**
+     * The amount of times a run is rendered letter by letter before it is drawn into an
+     * image. Text that changes every frame is never rendered twice, so it never gets one.
+     */
+    public static final int BAKE_RENDERS = 2;
+
+    private final String text;
+
+    private final Sprite[] glyphs;
+    private final int[] glyphXs;
+    private final int[] glyphYs;
+    private int glyphCount;
+
+    private final int glyphWidth;
+    private final int glyphHeight;
+
+    // The bounds of every letter, including spaces, relative to the position of the text
+    private int minX, minY, maxX, maxY;
+    private boolean empty = true;
+
+    private BufferedImage image;
+    private int renders;
+
+    GlyphRun(String text, int glyphWidth, int glyphHeight) {
+        this.text = text;
+        this.glyphs = new Sprite[text.length()];
+        this.glyphXs = new int[text.length()];
+        this.glyphYs = new int[text.length()];
+        this.glyphWidth = glyphWidth;
+        this.glyphHeight = glyphHeight;
+    }
+
+    /*
+     * Adds a letter at the given position, or only adds the space it takes up to the bounds
+     * if the glyph is null.
+     */
+    void add(Sprite glyph, int x, int y) {
+        if (glyph != null) {
+            glyphs[glyphCount] = glyph;
+            glyphXs[glyphCount] = x;
+            glyphYs[glyphCount] = y;
+            glyphCount++;
+        }
+
+        if (empty) {
+            minX = x;
+            minY = y;
+            maxX = x + glyphWidth;
+            maxY = y + glyphHeight;
+            empty = false;
+        } else {
+            minX = Math.min(minX, x);
+            minY = Math.min(minY, y);
+            maxX = Math.max(maxX, x + glyphWidth);
+            maxY = Math.max(maxY, y + glyphHeight);
+        }
+    }
+
+    /**
+     * Renders this run with its top left letter at the given position.
+     *
+     * @param g The graphics to render with
+     * @param x The x position of the text
+     * @param y The y position of the text
+     */
+    public void render(Graphics2D g, float x, float y) {
+        if (!isDrawable())
+            return;
+
+        // Baked runs are drawn as one image, so the run is put on the pixel grid like a sprite
+        int runX = Sprite.snapToPixelGrid(x);
+        int runY = Sprite.snapToPixelGrid(y);
+
+        if (image == null && ++renders >= BAKE_RENDERS)
+            bake();
+
+        if (image != null) {
+            Composite oldComposite = g.getComposite();
+
+            if (oldComposite != AlphaComposite.SrcOver)
+                g.setComposite(AlphaComposite.SrcOver);
+
+            g.drawImage(image, runX + minX, runY + minY, null);
+
+            if (oldComposite != AlphaComposite.SrcOver)
+                g.setComposite(oldComposite);
+
+            return;
+        }
+
+        for (int i = 0; i < glyphCount; i++)
+            glyphs[i].render(g, runX + glyphXs[i], runY + glyphYs[i], glyphWidth, glyphHeight);
+    }
+
+    /**
+     * Adds this run to a render queue. The letters don't overlap, so they all share one depth.
+     *
+     * @param queue The queue to render into
+     * @param layer The layer to render on
+     * @param depth The depth in the layer
+     * @param x     The x position of the text
+     * @param y     The y position of the text
+     */
+    public void queue(RenderQueue queue, int layer, float depth, float x, float y) {
+        if (!isDrawable())
+            return;
+
+        // Baked runs are drawn as one image, so the run is put on the pixel grid like a sprite
+        int runX = Sprite.snapToPixelGrid(x);
+        int runY = Sprite.snapToPixelGrid(y);
+
+        if (image == null && ++renders >= BAKE_RENDERS)
+            bake();
+
+        if (image != null) {
+            queue.submit(layer, depth, image, runX + minX, runY + minY, image.getWidth(), image.getHeight(),
+                    AlphaComposite.SrcOver);
+            return;
+        }
+
+        for (int i = 0; i < glyphCount; i++)
+            glyphs[i].queue(queue, layer, depth, runX + glyphXs[i], runY + glyphYs[i], glyphWidth, glyphHeight);
+    }
+
+    private boolean isDrawable() {
+        return glyphCount > 0 && glyphWidth > 0 && glyphHeight > 0;
+    }
+
+    /*
+     * Draws every letter into one image the size of the bounds. The letters are drawn over
+     * each other the same way they are drawn onto the screen, so the image looks the same.
+     */
+    private void bake() {
+        image = ImageLoader.createCompatibleImage(maxX - minX, maxY - minY, Transparency.TRANSLUCENT);
+        Graphics2D g = image.createGraphics();
+
+        for (int i = 0; i < glyphCount; i++)
+            glyphs[i].render(g, glyphXs[i] - minX, glyphYs[i] - minY, glyphWidth, glyphHeight);
+
+        g.dispose();
+    }
+
+    /**
+     * Lets go of the image of this run, if it was drawn into one.
+     */
+    public void flush() {
+        if (image != null) {
+            image.flush();
+            image = null;
+        }
+
+        renders = 0;
+    }
+
+    /**
+     * The bounds of this run relative to the position it is rendered at. Spaces and tabs are
+     * part of the bounds, line breaks are not.
+     *
+     * @return Returns a new rectangle with the bounds.
+     */
+    public AABB.Rectangle getBounds() {
+        return new AABB.Rectangle(new Vector2f(minX, minY), getWidth(), getHeight());
+    }
+
+    public int getWidth() {
+        return maxX - minX;
+    }
+
+    public int getHeight() {
+        return maxY - minY;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public int getGlyphCount() {
+        return glyphCount;
+    }
+
+    public boolean isBaked() {
+        return image != null;
+    }
+}
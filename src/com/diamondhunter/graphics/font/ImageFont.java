@@ -1,5 +1,6 @@
 package com.diamondhunter.graphics.font;
 
+import com.diamondhunter.graphics.sprite.RenderQueue;
 import com.diamondhunter.graphics.sprite.Sprite;
 import com.diamondhunter.graphics.sprite.SpriteSheet;
 import com.diamondhunter.util.logic.AABB;
@@ -11,8 +12,16 @@ import java.net.URI;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 public class ImageFont extends Font {
+
+    /**
+     * The amount of laid out texts that a new font keeps.
+     */
+    public static final int DEFAULT_GLYPH_RUN_CACHE_SIZE = 64;
+
     private int letterWidth;
     private int letterHeight;
 
@@ -22,8 +31,26 @@ public class ImageFont extends Font {
     private int letterXOffset;
     private int letterYOffset;
 
+    // The advance of every letter of the font sheet, or null if they all advance by the letter spacing
+    private int[] letterAdvances;
+    private int letterOrigin;
+
     private SpriteSheet fontSheet;
 
+    private int glyphRunCacheSize = DEFAULT_GLYPH_RUN_CACHE_SIZE;
+
+    // Ordered from the least to the most recently rendered text
+    private final LinkedHashMap<String, GlyphRun> glyphRuns = new LinkedHashMap<String, GlyphRun>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, GlyphRun> eldest) {
+            if (size() <= glyphRunCacheSize)
+                return false;
+
+            eldest.getValue().flush();
+            return true;
+        }
+    };
+
     public ImageFont(String path, int letterWidth, int letterHeight) {
         super(path);
 
@@ -48,6 +75,23 @@ public class ImageFont extends Font {
         this(path.toURL(), letterWidth, letterHeight);
     }
 
+    /**
+     * Creates a font from a font sheet that was already loaded or made, such as one baked
+     * by a {@link FontBaker}.
+     *
+     * @param path      The path of the font the sheet was made from
+     * @param fontSheet The sheet of letters, starting at the space
+     */
+    public ImageFont(URL path, SpriteSheet fontSheet) {
+        super(path);
+
+        this.letterWidth = fontSheet.getSpriteWidth();
+        this.letterHeight = fontSheet.getSpriteHeight();
+
+        this.fontSheet = fontSheet;
+        initProperties();
+    }
+
     private void initProperties(){
         letterSpacing = letterWidth + letterWidth / 4;
         lineSpacing = letterHeight + letterHeight / 4;
@@ -57,35 +101,116 @@ public class ImageFont extends Font {
 
     @Override
     public void renderText(Graphics2D g, String text, float x, float y) {
-        String renderText = text;
-        renderText = renderText.replace(System.lineSeparator(), "\n");
+        getGlyphRun(text).render(g, x, y);
+    }
 
-        float xPos = x;
-        float yPos = y;
+    /**
+     * Adds the letters of the given text to a render queue. The letters don't overlap, so
+     * they all share one depth.
+     *
+     * @param queue The queue to render into
+     * @param layer The layer to render on
+     * @param depth The depth in the layer
+     * @param text  The text to render
+     * @param x     The x position of the text
+     * @param y     The y position of the text
+     */
+    public void renderText(RenderQueue queue, int layer, float depth, String text, float x, float y) {
+        getGlyphRun(text).queue(queue, layer, depth, x, y);
+    }
 
-        if (renderText.contains("\n")) {
-            renderText = renderText.substring(0, renderText.indexOf("\n"));
-            renderText(g, text.replace(System.lineSeparator(), "\n").substring(text.replace(System.lineSeparator(), "\n").indexOf("\n") + 1),
-                    x, y + lineSpacing);
+    /**
+     * The laid out run of the given text. Runs are kept for the {@link #getGlyphRunCacheSize()
+     * latest texts}, so text that is rendered every frame is only laid out once. The cached
+     * runs are thrown away whenever the size, spacing or offsets of this font change.
+     *
+     * @param text The text to lay out
+     * @return Returns the run of the text.
+     */
+    public GlyphRun getGlyphRun(String text) {
+        GlyphRun run = glyphRuns.get(text);
+
+        if (run == null) {
+            run = layout(text);
+            glyphRuns.put(text, run);
         }
 
-        for (int i = 0; i < renderText.length(); i++) {
-            char ch = renderText.charAt(i);
+        return run;
+    }
 
-            if (ch == '\t') {
-                x += letterSpacing + letterXOffset;
-            } else if (ch != ' ') {
-                getLetter(ch).render(g, xPos, yPos, (int) (letterWidth * size), (int) (letterHeight * size));
+    /**
+     * Lays the given text out in one pass. Letters are placed their advance and
+     * {@link #getLetterXOffset()} apart, moving down by {@link #getLetterYOffset()} each; the
+     * advance is the {@link #getLetterSpacing() letter spacing} unless the font has
+     * {@link #setLetterAdvances(int[]) letter advances}. A line break starts the next line
+     * {@link #getLineSpacing()} below the last one. "\r" is skipped so "\r\n" is a single
+     * line break, and tabs take up the space of one letter.
+     *
+     * @param text The text to lay out
+     * @return Returns a new run of the text, which isn't cached.
+     */
+    public GlyphRun layout(String text) {
+        GlyphRun run = new GlyphRun(text, (int) (letterWidth * size), (int) (letterHeight * size));
+
+        int origin = (int) (letterOrigin * size);
+        int x = 0;
+        int y = 0;
+        int lineY = 0;
+
+        for (int i = 0; i < text.length(); i++) {
+            char ch = text.charAt(i);
+
+            if (ch == '\n') {
+                x = 0;
+                lineY += lineSpacing;
+                y = lineY;
+                continue;
+            } else if (ch == '\r') {
+                continue;
             }
 
-            xPos += letterSpacing + letterXOffset;
-            yPos += letterYOffset;
+            int index = getLetterIndex(ch);
+
+            run.add(ch == ' ' || ch == '\t' ? null : getLetter(index), x - origin, y);
+
+            x += (letterAdvances == null ? letterSpacing : (int) (letterAdvances[index] * size)) + letterXOffset;
+            y += letterYOffset;
         }
+
+        return run;
+    }
+
+    /**
+     * Throws away every cached run, for example because the letters of the font sheet were
+     * changed.
+     */
+    public void clearGlyphRuns() {
+        for (GlyphRun run : glyphRuns.values())
+            run.flush();
+
+        glyphRuns.clear();
+    }
+
+    public int getGlyphRunCacheSize() {
+        return glyphRunCacheSize;
+    }
+
+    public void setGlyphRunCacheSize(int glyphRunCacheSize) {
+        if (glyphRunCacheSize < 0)
+            throw new IllegalArgumentException("Cannot set glyph run cache size to " + glyphRunCacheSize);
+
+        this.glyphRunCacheSize = glyphRunCacheSize;
+        clearGlyphRuns();
     }
 
     public Sprite getLetter(char ch) {
+        return getLetter(getLetterIndex(ch));
+    }
+
+    // Letters that aren't in the font sheet use the first one
+    private int getLetterIndex(char ch) {
         int value = ch - 32; // 32 so that ! is the first value; which is the first letter in the font sheet
-        return value < 1 ? getLetter(0) : getLetter(value);
+        return value < 1 || value >= fontSheet.getSpriteCountWidth() * fontSheet.getSpriteCountHeight() ? 0 : value;
     }
 
     public Sprite getLetter(int num) {
@@ -98,7 +223,13 @@ public class ImageFont extends Font {
 
     @Override
     public AABB.Rectangle getStringBounds(Graphics2D g, String str) {
-        return null;
+        return getGlyphRun(str).getBounds();
+    }
+
+    @Override
+    public void setSize(float size) {
+        super.setSize(size);
+        clearGlyphRuns();
     }
 
     public int getLetterSpacing() {
@@ -107,6 +238,7 @@ public class ImageFont extends Font {
 
     public void setLetterSpacing(int letterSpacing) {
         this.letterSpacing = letterSpacing;
+        clearGlyphRuns();
     }
 
     public int getLineSpacing() {
@@ -115,6 +247,40 @@ public class ImageFont extends Font {
 
     public void setLineSpacing(int lineSpacing) {
         this.lineSpacing = lineSpacing;
+        clearGlyphRuns();
+    }
+
+    public int[] getLetterAdvances() {
+        return letterAdvances;
+    }
+
+    /**
+     * Gives every letter its own advance instead of the {@link #getLetterSpacing() letter
+     * spacing}, for fonts that aren't monospaced. Spaces and tabs advance by the advance of
+     * the first letter of the font sheet. The advances are scaled by the size of the font.
+     *
+     * @param letterAdvances The advance of every letter of the font sheet, in pixels of the
+     *                       sheet, or {@code null} to advance every letter by the spacing.
+     */
+    public void setLetterAdvances(int[] letterAdvances) {
+        this.letterAdvances = letterAdvances;
+        clearGlyphRuns();
+    }
+
+    public int getLetterOrigin() {
+        return letterOrigin;
+    }
+
+    /**
+     * Sets how far the letters of the font sheet start to the left of the position they are
+     * written at, for fonts with letters that reach back over the previous one. It is scaled
+     * by the size of the font.
+     *
+     * @param letterOrigin The distance in pixels of the sheet
+     */
+    public void setLetterOrigin(int letterOrigin) {
+        this.letterOrigin = letterOrigin;
+        clearGlyphRuns();
     }
 
     public SpriteSheet getFontSheet() {
@@ -127,6 +293,7 @@ public class ImageFont extends Font {
 
     public void setLetterXOffset(int letterXOffset) {
         this.letterXOffset = letterXOffset;
+        clearGlyphRuns();
     }
 
     public int getLetterYOffset() {
@@ -135,5 +302,6 @@ public class ImageFont extends Font {
 
     public void setLetterYOffset(int letterYOffset) {
         this.letterYOffset = letterYOffset;
+        clearGlyphRuns();
     }
 }
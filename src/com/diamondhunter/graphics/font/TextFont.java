@@ -1,26 +1,52 @@
 package com.diamondhunter.graphics.font;
 
+import com.diamondhunter.hub.DiamondHunter;
+import com.diamondhunter.util.loading.ResourceLoader;
+import com.diamondhunter.util.logging.Logger;
 import com.diamondhunter.util.logic.AABB;
 import com.diamondhunter.util.logic.Vector2f;
 
 import java.awt.*;
 import java.awt.geom.Rectangle2D;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URL;
 
 public class TextFont extends Font {
     private java.awt.Font font;
+    private URL url;
 
     public TextFont(String path) {
-        super(path);
+        this(ResourceLoader.retrieveResource(path));
     }
 
     public TextFont(URL path) {
         super(path);
+        load(path);
     }
 
     public TextFont(URI path) {
         super(path);
+
+        try {
+            load(path.toURL());
+        } catch (MalformedURLException e) {
+            DiamondHunter.getImplementation().getLogger().logLine(Logger.Level.ERROR, "Could not load font \"" + path + "\"");
+        }
+    }
+
+    private void load(URL path) {
+        url = path;
+
+        try (InputStream in = path.openStream()) {
+            font = java.awt.Font.createFont(java.awt.Font.TRUETYPE_FONT, in);
+            size = font.getSize2D();
+        } catch (IOException | FontFormatException e) {
+            DiamondHunter.getImplementation().getLogger().logLine(Logger.Level.ERROR, "Could not load font \"" + path + "\": "
+                    + e.getMessage());
+        }
     }
 
     @Override
@@ -73,4 +99,16 @@ public class TextFont extends Font {
     public java.awt.Font getFont() {
         return font;
     }
+
+    /**
+     * Bakes this font at its current size and style, so it can be rendered as quickly as a
+     * bitmap font.
+     *
+     * @param baker The baker to bake with
+     * @return Returns the baked font.
+     * @see FontBaker
+     */
+    public ImageFont toImageFont(FontBaker baker) {
+        return baker.bake(url, font);
+    }
 }
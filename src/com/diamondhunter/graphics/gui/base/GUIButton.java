@@ -112,6 +112,10 @@ public abstract class GUIButton extends GUIElement implements GUIElementListener
     public void setButtonWidth(int buttonWidth) {
         this.buttonWidth = buttonWidth;
         hoverSpriteSheet = new SpriteSheet(sprite, buttonWidth, buttonHeight);
+
+        if (hoverAnimation != null)
+            hoverAnimation.release();
+
         hoverAnimation = new Animation(hoverSpriteSheet.getSpritesRow(0));
     }
 
@@ -122,6 +126,10 @@ public abstract class GUIButton extends GUIElement implements GUIElementListener
     public void setButtonHeight(int buttonHeight) {
         this.buttonHeight = buttonHeight;
         hoverSpriteSheet = new SpriteSheet(sprite, buttonWidth, buttonHeight);
+
+        if (hoverAnimation != null)
+            hoverAnimation.release();
+
         hoverAnimation = new Animation(hoverSpriteSheet.getSpritesRow(0));
     }
 
@@ -1,6 +1,8 @@
 package com.diamondhunter.graphics.gui.base;
 
+import com.diamondhunter.graphics.sprite.RenderQueue;
 import com.diamondhunter.graphics.sprite.Sprite;
+import com.diamondhunter.graphics.window.DirtyRegions;
 import com.diamondhunter.util.input.KeyHandler;
 import com.diamondhunter.util.input.MouseHandler;
 import com.diamondhunter.util.logic.AABB;
@@ -24,6 +26,14 @@ public abstract class GUIElement {
     private boolean exited = false;
     private boolean dragged = false;
 
+    // How this element looked when its damage was last added
+    private Sprite damageSprite;
+    private float damageX, damageY, damageWidth, damageHeight;
+
+    // The sprite that the damage of the current frame was added for. Input may change the
+    // sprite in between, so this is the one that is drawn.
+    private Sprite frameSprite;
+
     public GUIElement(Vector2f position) {
         this(position, new AABB.Rectangle(position, 1), null);
     }
@@ -46,9 +56,49 @@ public abstract class GUIElement {
     public abstract void update();
 
     public void render(Graphics2D g) {
+        Sprite sprite = frameSprite != null ? frameSprite : this.sprite;
+        frameSprite = null;
+
         sprite.render(g, pos, sprite.getWidth() * renderWidthScale, sprite.getHeight() * renderHeightScale);
     }
 
+    /**
+     * Adds where this element was and where it is now if its sprite, position or size
+     * changed since the last time.
+     *
+     * @param regions The dirty regions of the next frame
+     */
+    public void addDamage(DirtyRegions regions) {
+        Sprite sprite = this.sprite;
+        float x = pos.getPositionX();
+        float y = pos.getPositionY();
+        float width = sprite.getWidth() * renderWidthScale;
+        float height = sprite.getHeight() * renderHeightScale;
+
+        if (sprite != damageSprite || x != damageX || y != damageY || width != damageWidth || height != damageHeight) {
+            if (damageSprite != null)
+                regions.add(damageX, damageY, damageWidth, damageHeight);
+
+            regions.add(x, y, width, height);
+
+            damageSprite = sprite;
+            damageX = x;
+            damageY = y;
+            damageWidth = width;
+            damageHeight = height;
+        }
+
+        frameSprite = sprite;
+    }
+
+    public void render(RenderQueue queue, float depth) {
+        Sprite sprite = frameSprite != null ? frameSprite : this.sprite;
+        frameSprite = null;
+
+        sprite.queue(queue, RenderQueue.GUI_LAYER, depth, pos.getPositionX(), pos.getPositionY(),
+                sprite.getWidth() * renderWidthScale, sprite.getHeight() * renderHeightScale);
+    }
+
     public void input(KeyHandler keyHandler, MouseHandler mouseHandler) {
         MouseHandler.Mouse mouse = mouseHandler.getMouse();
 
@@ -0,0 +1,163 @@
+package com.diamondhunter.graphics.parallax;
+
+import com.diamondhunter.graphics.sprite.RenderQueue;
+import com.diamondhunter.graphics.window.DirtyRegions;
+import com.diamondhunter.map.tiled.layer.TiledLayer;
+import com.diamondhunter.map.tiled.layer.TiledTileLayer;
+import com.diamondhunter.map.tiled.map.TiledMap;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A {@code ParallaxBackground} is a stack of {@link ParallaxLayer}s that scroll at different
+ * speeds, so the layers at the back seem further away than the ones at the front.
+ * <p>
+ * The background is scrolled by the thread that updates and drawn by the thread that
+ * renders. Every layer is drawn with at most four images, wherever it has scrolled to.
+ */
+public class ParallaxBackground {
+
+    private final List<ParallaxLayer> layers = new ArrayList<>();
+
+    private final int width;
+    private final int height;
+
+    private volatile float scrollX;
+    private volatile float scrollY;
+
+    // The scroll of the last frame that damage was added for
+    private float damageScrollX;
+    private float damageScrollY;
+
+    /**
+     * Creates a background without layers.
+     *
+     * @param width  The width of the view the background fills
+     * @param height The height of the view the background fills
+     */
+    public ParallaxBackground(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Creates a background out of the visible tile layers of a map. Every layer scrolls by
+     * its own parallax factor and keeps its opacity; the first layer of the map is at the
+     * back.
+     *
+     * @param map    The map to take the layers from
+     * @param scale  The scale to draw the map at
+     * @param width  The width of the view the background fills
+     * @param height The height of the view the background fills
+     * @return Returns the background.
+     */
+    public static ParallaxBackground fromTiledMap(TiledMap map, float scale, int width, int height) {
+        ParallaxBackground background = new ParallaxBackground(width, height);
+
+        for (TiledLayer layer : map.getLayers()) {
+            if (!(layer instanceof TiledTileLayer) || !layer.isVisible())
+                continue;
+
+            BufferedImage image = ((TiledTileLayer) layer).toImage();
+
+            if (image != null)
+                background.addLayer(new ParallaxLayer(image, layer.getParallaxX(), layer.getParallaxY(), scale,
+                        layer.getOpcacity(), width, height));
+        }
+
+        return background;
+    }
+
+    /**
+     * Adds a layer in front of the layers that were added before it.
+     *
+     * @param layer The layer to add
+     */
+    public void addLayer(ParallaxLayer layer) {
+        layers.add(layer);
+    }
+
+    public List<ParallaxLayer> getLayers() {
+        return Collections.unmodifiableList(layers);
+    }
+
+    public void render(Graphics2D g, float x, float y) {
+        float scrollX = this.scrollX;
+        float scrollY = this.scrollY;
+
+        for (ParallaxLayer layer : layers)
+            layer.render(g, (int) x, (int) y, width, height, scrollX, scrollY);
+    }
+
+    /**
+     * Adds every layer to a render queue, on the {@link RenderQueue#BACKGROUND_LAYER
+     * background layer}, with the layers at the back deeper than the ones at the front.
+     *
+     * @param queue The queue to render into
+     * @param x     The x position of the background
+     * @param y     The y position of the background
+     */
+    public void render(RenderQueue queue, float x, float y) {
+        float scrollX = this.scrollX;
+        float scrollY = this.scrollY;
+
+        for (int i = 0; i < layers.size(); i++)
+            layers.get(i).render(queue, layers.size() - i, (int) x, (int) y, width, height, scrollX, scrollY);
+    }
+
+    /**
+     * Adds the background to the dirty regions if it scrolled since the last frame. A
+     * background that doesn't scroll is never drawn again.
+     *
+     * @param regions The dirty regions of the next frame
+     * @param x       The x position of the background
+     * @param y       The y position of the background
+     */
+    public void addDamage(DirtyRegions regions, float x, float y) {
+        float scrollX = this.scrollX;
+        float scrollY = this.scrollY;
+
+        if (scrollX != damageScrollX || scrollY != damageScrollY) {
+            regions.add(x, y, width, height);
+
+            damageScrollX = scrollX;
+            damageScrollY = scrollY;
+        }
+    }
+
+    /**
+     * Scrolls the background. Each layer moves by the distance times its factor.
+     *
+     * @param dx The distance to scroll across
+     * @param dy The distance to scroll down
+     */
+    public void scroll(float dx, float dy) {
+        if (dx != 0 || dy != 0)
+            setScroll(scrollX + dx, scrollY + dy);
+    }
+
+    public void setScroll(float scrollX, float scrollY) {
+        this.scrollX = scrollX;
+        this.scrollY = scrollY;
+    }
+
+    public float getScrollX() {
+        return scrollX;
+    }
+
+    public float getScrollY() {
+        return scrollY;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+}
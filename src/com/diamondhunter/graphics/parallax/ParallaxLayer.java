@@ -0,0 +1,145 @@
+package com.diamondhunter.graphics.parallax;
+
+import com.diamondhunter.graphics.sprite.RenderQueue;
+import com.diamondhunter.graphics.sprite.Sprite;
+import com.diamondhunter.util.loading.ImageLoader;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+/**
+ * A layer of a {@link ParallaxBackground}: an image that repeats in every direction and
+ * scrolls at its own speed.
+ * <p>
+ * The image is scaled and repeated into one tile at least as big as the view when the
+ * layer is created. Wherever the layer has scrolled to, the view then only ever overlaps
+ * two tiles across and two tiles down, so a layer is drawn with at most four images per
+ * frame and nothing is scaled while drawing.
+ */
+public final class ParallaxLayer {
+
+    private final Sprite tile;
+    private final float factorX;
+    private final float factorY;
+
+    /**
+     * Creates an opaque layer.
+     *
+     * @param image      The image that repeats
+     * @param factorX    How fast the layer scrolls across compared to the background
+     * @param factorY    How fast the layer scrolls down compared to the background
+     * @param scale      The scale to draw the image at
+     * @param viewWidth  The width of the view the layer is drawn in
+     * @param viewHeight The height of the view the layer is drawn in
+     */
+    public ParallaxLayer(BufferedImage image, float factorX, float factorY, float scale, int viewWidth, int viewHeight) {
+        this(image, factorX, factorY, scale, 1, viewWidth, viewHeight);
+    }
+
+    /**
+     * Creates a layer.
+     *
+     * @param image      The image that repeats
+     * @param factorX    How fast the layer scrolls across compared to the background, where
+     *                   {@code 0} doesn't move and {@code 1} moves with the background
+     * @param factorY    How fast the layer scrolls down compared to the background
+     * @param scale      The scale to draw the image at
+     * @param opacity    The opacity of the layer, from {@code 0} to {@code 1}
+     * @param viewWidth  The width of the view the layer is drawn in
+     * @param viewHeight The height of the view the layer is drawn in
+     */
+    @SuppressWarnings("deprecation")
+    public ParallaxLayer(BufferedImage image, float factorX, float factorY, float scale, float opacity, int viewWidth, int viewHeight) {
+        this.factorX = factorX;
+        this.factorY = factorY;
+
+        int imageWidth = Math.max(1, Math.round(image.getWidth() * scale));
+        int imageHeight = Math.max(1, Math.round(image.getHeight() * scale));
+        int columns = Math.max(1, (viewWidth + imageWidth - 1) / imageWidth);
+        int rows = Math.max(1, (viewHeight + imageHeight - 1) / imageHeight);
+
+        BufferedImage tileImage = ImageLoader.createCompatibleImage(columns * imageWidth, rows * imageHeight,
+                opacity < 1 ? Transparency.TRANSLUCENT : ImageLoader.getTransparency(image));
+
+        Graphics2D g = tileImage.createGraphics();
+        g.setComposite(opacity < 1 ? AlphaComposite.SrcOver.derive(opacity) : AlphaComposite.Src);
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++)
+                g.drawImage(image, column * imageWidth, row * imageHeight, imageWidth, imageHeight, null);
+        }
+
+        g.dispose();
+
+        // Backgrounds cover the whole view every frame, which is what hot sprites are for
+        tile = new Sprite(tileImage);
+        tile.setHot(true);
+    }
+
+    /**
+     * Draws this layer over a view.
+     *
+     * @param g          The graphics to draw with
+     * @param x          The x position of the view
+     * @param y          The y position of the view
+     * @param viewWidth  The width of the view
+     * @param viewHeight The height of the view
+     * @param scrollX    How far the background has scrolled across
+     * @param scrollY    How far the background has scrolled down
+     */
+    public void render(Graphics2D g, int x, int y, int viewWidth, int viewHeight, float scrollX, float scrollY) {
+        int width = tile.getWidth();
+        int height = tile.getHeight();
+
+        for (int drawY = y + getOffset(scrollY * factorY, height); drawY < y + viewHeight; drawY += height) {
+            for (int drawX = x + getOffset(scrollX * factorX, width); drawX < x + viewWidth; drawX += width)
+                tile.render(g, drawX, drawY, width, height);
+        }
+    }
+
+    /**
+     * Adds this layer to a render queue, on the {@link RenderQueue#BACKGROUND_LAYER
+     * background layer}.
+     *
+     * @param queue      The queue to render into
+     * @param depth      The depth of this layer, layers with a lower depth are drawn on top
+     * @param x          The x position of the view
+     * @param y          The y position of the view
+     * @param viewWidth  The width of the view
+     * @param viewHeight The height of the view
+     * @param scrollX    How far the background has scrolled across
+     * @param scrollY    How far the background has scrolled down
+     */
+    public void render(RenderQueue queue, float depth, int x, int y, int viewWidth, int viewHeight, float scrollX, float scrollY) {
+        int width = tile.getWidth();
+        int height = tile.getHeight();
+
+        for (int drawY = y + getOffset(scrollY * factorY, height); drawY < y + viewHeight; drawY += height) {
+            for (int drawX = x + getOffset(scrollX * factorX, width); drawX < x + viewWidth; drawX += width)
+                tile.queue(queue, RenderQueue.BACKGROUND_LAYER, depth, drawX, drawY, width, height);
+        }
+    }
+
+    // Where the first tile starts, between one tile before the view and the start of the view
+    private static int getOffset(float scroll, int size) {
+        return -Math.floorMod((int) Math.floor(scroll), size);
+    }
+
+    public float getFactorX() {
+        return factorX;
+    }
+
+    public float getFactorY() {
+        return factorY;
+    }
+
+    /**
+     * The tile this layer repeats: its image, scaled and repeated to cover the view.
+     *
+     * @return Returns the tile.
+     */
+    public Sprite getTile() {
+        return tile;
+    }
+}
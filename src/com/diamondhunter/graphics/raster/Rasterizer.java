@@ -0,0 +1,394 @@
+package com.diamondhunter.graphics.raster;
+
+import com.diamondhunter.graphics.sprite.Sprite;
+import com.diamondhunter.map.tiled.tileset.TiledTile;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * A {@code Rasterizer} draws images by writing straight into the pixels of an image, without
+ * going through {@link Graphics2D}.
+ * <p>
+ * The target must be an image of the type {@link BufferedImage#TYPE_INT_ARGB_PRE}. Images are
+ * drawn with nearest neighbour scaling and blended with premultiplied alpha. The pixels of
+ * every image that is drawn are copied once, premultiplied, into a cache that every
+ * rasterizer shares and that forgets the image when it is no longer used. Whatever changes
+ * the pixels of an image after it may have been drawn must {@link #invalidate(Image)
+ * invalidate} it, as {@link Sprite#setRGB(int, int, int)}, the
+ * {@link com.diamondhunter.graphics.sprite.TextureAtlas texture atlas} and the chunks of a
+ * {@link com.diamondhunter.map.tiled.layer.TiledTileLayer tile layer} do. Runs of opaque
+ * pixels are copied without blending, and opaque images drawn at their own size are copied
+ * row by row.
+ * <p>
+ * Positions and sizes are given at the size of the display, like everything else, and are
+ * scaled to the size of the target. Drawing is clipped to the bounds of the clip of the
+ * {@link #getGraphics() graphics} of the target, which are also used for whatever cannot be
+ * rasterized: rotated sprites, images that aren't a {@code BufferedImage}, and composites
+ * other than {@link AlphaComposite#SRC_OVER} and {@link AlphaComposite#SRC}.
+ * <p>
+ * Because the pixels of the target are written directly, Java2D can no longer cache the
+ * target in video memory. A rasterizer may only be used by one thread at a time, but
+ * rasterizers {@link #derive(Graphics2D) derived} from each other may draw into different
+ * parts of the same target at the same time.
+ */
+public final class Rasterizer {
+
+    // The cached pixels of every image that was drawn, by any rasterizer
+    private static final Map<Image, Source> SOURCES = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private BufferedImage target;
+    private int[] pixels;
+    private int targetWidth, targetHeight;
+    private Graphics2D graphics;
+
+    // Display coordinates to target pixels
+    private float scaleX, scaleY;
+
+    // The clip in target pixels, as x1, y1, x2, y2
+    private int clipX1, clipY1, clipX2, clipY2;
+    private final Rectangle clipBounds = new Rectangle();
+
+    // The source column of every target column of the image being drawn
+    private int[] columns = new int[256];
+
+    /**
+     * Creates a rasterizer that draws into the given image.
+     *
+     * @param target   The image to draw into
+     * @param graphics The graphics of the image, to draw whatever cannot be rasterized with
+     * @param scaleX   The width of the target compared to the width that is drawn at
+     * @param scaleY   The height of the target compared to the height that is drawn at
+     */
+    public Rasterizer(BufferedImage target, Graphics2D graphics, float scaleX, float scaleY) {
+        setTarget(target, graphics, scaleX, scaleY);
+    }
+
+    /**
+     * Creates a rasterizer that draws into the same target with other graphics, usually
+     * clipped to another part of the target.
+     *
+     * @param graphics The graphics of the target for the new rasterizer
+     * @return Returns the new rasterizer.
+     */
+    public Rasterizer derive(Graphics2D graphics) {
+        return new Rasterizer(target, graphics, scaleX, scaleY);
+    }
+
+    /**
+     * Changes the image that is drawn into.
+     *
+     * @param target   The image to draw into
+     * @param graphics The graphics of the image, to draw whatever cannot be rasterized with
+     * @param scaleX   The width of the target compared to the width that is drawn at
+     * @param scaleY   The height of the target compared to the height that is drawn at
+     */
+    public void setTarget(BufferedImage target, Graphics2D graphics, float scaleX, float scaleY) {
+        if (target.getType() != BufferedImage.TYPE_INT_ARGB_PRE)
+            throw new IllegalArgumentException("Cannot rasterize into an image of type " + target.getType());
+
+        this.target = target;
+        this.pixels = ((DataBufferInt) target.getRaster().getDataBuffer()).getData();
+        this.targetWidth = target.getWidth();
+        this.targetHeight = target.getHeight();
+        this.graphics = graphics;
+        this.scaleX = scaleX;
+        this.scaleY = scaleY;
+
+        updateClip();
+    }
+
+    /**
+     * Takes over the clip of the {@link #getGraphics() graphics}. The drawing methods of this
+     * class do this themselves, this is for callers that draw many images at once through
+     * {@link #draw(Image, int, int, int, int, int, int, int, int, Composite, boolean)}.
+     */
+    public void updateClip() {
+        Rectangle bounds = graphics.getClipBounds(clipBounds);
+
+        if (bounds == null) {
+            clipX1 = clipY1 = 0;
+            clipX2 = targetWidth;
+            clipY2 = targetHeight;
+            return;
+        }
+
+        clipX1 = Math.max(0, (int) Math.floor(bounds.x * scaleX));
+        clipY1 = Math.max(0, (int) Math.floor(bounds.y * scaleY));
+        clipX2 = Math.min(targetWidth, (int) Math.ceil((bounds.x + bounds.width) * scaleX));
+        clipY2 = Math.min(targetHeight, (int) Math.ceil((bounds.y + bounds.height) * scaleY));
+    }
+
+    /**
+     * Draws a sprite like {@link Sprite#render(Graphics2D, float, float, int, int)} does.
+     *
+     * @param sprite The sprite to draw
+     * @param x      The x position to draw at
+     * @param y      The y position to draw at
+     * @param width  The width to draw with
+     * @param height The height to draw with
+     */
+    public void draw(Sprite sprite, float x, float y, int width, int height) {
+        BufferedImage image = sprite.getImage();
+
+        updateClip();
+
+        if (sprite.getRotationAngle() != 0
+                || !draw(image, 0, 0, image.getWidth(), image.getHeight(), (int) x, (int) y, width, height, sprite.getComposite(), false))
+            sprite.render(graphics, x, y, width, height);
+    }
+
+    /**
+     * Draws a tile like {@link TiledTile#render(Graphics2D, float, int, int)} does.
+     *
+     * @param tile  The tile to draw
+     * @param scale The scale to draw the tile at
+     * @param x     The x position of the tile before it is scaled
+     * @param y     The y position of the tile before it is scaled
+     */
+    public void draw(TiledTile tile, float scale, int x, int y) {
+        BufferedImage image = tile.getImage();
+
+        updateClip();
+
+        draw(image, 0, 0, image.getWidth(), image.getHeight(), (int) (x * scale), (int) (y * scale),
+                (int) (image.getWidth() * scale), (int) (image.getHeight() * scale), AlphaComposite.SrcOver, true);
+    }
+
+    /**
+     * Draws a part of an image, clipped to the clip that was last
+     * {@link #updateClip() taken over}.
+     *
+     * @param image        The image to draw
+     * @param sourceX      The x position of the part of the image
+     * @param sourceY      The y position of the part of the image
+     * @param sourceWidth  The width of the part of the image
+     * @param sourceHeight The height of the part of the image
+     * @param x            The x position to draw at
+     * @param y            The y position to draw at
+     * @param width        The width to draw with
+     * @param height       The height to draw with
+     * @param composite    The composite to draw with
+     * @param fallback     {@code true} to draw the image with the graphics if it cannot be
+     *                     rasterized
+     * @return Returns {@code false} if the image could not be rasterized and was not drawn.
+     */
+    public boolean draw(Image image, int sourceX, int sourceY, int sourceWidth, int sourceHeight,
+                        int x, int y, int width, int height, Composite composite, boolean fallback) {
+        int alpha;
+        boolean copy;
+
+        if (image instanceof BufferedImage && composite instanceof AlphaComposite
+                && (((AlphaComposite) composite).getRule() == AlphaComposite.SRC_OVER || ((AlphaComposite) composite).getRule() == AlphaComposite.SRC)) {
+            alpha = Math.round(((AlphaComposite) composite).getAlpha() * 256);
+            copy = ((AlphaComposite) composite).getRule() == AlphaComposite.SRC;
+        } else {
+            if (fallback)
+                drawWithGraphics(image, sourceX, sourceY, sourceWidth, sourceHeight, x, y, width, height, composite);
+
+            return fallback;
+        }
+
+        if (width <= 0 || height <= 0 || sourceWidth <= 0 || sourceHeight <= 0 || (alpha == 0 && !copy))
+            return true;
+
+        // The destination in target pixels
+        int x1 = Math.round(x * scaleX);
+        int y1 = Math.round(y * scaleY);
+        int x2 = Math.round((x + width) * scaleX);
+        int y2 = Math.round((y + height) * scaleY);
+
+        int drawX1 = Math.max(x1, clipX1);
+        int drawY1 = Math.max(y1, clipY1);
+        int drawX2 = Math.min(x2, clipX2);
+        int drawY2 = Math.min(y2, clipY2);
+
+        if (drawX2 <= drawX1 || drawY2 <= drawY1)
+            return true;
+
+        Source source = getSource((BufferedImage) image);
+
+        if (sourceX < 0 || sourceY < 0 || sourceX + sourceWidth > source.width || sourceY + sourceHeight > source.height) {
+            if (fallback)
+                drawWithGraphics(image, sourceX, sourceY, sourceWidth, sourceHeight, x, y, width, height, composite);
+
+            return fallback;
+        }
+
+        int destinationWidth = x2 - x1;
+        int destinationHeight = y2 - y1;
+
+        if (destinationWidth == sourceWidth && destinationHeight == sourceHeight) {
+            drawUnscaled(source, sourceX - x1, sourceY - y1, drawX1, drawY1, drawX2, drawY2, alpha, copy);
+            return true;
+        }
+
+        // Samples the source at the center of every target pixel
+        int count = drawX2 - drawX1;
+
+        if (columns.length < count)
+            columns = new int[Math.max(count, columns.length * 2)];
+
+        for (int i = 0; i < count; i++)
+            columns[i] = sourceX + (int) (((long) (drawX1 - x1 + i) * 2 + 1) * sourceWidth / (destinationWidth * 2L));
+
+        for (int ty = drawY1; ty < drawY2; ty++) {
+            int sy = sourceY + (int) (((long) (ty - y1) * 2 + 1) * sourceHeight / (destinationHeight * 2L));
+            int sourceRow = sy * source.width;
+            int targetIndex = ty * targetWidth + drawX1;
+
+            if (copy) {
+                for (int i = 0; i < count; i++)
+                    pixels[targetIndex + i] = multiply(source.pixels[sourceRow + columns[i]], alpha);
+            } else if (alpha < 256) {
+                for (int i = 0; i < count; i++)
+                    pixels[targetIndex + i] = blend(multiply(source.pixels[sourceRow + columns[i]], alpha), pixels[targetIndex + i]);
+            } else if (source.opaque) {
+                for (int i = 0; i < count; i++)
+                    pixels[targetIndex + i] = source.pixels[sourceRow + columns[i]];
+            } else {
+                for (int i = 0; i < count; i++) {
+                    int pixel = source.pixels[sourceRow + columns[i]];
+                    int pixelAlpha = pixel >>> 24;
+
+                    if (pixelAlpha == 255)
+                        pixels[targetIndex + i] = pixel;
+                    else if (pixelAlpha != 0)
+                        pixels[targetIndex + i] = blend(pixel, pixels[targetIndex + i]);
+                }
+            }
+        }
+
+        return true;
+    }
+
+    private void drawUnscaled(Source source, int offsetX, int offsetY, int x1, int y1, int x2, int y2, int alpha, boolean copy) {
+        int count = x2 - x1;
+
+        for (int ty = y1; ty < y2; ty++) {
+            int sourceIndex = (ty + offsetY) * source.width + x1 + offsetX;
+            int targetIndex = ty * targetWidth + x1;
+
+            if ((copy || source.opaque) && alpha >= 256) {
+                System.arraycopy(source.pixels, sourceIndex, pixels, targetIndex, count);
+            } else if (copy) {
+                for (int i = 0; i < count; i++)
+                    pixels[targetIndex + i] = multiply(source.pixels[sourceIndex + i], alpha);
+            } else if (alpha < 256) {
+                for (int i = 0; i < count; i++)
+                    pixels[targetIndex + i] = blend(multiply(source.pixels[sourceIndex + i], alpha), pixels[targetIndex + i]);
+            } else {
+                for (int i = 0; i < count; i++) {
+                    int pixel = source.pixels[sourceIndex + i];
+                    int pixelAlpha = pixel >>> 24;
+
+                    if (pixelAlpha == 255)
+                        pixels[targetIndex + i] = pixel;
+                    else if (pixelAlpha != 0)
+                        pixels[targetIndex + i] = blend(pixel, pixels[targetIndex + i]);
+                }
+            }
+        }
+    }
+
+    private void drawWithGraphics(Image image, int sourceX, int sourceY, int sourceWidth, int sourceHeight,
+                                  int x, int y, int width, int height, Composite composite) {
+        Composite oldComposite = graphics.getComposite();
+
+        if (oldComposite != composite)
+            graphics.setComposite(composite);
+
+        graphics.drawImage(image, x, y, x + width, y + height, sourceX, sourceY, sourceX + sourceWidth, sourceY + sourceHeight, null);
+
+        if (oldComposite != composite)
+            graphics.setComposite(oldComposite);
+    }
+
+    /*
+     * Source over with premultiplied alpha: source + target * (1 - source alpha). The red and
+     * blue channels are scaled together, and so are alpha and green.
+     */
+    private static int blend(int source, int target) {
+        int sourceAlpha = source >>> 24;
+        int inverse = 256 - (sourceAlpha + (sourceAlpha >> 7));
+
+        int redBlue = ((target & 0xFF00FF) * inverse >>> 8) & 0xFF00FF;
+        int alphaGreen = ((target >>> 8) & 0xFF00FF) * inverse & 0xFF00FF00;
+
+        return source + (redBlue | alphaGreen);
+    }
+
+    // Scales every channel of a premultiplied pixel, where 256 keeps the pixel as it is
+    private static int multiply(int pixel, int alpha) {
+        if (alpha >= 256)
+            return pixel;
+
+        int redBlue = ((pixel & 0xFF00FF) * alpha >>> 8) & 0xFF00FF;
+        int alphaGreen = ((pixel >>> 8) & 0xFF00FF) * alpha & 0xFF00FF00;
+
+        return redBlue | alphaGreen;
+    }
+
+    private Source getSource(BufferedImage image) {
+        return SOURCES.computeIfAbsent(image, key -> new Source((BufferedImage) key));
+    }
+
+    /**
+     * Forgets the cached pixels of an image, so its current pixels are used the next time
+     * any rasterizer draws it. Images that share their pixels with others, like a
+     * {@link BufferedImage#getSubimage(int, int, int, int) subimage}, have to be invalidated
+     * one by one.
+     *
+     * @param image The image that was changed
+     */
+    public static void invalidate(Image image) {
+        if (image != null)
+            SOURCES.remove(image);
+    }
+
+    /**
+     * The graphics of the target, which are used for everything that cannot be rasterized.
+     *
+     * @return Returns the graphics of the target.
+     */
+    public Graphics2D getGraphics() {
+        return graphics;
+    }
+
+    public BufferedImage getTarget() {
+        return target;
+    }
+
+    /*
+     * The pixels of an image, premultiplied, and whether all of them are opaque.
+     */
+    private static final class Source {
+        private final int[] pixels;
+        private final int width, height;
+        private final boolean opaque;
+
+        private Source(BufferedImage image) {
+            width = image.getWidth();
+            height = image.getHeight();
+            pixels = image.getRGB(0, 0, width, height, null, 0, width);
+
+            boolean opaque = true;
+
+            for (int i = 0; i < pixels.length; i++) {
+                int pixel = pixels[i];
+                int alpha = pixel >>> 24;
+
+                if (alpha != 255) {
+                    opaque = false;
+                    pixels[i] = (alpha << 24) | (multiply(pixel & 0xFFFFFF, alpha + (alpha >> 7)) & 0xFFFFFF);
+                }
+            }
+
+            this.opaque = opaque;
+        }
+    }
+}
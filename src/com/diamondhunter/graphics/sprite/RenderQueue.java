@@ -0,0 +1,324 @@
+package com.diamondhunter.graphics.sprite;
+
+import com.diamondhunter.graphics.raster.Rasterizer;
+
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.util.Arrays;
+
+/**
+ * A {@code RenderQueue} collects draw commands during a frame and draws them all at once
+ * when it is {@link #flush(Graphics2D) flushed}.
+ * <p>
+ * Every command is a part of an image drawn at a destination, with a layer, a depth and a
+ * composite. When the queue is flushed, the commands are sorted by layer first (lower
+ * layers are drawn first) and by depth second (like entities, a lower depth is drawn on
+ * top of a higher depth). Commands with the same layer and depth are drawn grouped by
+ * image, so the order between them is not kept; give overlapping commands different depths
+ * or layers. The composite of the graphics is only changed when it differs between two
+ * commands.
+ * <p>
+ * Because the queue does the sorting, callers do not have to submit their commands in the
+ * order that they must be drawn in. The commands are stored in arrays that grow when
+ * needed and are reused every frame, so a queue does not create garbage once it has grown
+ * to the size of a frame.
+ * <p>
+ * A queue may only be used by one thread at a time.
+ */
+public final class RenderQueue {
+
+    /**
+     * The layer of backgrounds, below everything else.
+     */
+    public static final int BACKGROUND_LAYER = 0;
+
+    /**
+     * The layer of the tiles of the map.
+     */
+    public static final int MAP_LAYER = 32;
+
+    /**
+     * The layer of entities.
+     */
+    public static final int ENTITY_LAYER = 64;
+
+    /**
+     * The layer of GUI elements, on top of the world.
+     */
+    public static final int GUI_LAYER = 128;
+
+    /**
+     * The layer of debug information, on top of everything else.
+     */
+    public static final int DEBUG_LAYER = 255;
+
+    private static final int DEFAULT_CAPACITY = 256;
+
+    private Image[] images = new Image[DEFAULT_CAPACITY];
+    private Composite[] composites = new Composite[DEFAULT_CAPACITY];
+
+    // The source rectangle as x1, y1, x2, y2 and the destination the same way
+    private int[] sources = new int[DEFAULT_CAPACITY * 4];
+    private int[] destinations = new int[DEFAULT_CAPACITY * 4];
+
+    // The rotation, in radians, and the point it is around. Only used if the rotation isn't 0
+    private float[] rotations = new float[DEFAULT_CAPACITY * 3];
+
+    private long[] keys = new long[DEFAULT_CAPACITY];
+    private int[] order = new int[DEFAULT_CAPACITY];
+    private int[] sortBuffer = new int[DEFAULT_CAPACITY];
+
+    private int size;
+
+    /**
+     * Adds a command that draws a whole image.
+     *
+     * @param layer     The layer, from {@code 0} to {@code 255}
+     * @param depth     The depth in the layer
+     * @param image     The image to draw
+     * @param x         The x position to draw at
+     * @param y         The y position to draw at
+     * @param width     The width to draw with
+     * @param height    The height to draw with
+     * @param composite The composite to draw with
+     */
+    public void submit(int layer, float depth, Image image, int x, int y, int width, int height, Composite composite) {
+        submit(layer, depth, image, 0, 0, image.getWidth(null), image.getHeight(null), x, y, width, height, composite, 0, 0, 0);
+    }
+
+    /**
+     * Adds a command that draws a part of an image.
+     *
+     * @param layer        The layer, from {@code 0} to {@code 255}
+     * @param depth        The depth in the layer
+     * @param image        The image to draw
+     * @param sourceX      The x position of the part of the image
+     * @param sourceY      The y position of the part of the image
+     * @param sourceWidth  The width of the part of the image
+     * @param sourceHeight The height of the part of the image
+     * @param x            The x position to draw at
+     * @param y            The y position to draw at
+     * @param width        The width to draw with
+     * @param height       The height to draw with
+     * @param composite    The composite to draw with
+     * @param rotation     The rotation, in radians, or {@code 0} to not rotate
+     * @param pivotX       The x position to rotate around
+     * @param pivotY       The y position to rotate around
+     */
+    public void submit(int layer, float depth, Image image, int sourceX, int sourceY, int sourceWidth, int sourceHeight,
+                       int x, int y, int width, int height, Composite composite, float rotation, float pivotX, float pivotY) {
+        if (layer < 0 || layer > 255)
+            throw new IllegalArgumentException("Cannot render on layer " + layer);
+
+        if (size == images.length)
+            grow();
+
+        int i = size++;
+
+        images[i] = image;
+        composites[i] = composite;
+
+        sources[i * 4] = sourceX;
+        sources[i * 4 + 1] = sourceY;
+        sources[i * 4 + 2] = sourceX + sourceWidth;
+        sources[i * 4 + 3] = sourceY + sourceHeight;
+
+        destinations[i * 4] = x;
+        destinations[i * 4 + 1] = y;
+        destinations[i * 4 + 2] = x + width;
+        destinations[i * 4 + 3] = y + height;
+
+        rotations[i * 3] = rotation;
+        rotations[i * 3 + 1] = pivotX;
+        rotations[i * 3 + 2] = pivotY;
+
+        keys[i] = createKey(layer, depth, image);
+    }
+
+    /**
+     * Adds every command of another queue to this one, with the same layers and depths. The
+     * other queue is not changed, so its commands can be added again, for example to every
+     * frame that is drawn from the same snapshot.
+     *
+     * @param commands The queue to add the commands of
+     */
+    public void submitAll(RenderQueue commands) {
+        for (int n = 0; n < commands.size; n++) {
+            if (size == images.length)
+                grow();
+
+            int i = size++;
+
+            images[i] = commands.images[n];
+            composites[i] = commands.composites[n];
+
+            System.arraycopy(commands.sources, n * 4, sources, i * 4, 4);
+            System.arraycopy(commands.destinations, n * 4, destinations, i * 4, 4);
+            System.arraycopy(commands.rotations, n * 3, rotations, i * 3, 3);
+
+            keys[i] = commands.keys[n];
+        }
+    }
+
+    /*
+     * Packs the layer, the depth and the image into a key that sorts in drawing order: the
+     * layer in the highest 8 bits, then the depth and then a hash of the image so commands
+     * with the same image end up next to each other.
+     */
+    private static long createKey(int layer, float depth, Image image) {
+        // Higher depths are drawn first. Flip the bits so negative floats sort as integers
+        int bits = Float.floatToIntBits(-depth);
+        bits ^= (bits >> 31) & 0x7FFFFFFF;
+
+        long sortableDepth = (bits ^ 0x80000000) & 0xFFFFFFFFL;
+
+        return ((long) layer << 56) | (sortableDepth << 24) | (System.identityHashCode(image) & 0xFFFFFFL);
+    }
+
+    private void grow() {
+        int capacity = images.length * 2;
+
+        images = Arrays.copyOf(images, capacity);
+        composites = Arrays.copyOf(composites, capacity);
+        sources = Arrays.copyOf(sources, capacity * 4);
+        destinations = Arrays.copyOf(destinations, capacity * 4);
+        rotations = Arrays.copyOf(rotations, capacity * 3);
+        keys = Arrays.copyOf(keys, capacity);
+        order = new int[capacity];
+        sortBuffer = new int[capacity];
+    }
+
+    /**
+     * Sorts every command and draws them with the given graphics, then empties this queue.
+     * The composite and transform of the graphics are the same afterwards.
+     *
+     * @param g The graphics to draw with
+     */
+    public void flush(Graphics2D g) {
+        flush(g, null);
+    }
+
+    /**
+     * Sorts every command and draws them with the given rasterizer, then empties this queue.
+     * Commands that the rasterizer cannot draw, like rotated ones, are drawn with its
+     * graphics.
+     *
+     * @param rasterizer The rasterizer to draw with
+     */
+    public void flush(Rasterizer rasterizer) {
+        flush(rasterizer.getGraphics(), rasterizer);
+    }
+
+    private void flush(Graphics2D g, Rasterizer rasterizer) {
+        if (size == 0)
+            return;
+
+        sort();
+        draw(g, rasterizer);
+        clear();
+    }
+
+    /**
+     * Draws every command in the order that {@link #sort()} put them in, without emptying
+     * this queue. Nothing in this queue is changed, so several threads may draw the same
+     * sorted queue at once, each with their own graphics and rasterizer. The composite and
+     * transform of the graphics are the same afterwards.
+     *
+     * @param g          The graphics to draw with
+     * @param rasterizer The rasterizer to draw with, or {@code null} to only use the graphics
+     */
+    public void draw(Graphics2D g, Rasterizer rasterizer) {
+        if (rasterizer != null)
+            rasterizer.updateClip();
+
+        Composite oldComposite = g.getComposite();
+        Composite currentComposite = oldComposite;
+        AffineTransform oldTransform = null;
+
+        for (int n = 0; n < size; n++) {
+            int i = order[n];
+
+            if (rasterizer != null && rotations[i * 3] == 0 && rasterizer.draw(images[i], sources[i * 4], sources[i * 4 + 1],
+                    sources[i * 4 + 2] - sources[i * 4], sources[i * 4 + 3] - sources[i * 4 + 1], destinations[i * 4], destinations[i * 4 + 1],
+                    destinations[i * 4 + 2] - destinations[i * 4], destinations[i * 4 + 3] - destinations[i * 4 + 1], composites[i], false))
+                continue;
+
+            if (composites[i] != currentComposite) {
+                currentComposite = composites[i];
+                g.setComposite(currentComposite);
+            }
+
+            float rotation = rotations[i * 3];
+
+            if (rotation != 0) {
+                // Only copy the transform if something is rotated
+                if (oldTransform == null)
+                    oldTransform = g.getTransform();
+
+                g.rotate(rotation, rotations[i * 3 + 1], rotations[i * 3 + 2]);
+            }
+
+            g.drawImage(images[i], destinations[i * 4], destinations[i * 4 + 1], destinations[i * 4 + 2], destinations[i * 4 + 3],
+                    sources[i * 4], sources[i * 4 + 1], sources[i * 4 + 2], sources[i * 4 + 3], null);
+
+            if (rotation != 0)
+                g.setTransform(oldTransform);
+        }
+
+        if (currentComposite != oldComposite)
+            g.setComposite(oldComposite);
+    }
+
+    /**
+     * Removes every command without drawing them.
+     */
+    public void clear() {
+        // Don't keep old images alive
+        Arrays.fill(images, 0, size, null);
+        Arrays.fill(composites, 0, size, null);
+
+        size = 0;
+    }
+
+    /**
+     * Sorts the commands into the order that they are drawn in. Flushing does this itself,
+     * this is only needed before {@link #draw(Graphics2D, Rasterizer) drawing} the same
+     * commands more than once.
+     */
+    public void sort() {
+        // A merge sort so commands with the same key keep the order they were submitted in,
+        // sorting into a reused buffer
+        for (int i = 0; i < size; i++)
+            order[i] = i;
+
+        for (int width = 1; width < size; width *= 2) {
+            for (int start = 0; start < size; start += width * 2) {
+                int middle = Math.min(start + width, size);
+                int end = Math.min(start + width * 2, size);
+                int left = start, right = middle, out = start;
+
+                while (left < middle && right < end)
+                    sortBuffer[out++] = Long.compareUnsigned(keys[order[right]], keys[order[left]]) < 0 ? order[right++] : order[left++];
+
+                while (left < middle)
+                    sortBuffer[out++] = order[left++];
+
+                while (right < end)
+                    sortBuffer[out++] = order[right++];
+            }
+
+            int[] sorted = sortBuffer;
+            sortBuffer = order;
+            order = sorted;
+        }
+    }
+
+    /**
+     * The amount of commands waiting to be drawn.
+     *
+     * @return Returns the amount of commands in this queue.
+     */
+    public int size() {
+        return size;
+    }
+}
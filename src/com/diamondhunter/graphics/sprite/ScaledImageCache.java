@@ -0,0 +1,238 @@
+package com.diamondhunter.graphics.sprite;
+
+import com.diamondhunter.util.loading.ImageLoader;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * A {@code ScaledImageCache} keeps copies of images that were scaled to another size, so a
+ * sprite that is drawn scaled every frame is only scaled once and then copied onto the
+ * screen as it is.
+ * <p>
+ * The copies are scaled with nearest neighbour, which is what Java2D uses when it scales
+ * while drawing, so they look the same. Every copy is kept by its image, width and height.
+ * Once the copies take up more memory than the {@link #getCapacity() capacity}, the copies
+ * that were used the longest time ago are removed. A copy counts as used whenever its
+ * {@link Entry#getImage() image} is taken, also through an entry a sprite held on to, so
+ * sprites that are drawn every frame keep their copies. Copies that alone would take up more
+ * than an eighth of the capacity are not kept at all.
+ * <p>
+ * A cache may be used by several threads.
+ */
+public final class ScaledImageCache {
+
+    /**
+     * The capacity of a new cache, in bytes.
+     */
+    public static final long DEFAULT_CAPACITY = 32L * 1024 * 1024;
+
+    private final HashMap<Entry, Entry> entries = new HashMap<>();
+
+    // Looks entries up without creating a key every time
+    private final Entry probe = new Entry(null, 0, 0, null);
+
+    private long capacity;
+    private long size;
+
+    public ScaledImageCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ScaledImageCache(long capacity) {
+        setCapacity(capacity);
+    }
+
+    /**
+     * The copy of an image at the given size. The copy is made if it isn't cached yet.
+     *
+     * @param image  The image to scale
+     * @param width  The width to scale to
+     * @param height The height to scale to
+     * @return Returns the entry of the copy, or {@code null} if it is too big to be cached.
+     */
+    public synchronized Entry get(BufferedImage image, int width, int height) {
+        probe.source = image;
+        probe.width = width;
+        probe.height = height;
+
+        Entry entry = entries.get(probe);
+        probe.source = null;
+
+        if (entry != null)
+            return entry;
+
+        long bytes = getBytes(width, height);
+
+        if (bytes > capacity / 8)
+            return null;
+
+        entry = new Entry(image, width, height, scale(image, width, height));
+        entries.put(entry, entry);
+        size += bytes;
+
+        trim();
+
+        return entry;
+    }
+
+    private static BufferedImage scale(BufferedImage image, int width, int height) {
+        BufferedImage scaled = ImageLoader.createCompatibleImage(width, height, image.getTransparency());
+        Graphics2D g = scaled.createGraphics();
+
+        g.setComposite(AlphaComposite.Src);
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+        g.drawImage(image, 0, 0, width, height, null);
+        g.dispose();
+
+        return scaled;
+    }
+
+    /*
+     * Removes the copies that were used the longest time ago until the rest fit.
+     */
+    private void trim() {
+        if (size <= capacity)
+            return;
+
+        List<Entry> leastRecentlyUsed = new ArrayList<>(entries.keySet());
+        leastRecentlyUsed.sort(Comparator.comparingLong(entry -> entry.lastUsed));
+
+        for (int i = 0; i < leastRecentlyUsed.size() && size > capacity; i++) {
+            Entry entry = leastRecentlyUsed.get(i);
+
+            entries.remove(entry);
+            evict(entry);
+        }
+    }
+
+    private void evict(Entry entry) {
+        size -= getBytes(entry.width, entry.height);
+        entry.evicted = true;
+        entry.image.flush();
+    }
+
+    private static long getBytes(int width, int height) {
+        return (long) width * height * 4;
+    }
+
+    /**
+     * Removes every copy of an image, for example because the image was changed.
+     *
+     * @param image The image to remove the copies of
+     */
+    public synchronized void remove(BufferedImage image) {
+        Iterator<Entry> iterator = entries.keySet().iterator();
+
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+
+            if (entry.source == image) {
+                iterator.remove();
+                evict(entry);
+            }
+        }
+    }
+
+    /**
+     * Removes every copy.
+     */
+    public synchronized void clear() {
+        for (Entry entry : entries.keySet())
+            evict(entry);
+
+        entries.clear();
+    }
+
+    public synchronized long getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Sets the most memory that the copies may take up. Copies are removed straight away if
+     * they take up more than that.
+     *
+     * @param capacity The capacity in bytes, or {@code 0} to not cache anything.
+     */
+    public synchronized void setCapacity(long capacity) {
+        if (capacity < 0)
+            throw new IllegalArgumentException("Cannot set capacity to " + capacity);
+
+        this.capacity = capacity;
+        trim();
+    }
+
+    /**
+     * The memory that the copies take up.
+     *
+     * @return Returns the size in bytes.
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    /**
+     * A scaled copy of an image. Sprites hold on to the entry they last drew so they don't
+     * have to look it up every frame; once it was {@link #isEvicted() evicted}, it has to be
+     * looked up again.
+     */
+    public static final class Entry {
+        private BufferedImage source;
+        private int width, height;
+        private final BufferedImage image;
+        private volatile boolean evicted;
+
+        // When the copy was last used, from System.nanoTime()
+        private volatile long lastUsed;
+
+        private Entry(BufferedImage source, int width, int height, BufferedImage image) {
+            this.source = source;
+            this.width = width;
+            this.height = height;
+            this.image = image;
+            this.lastUsed = System.nanoTime();
+        }
+
+        public boolean matches(BufferedImage source, int width, int height) {
+            return !evicted && this.source == source && this.width == width && this.height == height;
+        }
+
+        /**
+         * The scaled copy. Taking it counts as using it, so the copies that were drawn last
+         * are the last to be removed.
+         *
+         * @return Returns the scaled copy.
+         */
+        public BufferedImage getImage() {
+            lastUsed = System.nanoTime();
+            return image;
+        }
+
+        public boolean isEvicted() {
+            return evicted;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Entry))
+                return false;
+
+            Entry entry = (Entry) obj;
+            return source == entry.source && width == entry.width && height == entry.height;
+        }
+
+        @Override
+        public int hashCode() {
+            return (System.identityHashCode(source) * 31 + width) * 31 + height;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.diamondhunter.graphics.sprite;
 
+import com.diamondhunter.graphics.raster.Rasterizer;
 import com.diamondhunter.hub.DiamondHunter;
 import com.diamondhunter.map.tiled.tileset.TiledTile;
 import com.diamondhunter.util.general.Utils;
@@ -25,9 +26,37 @@ public class Sprite {
     private float alpha = 1.0f;
     private int alphaRule = -1;
 
+    // The composite for the current alpha and alpha rule, and the transform used to draw
+    // rotated sprites. Both are reused so rendering does not create garbage
+    private AlphaComposite composite = AlphaComposite.SrcOver;
+    private final AffineTransform drawTransform = new AffineTransform();
+
+    // Whether hot sprites are drawn from a copy in video memory
+    private static volatile boolean volatileImagesEnabled = false;
+
+    // Copies of sprites that are drawn at another size than their own
+    private static final ScaledImageCache scaledImageCache = new ScaledImageCache();
+    private static volatile boolean scaledCopiesEnabled = true;
+
+    // Sprites are drawn at multiples of this, so their pixels line up with the back-buffer
+    private static volatile int pixelGrid = 1;
+
+    // The scaled copy this sprite was last drawn with
+    private ScaledImageCache.Entry scaledImage;
+
+    // The atlas that sprite sheets pack their sprites into, and the page this sprite is a
+    // region of if it was packed
+    private static final TextureAtlas textureAtlas = new TextureAtlas();
+    private BufferedImage atlasPage;
+    private int atlasX, atlasY;
+
+    private boolean hot;
+    private VolatileImage volatileImage;
+    private boolean volatileImageDirty;
+
     @Deprecated
     public Sprite(BufferedImage image) {
-        this.image = image;
+        this.image = ImageLoader.toCompatibleImage(image);
     }
 
     public Sprite(TiledTile tile) {
@@ -91,32 +120,304 @@ public class Sprite {
     }
 
     public Sprite getSubSprite(int x, int y, int width, int height) {
-        return new Sprite(file, image.getSubimage(x, y, width, height));
+        // Copied so the sub-sprite can be cached in video memory on its own
+        return new Sprite(file, ImageLoader.copyCompatibleImage(image.getSubimage(x, y, width, height)));
     }
 
     public void render(Graphics2D g, Vector2f position) {
-        render(g, position, image.getWidth(), image.getHeight());
+        render(g, position.getPositionX(), position.getPositionY(), image.getWidth(), image.getHeight());
     }
 
     public void render(Graphics2D g, Vector2f position, int width, int height) {
-    	render(g, position.getPosition().x, position.getPosition().y, width, height);
+    	render(g, position.getPositionX(), position.getPositionY(), width, height);
     }
     
+    /**
+     * Renders this sprite. Unrotated sprites are drawn straight onto the graphics, and the
+     * composite of the graphics is only changed if it differs from the one of this sprite.
+     * Unrotated sprites drawn at another size than their own are drawn from a
+     * {@link #getScaledImageCache() scaled copy}, so the image isn't scaled every frame.
+     * Rotated sprites are drawn through a transform that is applied on top of the transform
+     * of the graphics, so a scaled display still scales the sprite. Neither creates any
+     * objects once the scaled copy exists. Sprites that were packed into a
+     * {@link #getTextureAtlas() texture atlas} are drawn from their page.
+     *
+     * @param g      The graphics to render with
+     * @param x      The x position to render at
+     * @param y      The y position to render at
+     * @param width  The width to render with
+     * @param height The height to render with
+     */
     public void render(Graphics2D g, float x, float y, int width, int height) {
-        float rotX = rotPoint == null ? x : rotPoint.getPosition().x;
-        float rotY = rotPoint == null ? y : rotPoint.getPosition().y;
+        int drawX = snapToPixelGrid(x);
+        int drawY = snapToPixelGrid(y);
 
-        AffineTransform oldTransform = g.getTransform();
         Composite oldComposite = g.getComposite();
 
-        AffineTransform at = AffineTransform.getRotateInstance(Math.toRadians(rotAngle), rotX, rotY);
-        g.setTransform(at);
-        g.setComposite(AlphaComposite.getInstance(alphaRule == -1 ? AlphaComposite.SRC_OVER : alphaRule, alpha));
+        if (oldComposite != composite)
+            g.setComposite(composite);
+
+        if (rotAngle == 0) {
+            Image drawableImage = getDrawableImage(width, height);
+            BufferedImage page = atlasPage;
+
+            if (drawableImage == image && page != null)
+                g.drawImage(page, drawX, drawY, drawX + width, drawY + height,
+                        atlasX, atlasY, atlasX + image.getWidth(), atlasY + image.getHeight(), null);
+            else if (drawableImage.getWidth(null) == width && drawableImage.getHeight(null) == height)
+                g.drawImage(drawableImage, drawX, drawY, null);
+            else g.drawImage(drawableImage, drawX, drawY, width, height, null);
+        } else {
+            Image drawableImage = getDrawableImage();
+
+            float rotX = rotPoint == null ? x : rotPoint.getPositionX();
+            float rotY = rotPoint == null ? y : rotPoint.getPositionY();
+
+            drawTransform.setToRotation(Math.toRadians(rotAngle), rotX, rotY);
+            drawTransform.translate(drawX, drawY);
+            drawTransform.scale((double) width / image.getWidth(), (double) height / image.getHeight());
+
+            g.drawImage(drawableImage, drawTransform, null);
+        }
+
+        if (oldComposite != composite)
+            g.setComposite(oldComposite);
+    }
+
+    /**
+     * Adds this sprite to a render queue instead of drawing it straight away.
+     *
+     * @param queue  The queue to add to
+     * @param layer  The layer to render on
+     * @param depth  The depth in the layer, a lower depth is drawn on top
+     * @param x      The x position to render at
+     * @param y      The y position to render at
+     * @param width  The width to render with
+     * @param height The height to render with
+     * @see RenderQueue
+     */
+    public void queue(RenderQueue queue, int layer, float depth, float x, float y, int width, int height) {
+        float rotation = 0, pivotX = 0, pivotY = 0;
+
+        if (rotAngle != 0) {
+            rotation = (float) Math.toRadians(rotAngle);
+            pivotX = rotPoint == null ? x : rotPoint.getPositionX();
+            pivotY = rotPoint == null ? y : rotPoint.getPositionY();
+        }
+
+        // Rotated sprites are scaled along with the rotation
+        Image drawableImage = rotation == 0 ? getDrawableImage(width, height) : getDrawableImage();
+
+        BufferedImage page = atlasPage;
+
+        // Sprites from the same page share an image, so the queue draws them together
+        if (drawableImage == image && page != null) {
+            queue.submit(layer, depth, page, atlasX, atlasY, image.getWidth(), image.getHeight(),
+                    snapToPixelGrid(x), snapToPixelGrid(y), width, height, composite, rotation, pivotX, pivotY);
+            return;
+        }
+
+        queue.submit(layer, depth, drawableImage, 0, 0, drawableImage.getWidth(null), drawableImage.getHeight(null),
+                snapToPixelGrid(x), snapToPixelGrid(y), width, height, composite, rotation, pivotX, pivotY);
+    }
+
+    /*
+     * The image to draw this sprite with at the given size: a scaled copy if the size is
+     * not the size of the sprite, copies are enabled and the copy can be cached, otherwise
+     * the drawable image. Volatile copies of hot sprites are scaled by the graphics card
+     * instead.
+     */
+    private Image getDrawableImage(int width, int height) {
+        if ((width == image.getWidth() && height == image.getHeight()) || width <= 0 || height <= 0
+                || (hot && volatileImagesEnabled) || !scaledCopiesEnabled)
+            return getDrawableImage();
+
+        if (scaledImage == null || !scaledImage.matches(image, width, height))
+            scaledImage = scaledImageCache.get(image, width, height);
+
+        return scaledImage == null ? getDrawableImage() : scaledImage.getImage();
+    }
+
+    /**
+     * The cache of the scaled copies that sprites are drawn with when they are drawn at
+     * another size than their own.
+     *
+     * @return Returns the scaled image cache of every sprite.
+     */
+    public static ScaledImageCache getScaledImageCache() {
+        return scaledImageCache;
+    }
+
+    /**
+     * The atlas that the sprites of every {@link SpriteSheet} are added to. The game packs it
+     * once everything has loaded, before the first frame; sheets that are made after that
+     * keep their own images.
+     *
+     * @return Returns the texture atlas of every sprite.
+     */
+    public static TextureAtlas getTextureAtlas() {
+        return textureAtlas;
+    }
+
+    /*
+     * Makes this sprite a region of an atlas page: its pixels are copied into the page and
+     * its image becomes the part of the page that holds them. The atlas only does this while
+     * it is packed, before anything is drawn, so no other thread can be drawing the sprite.
+     */
+    void setAtlasRegion(BufferedImage page, int x, int y) {
+        Graphics2D g = page.createGraphics();
+        g.setComposite(AlphaComposite.Src);
+        g.drawImage(image, x, y, null);
+        g.dispose();
+
+        // The rasterizer may have cached the page before this sprite was put on it
+        Rasterizer.invalidate(page);
+
+        scaledImageCache.remove(image);
+        scaledImage = null;
+        volatileImageDirty = true;
+
+        image = page.getSubimage(x, y, image.getWidth(), image.getHeight());
+        atlasPage = page;
+        atlasX = x;
+        atlasY = y;
+    }
+
+    /**
+     * The atlas page this sprite is a region of.
+     *
+     * @return Returns the page or {@code null} if this sprite has its own image.
+     */
+    public BufferedImage getAtlasPage() {
+        return atlasPage;
+    }
+
+    public int getAtlasX() {
+        return atlasX;
+    }
+
+    public int getAtlasY() {
+        return atlasY;
+    }
+
+    public static boolean isScaledCopiesEnabled() {
+        return scaledCopiesEnabled;
+    }
+
+    /**
+     * Turns drawing from {@link #getScaledImageCache() scaled copies} on or off. When the
+     * display renders at a lower resolution than its size, as it does with a
+     * {@link com.diamondhunter.graphics.window.Display#setPixelScale(int) pixel scale}, a
+     * copy scaled up to the size the sprite is drawn at would only be scaled back down by
+     * the display. Drawing the sprite itself scales it once, straight to the pixels it
+     * covers.
+     *
+     * @param enabled Whether sprites drawn at another size use scaled copies
+     */
+    public static void setScaledCopiesEnabled(boolean enabled) {
+        scaledCopiesEnabled = enabled;
+    }
+
+    public static int getPixelGrid() {
+        return pixelGrid;
+    }
+
+    /**
+     * Sets the grid that sprites are drawn on. With a
+     * {@link com.diamondhunter.graphics.window.Display#setPixelScale(int) pixel scale}, a
+     * pixel of the back-buffer covers that many pixels of the display, so a sprite drawn
+     * between them has some of its pixels cut short and others stretched. Positions are
+     * rounded down to the grid instead, so a sprite drawn at a multiple of the grid keeps
+     * every pixel the same size.
+     *
+     * @param grid The distance between the positions sprites are drawn at, {@code 1} to draw
+     *             them where they are
+     */
+    public static void setPixelGrid(int grid) {
+        if (grid < 1)
+            throw new IllegalArgumentException("Cannot set pixel grid to " + grid);
+
+        pixelGrid = grid;
+    }
+
+    /**
+     * Rounds a position down to the {@link #setPixelGrid(int) pixel grid}.
+     *
+     * @param position The position to round
+     * @return Returns the position on the grid that is at or before the given one.
+     */
+    public static int snapToPixelGrid(float position) {
+        int grid = pixelGrid;
+        return grid == 1 ? (int) position : Math.floorDiv((int) position, grid) * grid;
+    }
+
+    /*
+     * The image to draw this sprite with. Hot sprites are drawn from a volatile copy when
+     * volatile images are enabled, which is restored whenever its contents are lost.
+     */
+    private Image getDrawableImage() {
+        if (!hot || !volatileImagesEnabled)
+            return image;
+
+        GraphicsConfiguration gc = ImageLoader.getGraphicsConfiguration();
+
+        if (gc == null)
+            return image;
+
+        if (volatileImage == null || volatileImage.validate(gc) == VolatileImage.IMAGE_INCOMPATIBLE) {
+            if (volatileImage != null)
+                volatileImage.flush();
+
+            volatileImage = gc.createCompatibleVolatileImage(image.getWidth(), image.getHeight(), ImageLoader.getTransparency(image));
+            volatileImageDirty = true;
+        } else if (volatileImage.contentsLost()) {
+            volatileImageDirty = true;
+        }
+
+        if (volatileImageDirty) {
+            Graphics2D g = volatileImage.createGraphics();
+            g.setComposite(AlphaComposite.Src);
+            g.drawImage(image, 0, 0, null);
+            g.dispose();
+
+            volatileImageDirty = false;
+        }
+
+        return volatileImage;
+    }
+
+    /**
+     * Whether this sprite is drawn often enough to be kept in video memory. Hot sprites
+     * are only drawn from video memory when {@link #setVolatileImagesEnabled(boolean)
+     * volatile images are enabled}.
+     *
+     * @return Returns {@code true} if this sprite is hot.
+     */
+    public boolean isHot() {
+        return hot;
+    }
+
+    public void setHot(boolean hot) {
+        this.hot = hot;
+
+        if (!hot && volatileImage != null) {
+            volatileImage.flush();
+            volatileImage = null;
+        }
+    }
 
-        g.drawImage(image, (int) x, (int) y, width, height, null);
+    public static boolean isVolatileImagesEnabled() {
+        return volatileImagesEnabled;
+    }
 
-        g.setTransform(oldTransform);
-        g.setComposite(oldComposite);
+    /**
+     * Enables drawing {@link #isHot() hot} sprites from a {@link VolatileImage} in video
+     * memory instead of relying on Java2D to cache them.
+     *
+     * @param enabled Whether volatile images are used for hot sprites
+     */
+    public static void setVolatileImagesEnabled(boolean enabled) {
+        volatileImagesEnabled = enabled;
     }
 
     public float getAlphaRule() {
@@ -125,6 +426,16 @@ public class Sprite {
 
     public void setAlphaRule(int alphaRule) {
         this.alphaRule = alphaRule;
+        updateComposite();
+    }
+
+    /**
+     * The composite that this sprite is drawn with, made from its alpha and alpha rule.
+     *
+     * @return Returns the composite of this sprite.
+     */
+    public AlphaComposite getComposite() {
+        return composite;
     }
 
     public float getAlpha() {
@@ -133,6 +444,11 @@ public class Sprite {
 
     public void setAlpha(float alpha) {
         this.alpha = Utils.getNumberUtils().clamp(alpha, 0.0f, 1.0f);
+        updateComposite();
+    }
+
+    private void updateComposite() {
+        composite = AlphaComposite.getInstance(alphaRule == -1 ? AlphaComposite.SRC_OVER : alphaRule, alpha);
     }
 
     public Vector2f getRotationPoint() {
@@ -195,12 +511,79 @@ public class Sprite {
         return image.getRGB(startX, startY, w, h, rgbArray, offset, scansize);
     }
 
+    /**
+     * Sets a pixel of this sprite. Sprites that were loaded without any translucent pixels
+     * have an opaque or bitmask image; writing a pixel that such an image can't hold first
+     * copies the sprite into a translucent image, so the alpha of the pixel is kept.
+     *
+     * @param x   The x position of the pixel
+     * @param y   The y position of the pixel
+     * @param rgb The color of the pixel, with alpha
+     */
     public void setRGB(int x, int y, int rgb) {
+        makeTranslucentFor(rgb);
         image.setRGB(x, y, rgb);
-    }
-
+        invalidateImage();
+    }
+
+    /**
+     * Sets a block of pixels of this sprite, keeping their alpha the same way as
+     * {@link #setRGB(int, int, int)}.
+     *
+     * @param startX   The x position of the block
+     * @param startY   The y position of the block
+     * @param w        The width of the block
+     * @param h        The height of the block
+     * @param rgbArray The colors of the pixels, with alpha
+     * @param offset   The index of the first pixel in the array
+     * @param scansize The distance between two rows in the array
+     */
     public void setRGB(int startX, int startY, int w, int h, int[] rgbArray, int offset, int scansize) {
+        for (int row = 0; row < h && image.getTransparency() != Transparency.TRANSLUCENT; row++) {
+            for (int column = 0; column < w; column++)
+                makeTranslucentFor(rgbArray[offset + row * scansize + column]);
+        }
+
         image.setRGB(startX, startY, w, h, rgbArray, offset, scansize);
+        invalidateImage();
+    }
+
+    /*
+     * Forgets every copy of the pixels of the image after they were changed. The pixels of a
+     * sprite on an atlas page are the pixels of the page, so the page is forgotten too.
+     */
+    private void invalidateImage() {
+        volatileImageDirty = true;
+        scaledImageCache.remove(image);
+        scaledImage = null;
+        Rasterizer.invalidate(image);
+        Rasterizer.invalidate(atlasPage);
+    }
+
+    /*
+     * Copies the image into a translucent one if it can't hold the alpha of the given pixel.
+     * The copy is the sprite's own image, so a sprite from an atlas page leaves the page.
+     */
+    private void makeTranslucentFor(int rgb) {
+        int alpha = rgb >>> 24;
+        int transparency = image.getTransparency();
+
+        if (transparency == Transparency.TRANSLUCENT || alpha == 0xFF || (transparency == Transparency.BITMASK && alpha == 0))
+            return;
+
+        BufferedImage translucent = ImageLoader.createCompatibleImage(image.getWidth(), image.getHeight(), Transparency.TRANSLUCENT);
+
+        Graphics2D g = translucent.createGraphics();
+        g.setComposite(AlphaComposite.Src);
+        g.drawImage(image, 0, 0, null);
+        g.dispose();
+
+        scaledImageCache.remove(image);
+        scaledImage = null;
+
+        // Leave the page before the image is replaced
+        atlasPage = null;
+        image = translucent;
     }
 
     public int getWidth() {
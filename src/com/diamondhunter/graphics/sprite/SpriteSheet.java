@@ -44,6 +44,8 @@ public class SpriteSheet {
                 sprites[x][y] = sprite.getSubSprite(x * this.spriteWidth, y * this.spriteHeight, this.spriteWidth, this.spriteHeight);
             }
         }
+
+        Sprite.getTextureAtlas().add(this);
     }
 
     @Deprecated
@@ -0,0 +1,259 @@
+package com.diamondhunter.graphics.sprite;
+
+import com.diamondhunter.util.loading.ImageLoader;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A {@code TextureAtlas} packs many small sprites into a few large images, called pages. A
+ * packed sprite becomes a region of its page: its image shares the pixels of the page, and
+ * it is drawn by drawing that part of the page. Sprites on the same page are drawn from the
+ * same image, so a {@link RenderQueue} draws them one after another, and the
+ * {@link com.diamondhunter.graphics.raster.Rasterizer} only keeps one copy of the pixels of
+ * the whole page.
+ * <p>
+ * Sprites are {@link #add(Sprite) added} while the game loads and {@link #pack() packed}
+ * all at once, tallest first, which fills the pages best. Each page is packed with a
+ * skyline: the bottom edge of the sprites packed so far, and every sprite is put as close
+ * to the top of the page as it fits. Opaque sprites go onto opaque pages, so they are still
+ * drawn without blending.
+ * <p>
+ * The atlas is only packed once, before anything is drawn. Sprites that are added after
+ * that, like the sheets that buttons and fonts make while the game runs, are not packed
+ * and are drawn from their own image. This way the pages never grow while the game runs,
+ * and a sprite never moves onto a page while another thread draws it. Sprites that are
+ * larger than a page are not packed either.
+ */
+public final class TextureAtlas {
+
+    /**
+     * The width and height of the pages unless another size is set.
+     */
+    public static final int DEFAULT_PAGE_SIZE = 1024;
+
+    // Empty pixels around every sprite, so scaled sprites don't sample their neighbours
+    private static final int PADDING = 1;
+
+    private final List<Page> pages = new ArrayList<>();
+    private final List<Sprite> pending = new ArrayList<>();
+
+    private int pageSize;
+    private boolean packed;
+    private int spriteCount;
+
+    /**
+     * Creates an atlas with pages of the {@link #DEFAULT_PAGE_SIZE default size}.
+     */
+    public TextureAtlas() {
+        this(DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * Creates an atlas.
+     *
+     * @param pageSize The width and height of the pages, or {@code 0} to not pack anything
+     */
+    public TextureAtlas(int pageSize) {
+        setPageSize(pageSize);
+    }
+
+    /**
+     * Adds a sprite to this atlas. It is packed when the atlas is {@link #pack() packed}. Once
+     * the atlas was packed, sprites are not added anymore and keep their own image.
+     *
+     * @param sprite The sprite to add
+     */
+    public synchronized void add(Sprite sprite) {
+        if (sprite == null || sprite.getImage() == null || sprite.getAtlasPage() != null || pageSize == 0 || packed)
+            return;
+
+        pending.add(sprite);
+    }
+
+    /**
+     * Adds every sprite of a sprite sheet to this atlas.
+     *
+     * @param sheet The sheet to add the sprites of
+     */
+    public void add(SpriteSheet sheet) {
+        for (Sprite[] column : sheet.getSprites()) {
+            for (Sprite sprite : column)
+                add(sprite);
+        }
+    }
+
+    /**
+     * Packs every sprite that was added. This must be done before the sprites are drawn for
+     * the first time, and only once: sprites that are added afterwards are not packed.
+     */
+    public synchronized void pack() {
+        if (packed)
+            return;
+
+        // Tall sprites first, so the skyline stays flat
+        pending.sort((a, b) -> b.getHeight() != a.getHeight() ? b.getHeight() - a.getHeight() : b.getWidth() - a.getWidth());
+
+        for (Sprite sprite : pending)
+            place(sprite);
+
+        pending.clear();
+        packed = true;
+    }
+
+    private void place(Sprite sprite) {
+        int width = sprite.getWidth() + PADDING * 2;
+        int height = sprite.getHeight() + PADDING * 2;
+
+        if (width > pageSize || height > pageSize)
+            return;
+
+        boolean opaque = sprite.getTransparency() == Transparency.OPAQUE;
+
+        for (Page page : pages) {
+            if (page.opaque == opaque && page.place(sprite, width, height))
+                return;
+        }
+
+        Page page = new Page(pageSize, opaque);
+        pages.add(page);
+        page.place(sprite, width, height);
+    }
+
+    /**
+     * The images of the pages of this atlas.
+     *
+     * @return Returns a new list with every page.
+     */
+    public synchronized List<BufferedImage> getPages() {
+        List<BufferedImage> images = new ArrayList<>(pages.size());
+
+        for (Page page : pages)
+            images.add(page.image);
+
+        return Collections.unmodifiableList(images);
+    }
+
+    public synchronized int getPageCount() {
+        return pages.size();
+    }
+
+    /**
+     * The amount of sprites that were packed into a page.
+     *
+     * @return Returns the amount of packed sprites.
+     */
+    public synchronized int getSpriteCount() {
+        return spriteCount;
+    }
+
+    /**
+     * Whether the atlas was packed already, after which no more sprites are added to it.
+     *
+     * @return Returns {@code true} if the atlas was packed.
+     */
+    public synchronized boolean isPacked() {
+        return packed;
+    }
+
+    public synchronized int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Sets the size of the pages that are created from now on. Pages that exist already keep
+     * their size.
+     *
+     * @param pageSize The width and height of the pages, or {@code 0} to stop packing sprites
+     */
+    public synchronized void setPageSize(int pageSize) {
+        if (pageSize < 0)
+            throw new IllegalArgumentException("The page size cannot be negative!");
+
+        this.pageSize = pageSize;
+
+        if (pageSize == 0)
+            pending.clear();
+    }
+
+    private final class Page {
+        private final BufferedImage image;
+        private final boolean opaque;
+
+        // The skyline, as segments from left to right that each have a left edge, a width
+        // and the y where the free space below them starts
+        private final List<int[]> skyline = new ArrayList<>();
+
+        private Page(int size, boolean opaque) {
+            this.image = ImageLoader.createCompatibleImage(size, size, opaque ? Transparency.OPAQUE : Transparency.TRANSLUCENT);
+            this.opaque = opaque;
+
+            skyline.add(new int[]{0, size, 0});
+        }
+
+        /*
+         * Puts the sprite as close to the top of the page as it fits, leftmost if there is
+         * more than one such place, and moves the skyline down to the bottom of it.
+         */
+        private boolean place(Sprite sprite, int width, int height) {
+            int size = image.getWidth();
+            int bestIndex = -1, bestX = 0, bestY = size;
+
+            for (int i = 0; i < skyline.size(); i++) {
+                int x = skyline.get(i)[0];
+
+                if (x + width > size)
+                    break;
+
+                // The lowest y under every segment the sprite would cover
+                int y = 0;
+
+                for (int j = i, covered = x; covered < x + width; covered += skyline.get(j)[1], j++)
+                    y = Math.max(y, skyline.get(j)[2]);
+
+                if (y + height <= size && y < bestY) {
+                    bestIndex = i;
+                    bestX = x;
+                    bestY = y;
+                }
+            }
+
+            if (bestIndex == -1)
+                return false;
+
+            skyline.add(bestIndex, new int[]{bestX, width, bestY + height});
+
+            // Shrink or remove the segments that are now under the sprite
+            for (int i = bestIndex + 1; i < skyline.size(); ) {
+                int[] segment = skyline.get(i);
+                int overlap = bestX + width - segment[0];
+
+                if (overlap <= 0)
+                    break;
+
+                if (overlap < segment[1]) {
+                    segment[0] += overlap;
+                    segment[1] -= overlap;
+                    break;
+                }
+
+                skyline.remove(i);
+            }
+
+            // Join neighbours of the same height
+            for (int i = 0; i < skyline.size() - 1; ) {
+                if (skyline.get(i)[2] == skyline.get(i + 1)[2]) {
+                    skyline.get(i)[1] += skyline.get(i + 1)[1];
+                    skyline.remove(i + 1);
+                } else i++;
+            }
+
+            sprite.setAtlasRegion(image, bestX + PADDING, bestY + PADDING);
+            spriteCount++;
+            return true;
+        }
+    }
+}
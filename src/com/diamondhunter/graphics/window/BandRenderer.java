@@ -0,0 +1,170 @@
+package com.diamondhunter.graphics.window;
+
+import com.diamondhunter.graphics.raster.Rasterizer;
+import com.diamondhunter.graphics.sprite.RenderQueue;
+
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A {@code BandRenderer} draws a {@link RenderQueue} into the back-buffer of a
+ * {@link Display} on several threads at once.
+ * <p>
+ * The back-buffer is split into horizontal bands of rows. The queue is sorted once and every
+ * band then draws all of it, clipped to its own rows, on a thread of a {@link ForkJoinPool}.
+ * {@link #flush(RenderQueue)} returns once every band is done, so the frame is complete
+ * before it is shown. Drawing a queue does not change it, which is what makes this safe;
+ * everything else that renders must still happen on the thread that renders.
+ * <p>
+ * The bands render into the image of the display, so a {@link CanvasDisplay} does not page
+ * flip while bands are used. With {@link Display#isSoftwareRendering() software rendering},
+ * every band draws with its own rasterizer.
+ */
+public final class BandRenderer {
+
+    private final Display display;
+    private final ForkJoinPool pool;
+    private final Band[] bands;
+    private final RecursiveAction frame;
+
+    // The back-buffer and rasterizer that the graphics of the bands were created for
+    private BufferedImage image;
+    private Rasterizer rasterizer;
+
+    private RenderQueue queue;
+
+    /**
+     * Creates a band renderer with a pool of as many threads as there are bands.
+     *
+     * @param display   The display to render into
+     * @param bandCount The amount of bands to split the back-buffer into
+     */
+    public BandRenderer(Display display, int bandCount) {
+        if (bandCount < 1)
+            throw new IllegalArgumentException("Cannot render in " + bandCount + " bands");
+
+        this.display = display;
+        this.pool = new ForkJoinPool(bandCount, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("Render Band " + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+
+        this.bands = new Band[bandCount];
+
+        for (int i = 0; i < bandCount; i++)
+            bands[i] = new Band();
+
+        // Forks every band but the first, which it draws itself, and waits for all of them
+        this.frame = new RecursiveAction() {
+            @Override
+            protected void compute() {
+                for (int i = 1; i < bands.length; i++) {
+                    bands[i].reinitialize();
+                    bands[i].fork();
+                }
+
+                bands[0].compute();
+
+                for (int i = 1; i < bands.length; i++)
+                    bands[i].join();
+            }
+        };
+    }
+
+    /**
+     * Sorts the queue and draws it in parallel bands, then empties it. Must be called from
+     * the thread that renders.
+     *
+     * @param queue The queue to draw
+     */
+    public void flush(RenderQueue queue) {
+        if (queue.size() == 0)
+            return;
+
+        prepareBands();
+        queue.sort();
+
+        this.queue = queue;
+
+        try {
+            frame.reinitialize();
+            pool.invoke(frame);
+        } finally {
+            this.queue = null;
+            queue.clear();
+        }
+    }
+
+    /*
+     * Clips every band to its rows and to the clip of the display, creating their graphics
+     * again if the back-buffer changed.
+     */
+    private void prepareBands() {
+        Graphics2D displayGraphics = display.getGraphics();
+
+        if (image != display.getImage() || rasterizer != display.getRasterizer()) {
+            image = display.getImage();
+            rasterizer = display.getRasterizer();
+
+            int rows = (image.getHeight() + bands.length - 1) / bands.length;
+
+            for (int i = 0; i < bands.length; i++) {
+                if (bands[i].graphics != null)
+                    bands[i].graphics.dispose();
+
+                bands[i].y = Math.min(image.getHeight(), i * rows);
+                bands[i].height = Math.min(image.getHeight(), (i + 1) * rows) - bands[i].y;
+                bands[i].graphics = image.createGraphics();
+                bands[i].graphics.setRenderingHints(displayGraphics.getRenderingHints());
+                bands[i].graphics.setBackground(displayGraphics.getBackground());
+                bands[i].rasterizer = rasterizer == null ? null : rasterizer.derive(bands[i].graphics);
+            }
+        }
+
+        AffineTransform transform = displayGraphics.getTransform();
+        Shape clip = displayGraphics.getClip();
+
+        for (Band band : bands) {
+            // The rows of the band are in pixels of the back-buffer, before it is scaled
+            band.graphics.setTransform(new AffineTransform());
+            band.graphics.setClip(0, band.y, image.getWidth(), band.height);
+            band.graphics.setTransform(transform);
+
+            if (clip != null)
+                band.graphics.clip(clip);
+        }
+    }
+
+    /**
+     * Stops the threads of this renderer. It cannot be used anymore afterwards.
+     */
+    public void shutdown() {
+        pool.shutdown();
+
+        for (Band band : bands) {
+            if (band.graphics != null)
+                band.graphics.dispose();
+        }
+    }
+
+    public int getBandCount() {
+        return bands.length;
+    }
+
+    private final class Band extends RecursiveAction {
+        private int y, height;
+        private Graphics2D graphics;
+        private Rasterizer rasterizer;
+
+        @Override
+        protected void compute() {
+            if (height > 0)
+                queue.draw(graphics, rasterizer);
+        }
+    }
+}
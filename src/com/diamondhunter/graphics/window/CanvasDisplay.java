@@ -0,0 +1,203 @@
+package com.diamondhunter.graphics.window;
+
+import com.diamondhunter.hub.DiamondHunter;
+import com.diamondhunter.util.logging.Logger;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferStrategy;
+
+/**
+ * A {@code CanvasDisplay} is a {@link Display} that shows its frames with page flipping.
+ * <p>
+ * A normal display renders into an image and copies that image onto the screen every
+ * frame. This display holds a {@link Canvas} with a {@link BufferStrategy} and hands out
+ * the graphics of the strategy's back buffer, so the game renders straight into video
+ * memory and {@link #update()} only has to flip the buffers.
+ * <p>
+ * While the {@link #getRenderScale() render scale} is lowered or the
+ * {@link #getPixelScale() pixel scale} is raised, the game renders into the smaller image
+ * of the normal display instead, which is then scaled onto the back buffer.
+ * If the buffer strategy cannot be created, this display falls back to copying that image
+ * onto the canvas.
+ * <p>
+ * With {@link #isDamageTracking() damage tracking}, the dirty regions of that image are
+ * copied onto the canvas instead of flipping, because the contents of a back buffer are
+ * not kept after it was shown.
+ */
+public class CanvasDisplay extends Display {
+
+    public static final int DEFAULT_BUFFER_COUNT = 3;
+
+    private final Canvas canvas;
+    private final int bufferCount;
+
+    private BufferStrategy strategy;
+    private boolean pageFlipping = true;
+
+    // The graphics of the back buffer for the current frame
+    private Graphics2D frameGraphics;
+
+    public CanvasDisplay(int width, int height) {
+        this(width, height, DEFAULT_BUFFER_COUNT);
+    }
+
+    public CanvasDisplay(int width, int height, int bufferCount) {
+        this(new Dimension(width, height), bufferCount);
+    }
+
+    /**
+     * Creates a page flipping display.
+     *
+     * @param size        The size of the display
+     * @param bufferCount The amount of buffers to flip between, {@code 2} for double
+     *                    buffering or {@code 3} for triple buffering.
+     */
+    public CanvasDisplay(Dimension size, int bufferCount) {
+        super(size);
+
+        if (bufferCount < 2)
+            throw new IllegalArgumentException("Cannot page flip with " + bufferCount + " buffers");
+
+        this.bufferCount = bufferCount;
+
+        canvas = new Canvas() {
+            @Override
+            public void paint(Graphics g) {
+                super.paint(g);
+
+                // The window system lost what was on the canvas
+                invalidateFrame();
+            }
+        };
+        canvas.setPreferredSize(size);
+        canvas.setMinimumSize(size);
+        canvas.setMaximumSize(size);
+        canvas.setBackground(Color.BLACK);
+        canvas.setIgnoreRepaint(true);
+        canvas.setFocusable(true);
+
+        // The canvas covers the whole panel and takes all of its input
+        setFocusable(false);
+        setDoubleBuffered(false);
+        setLayout(new BorderLayout());
+        add(canvas, BorderLayout.CENTER);
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        canvas.requestFocus();
+    }
+
+    @Override
+    public Graphics2D getGraphics() {
+        if (SwingUtilities.isEventDispatchThread() || !isPageFlipping())
+            return super.getGraphics();
+
+        if (frameGraphics == null) {
+            frameGraphics = (Graphics2D) strategy.getDrawGraphics();
+            frameGraphics.setClip(0, 0, getWidth(), getHeight());
+            frameGraphics.clearRect(0, 0, getWidth(), getHeight());
+        }
+
+        return frameGraphics;
+    }
+
+    /**
+     * Flips the back buffer onto the screen. If the contents of the buffer were lost while
+     * showing them, the frame is dropped and the next frame draws a new one.
+     */
+    @Override
+    public void update() {
+        if (isDamageTracking() || (strategy == null && !createStrategy())) {
+            presentImage();
+            return;
+        }
+
+        if (frameGraphics == null) {
+            // The game rendered into the image of the display, scale it onto the buffer
+            frameGraphics = (Graphics2D) strategy.getDrawGraphics();
+            drawFrame(frameGraphics);
+            clearBuffer();
+        }
+
+        frameGraphics.dispose();
+        frameGraphics = null;
+
+        if (!strategy.contentsLost())
+            strategy.show();
+
+        // Stops frames from being queued up by the window system on some platforms
+        Toolkit.getDefaultToolkit().sync();
+    }
+
+    private void presentImage() {
+        Graphics g = canvas.getGraphics();
+
+        if (g != null) {
+            if (isDamageTracking())
+                presentDirtyRegions(g);
+            else drawFrame(g);
+
+            g.dispose();
+        }
+
+        clearBuffer();
+    }
+
+    private boolean createStrategy() {
+        if (!pageFlipping || !canvas.isDisplayable())
+            return false;
+
+        try {
+            canvas.createBufferStrategy(bufferCount);
+            strategy = canvas.getBufferStrategy();
+        } catch (IllegalStateException e) {
+            strategy = null;
+        }
+
+        if (strategy == null) {
+            pageFlipping = false;
+            DiamondHunter.getImplementation().getLogger().logLine(Logger.Level.WARNING, "Could not create a buffer strategy, falling back to copying frames");
+        }
+
+        return strategy != null;
+    }
+
+    /**
+     * Whether the game renders straight into the back buffer of the canvas. This is not
+     * the case before the canvas is shown, while the render scale is lowered or the pixel
+     * scale is raised, with damage tracking, software rendering or render bands, or if the
+     * buffer strategy could not be created.
+     *
+     * @return Returns {@code true} if frames are rendered straight into the back buffer.
+     */
+    public boolean isPageFlipping() {
+        if (getRenderScale() < 1 || getPixelScale() > 1 || isDamageTracking() || isSoftwareRendering() || getBandRenderer() != null)
+            return false;
+
+        return strategy != null || createStrategy();
+    }
+
+    @Override
+    public void setDamageTracking(boolean damageTracking) {
+        super.setDamageTracking(damageTracking);
+
+        // Without page flipping the canvas has to know when it was painted over
+        canvas.setIgnoreRepaint(!damageTracking);
+    }
+
+    @Override
+    public Component getInputComponent() {
+        return canvas;
+    }
+
+    public Canvas getCanvas() {
+        return canvas;
+    }
+
+    public int getBufferCount() {
+        return bufferCount;
+    }
+}
@@ -0,0 +1,205 @@
+package com.diamondhunter.graphics.window;
+
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.awt.geom.Area;
+
+/**
+ * {@code DirtyRegions} are the parts of a {@link Display} that changed since the last frame
+ * and have to be drawn again.
+ * <p>
+ * Regions that overlap or touch are merged into one. Only {@link #MAX_REGIONS} regions are
+ * kept; once there are that many, a new region is merged with the region that grows the
+ * least from it. When {@link #addAll() everything} is dirty, there is a single region
+ * covering the whole display.
+ * <p>
+ * Dirty regions are only used by the thread that renders.
+ */
+public final class DirtyRegions {
+
+    public static final int MAX_REGIONS = 8;
+
+    // x1, y1, x2, y2 of every region
+    private final int[] regions = new int[MAX_REGIONS * 4];
+    private int count;
+    private boolean full;
+
+    private int width, height;
+
+    DirtyRegions(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    void setBounds(int width, int height) {
+        this.width = width;
+        this.height = height;
+
+        addAll();
+    }
+
+    /**
+     * Marks a rectangle as dirty. Rectangles with fractional bounds are rounded outwards.
+     *
+     * @param x      The x position of the rectangle
+     * @param y      The y position of the rectangle
+     * @param width  The width of the rectangle
+     * @param height The height of the rectangle
+     */
+    public void add(float x, float y, float width, float height) {
+        int x1 = (int) Math.floor(x);
+        int y1 = (int) Math.floor(y);
+
+        add(x1, y1, (int) Math.ceil(x + width) - x1, (int) Math.ceil(y + height) - y1);
+    }
+
+    /**
+     * Marks a rectangle as dirty.
+     *
+     * @param x      The x position of the rectangle
+     * @param y      The y position of the rectangle
+     * @param width  The width of the rectangle
+     * @param height The height of the rectangle
+     */
+    public void add(int x, int y, int width, int height) {
+        if (full)
+            return;
+
+        int x1 = Math.max(0, x);
+        int y1 = Math.max(0, y);
+        int x2 = Math.min(this.width, x + width);
+        int y2 = Math.min(this.height, y + height);
+
+        if (x2 <= x1 || y2 <= y1)
+            return;
+
+        // Merge with every region that overlaps or touches, which may make it touch others
+        for (int i = 0; i < count; i++) {
+            int j = i * 4;
+
+            if (x1 <= regions[j + 2] && x2 >= regions[j] && y1 <= regions[j + 3] && y2 >= regions[j + 1]) {
+                x1 = Math.min(x1, regions[j]);
+                y1 = Math.min(y1, regions[j + 1]);
+                x2 = Math.max(x2, regions[j + 2]);
+                y2 = Math.max(y2, regions[j + 3]);
+
+                remove(i);
+                i = -1;
+            }
+        }
+
+        if (count == MAX_REGIONS) {
+            int best = 0;
+            long bestGrowth = Long.MAX_VALUE;
+
+            for (int i = 0; i < count; i++) {
+                int j = i * 4;
+                long area = (long) (regions[j + 2] - regions[j]) * (regions[j + 3] - regions[j + 1]);
+                long merged = (long) (Math.max(x2, regions[j + 2]) - Math.min(x1, regions[j]))
+                        * (Math.max(y2, regions[j + 3]) - Math.min(y1, regions[j + 1]));
+
+                if (merged - area < bestGrowth) {
+                    bestGrowth = merged - area;
+                    best = i;
+                }
+            }
+
+            int j = best * 4;
+            int mergedX1 = Math.min(x1, regions[j]);
+            int mergedY1 = Math.min(y1, regions[j + 1]);
+            int mergedX2 = Math.max(x2, regions[j + 2]);
+            int mergedY2 = Math.max(y2, regions[j + 3]);
+
+            remove(best);
+            add(mergedX1, mergedY1, mergedX2 - mergedX1, mergedY2 - mergedY1);
+            return;
+        }
+
+        if (x1 == 0 && y1 == 0 && x2 == this.width && y2 == this.height) {
+            addAll();
+            return;
+        }
+
+        int j = count++ * 4;
+
+        regions[j] = x1;
+        regions[j + 1] = y1;
+        regions[j + 2] = x2;
+        regions[j + 3] = y2;
+    }
+
+    public void add(Rectangle rectangle) {
+        add(rectangle.x, rectangle.y, rectangle.width, rectangle.height);
+    }
+
+    private void remove(int index) {
+        count--;
+        System.arraycopy(regions, count * 4, regions, index * 4, 4);
+    }
+
+    /**
+     * Marks the whole display as dirty.
+     */
+    public void addAll() {
+        full = true;
+        count = 0;
+    }
+
+    /**
+     * Marks nothing as dirty anymore.
+     */
+    public void clear() {
+        full = false;
+        count = 0;
+    }
+
+    public boolean isEmpty() {
+        return !full && count == 0;
+    }
+
+    public boolean isFull() {
+        return full;
+    }
+
+    /**
+     * The amount of dirty regions.
+     *
+     * @return Returns the amount of regions.
+     */
+    public int size() {
+        return full ? 1 : count;
+    }
+
+    public int getX(int index) {
+        return full ? 0 : regions[index * 4];
+    }
+
+    public int getY(int index) {
+        return full ? 0 : regions[index * 4 + 1];
+    }
+
+    public int getWidth(int index) {
+        return full ? width : regions[index * 4 + 2] - regions[index * 4];
+    }
+
+    public int getHeight(int index) {
+        return full ? height : regions[index * 4 + 3] - regions[index * 4 + 1];
+    }
+
+    /**
+     * A shape covering every dirty region, to clip drawing with.
+     *
+     * @return Returns the shape of the dirty regions.
+     */
+    public Shape toShape() {
+        if (size() == 1)
+            return new Rectangle(getX(0), getY(0), getWidth(0), getHeight(0));
+
+        Area area = new Area();
+
+        for (int i = 0; i < count; i++)
+            area.add(new Area(new Rectangle(getX(i), getY(i), getWidth(i), getHeight(i))));
+
+        return area;
+    }
+}
@@ -1,5 +1,7 @@
 package com.diamondhunter.graphics.window;
 
+import com.diamondhunter.graphics.raster.Rasterizer;
+
 import javax.swing.*;
 import java.awt.*;
 import java.awt.image.BufferedImage;
@@ -11,8 +13,28 @@ public class Display extends JPanel {
     private BufferedImage display;
     private Graphics2D displayGraphics;
 
+    // The size of the back-buffer compared to the size of the display
+    private float renderScale = 1.0f;
+
+    // The amount of screen pixels, across and down, that every pixel of the back-buffer covers
+    private int pixelScale = 1;
+
     private boolean isReady = false;
 
+    // Only the parts of the frame that changed are cleared and shown
+    private boolean damageTracking = false;
+    private DirtyRegions dirtyRegions;
+
+    // Set when the window system painted over the display, so the whole frame is drawn again
+    private volatile boolean exposed = false;
+
+    // Draws straight into the pixels of the back-buffer instead of through Java2D
+    private boolean softwareRendering = false;
+    private Rasterizer rasterizer;
+
+    // Draws render queues on several threads
+    private BandRenderer bandRenderer;
+
     public Display() {
         this(Toolkit.getDefaultToolkit().getScreenSize());
     }
@@ -26,11 +48,266 @@ public class Display extends JPanel {
         setSize(size);
         setFocusable(true);
 
-        display = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
-        displayGraphics = display.createGraphics();
+        createBuffer();
         requestFocus();
     }
 
+    private void createBuffer() {
+        if (displayGraphics != null)
+            displayGraphics.dispose();
+
+        int bufferWidth, bufferHeight;
+        float scaleX, scaleY;
+
+        if (pixelScale > 1) {
+            // Rounded up so the scaled up frame covers all of the display
+            bufferWidth = (width + pixelScale - 1) / pixelScale;
+            bufferHeight = (height + pixelScale - 1) / pixelScale;
+            scaleX = scaleY = 1f / pixelScale;
+        } else {
+            bufferWidth = Math.max(1, Math.round(width * renderScale));
+            bufferHeight = Math.max(1, Math.round(height * renderScale));
+            scaleX = (float) bufferWidth / width;
+            scaleY = (float) bufferHeight / height;
+        }
+
+        // The rasterizer blends with premultiplied alpha
+        display = new BufferedImage(bufferWidth, bufferHeight, softwareRendering ? BufferedImage.TYPE_INT_ARGB_PRE : BufferedImage.TYPE_INT_ARGB);
+        displayGraphics = display.createGraphics();
+
+        // Everything is still drawn at the size of the display, the graphics scale it down
+        displayGraphics.scale(scaleX, scaleY);
+
+        // Lets renderers find out what is in view through the clip
+        displayGraphics.setClip(0, 0, width, height);
+
+        // Keep the rasterizer, it only has to draw into the new back-buffer
+        if (!softwareRendering)
+            rasterizer = null;
+        else if (rasterizer == null)
+            rasterizer = new Rasterizer(display, displayGraphics, scaleX, scaleY);
+        else rasterizer.setTarget(display, displayGraphics, scaleX, scaleY);
+
+        // The new back-buffer is empty, so all of it has to be drawn
+        if (dirtyRegions == null)
+            dirtyRegions = new DirtyRegions(width, height);
+        else dirtyRegions.setBounds(width, height);
+    }
+
+    /**
+     * The resolution that the game renders at, compared to the size of the display. The
+     * back-buffer is this much smaller than the display and is scaled back up when it is
+     * shown. Rendering code is not affected by this, it always draws at the size of the
+     * display.
+     *
+     * @return Returns the render scale, where {@code 1} is full resolution.
+     */
+    public float getRenderScale() {
+        return renderScale;
+    }
+
+    /**
+     * Changes the resolution that the game renders at. This creates a new back-buffer, so
+     * it must be called from the thread that renders and the {@link #getGraphics()
+     * graphics} must be retrieved again afterwards.
+     *
+     * @param renderScale The render scale, from {@code 0} (exclusive) to {@code 1}.
+     */
+    public void setRenderScale(float renderScale) {
+        if (renderScale <= 0 || renderScale > 1)
+            throw new IllegalArgumentException("Cannot set render scale to " + renderScale);
+
+        if (this.renderScale == renderScale) return;
+
+        this.renderScale = renderScale;
+        createBuffer();
+    }
+
+    /**
+     * The amount of screen pixels, across and down, that every pixel of the back-buffer is
+     * shown as.
+     *
+     * @return Returns the pixel scale, or {@code 1} if the {@link #getRenderScale() render
+     * scale} is used instead.
+     */
+    public int getPixelScale() {
+        return pixelScale;
+    }
+
+    /**
+     * Renders the game at a low resolution: the back-buffer is the size of the display
+     * divided by the pixel scale, and every frame is scaled up by exactly the pixel scale
+     * with nearest neighbour when it is shown, so every pixel of the back-buffer becomes a
+     * square of screen pixels. A pixel scale of {@code 4} renders a 1280x720 display at
+     * 320x180, which is a sixteenth of the pixels to fill. Rendering code is not affected by
+     * this, it always draws at the size of the display.
+     * <p>
+     * Images keep even pixels as long as they start on a pixel of the back-buffer and are
+     * drawn at a whole multiple of their size times the pixel scale, because every pixel of
+     * the image then becomes the same whole number of pixels of the back-buffer. Sprites are
+     * snapped to those pixels (see
+     * {@link com.diamondhunter.graphics.sprite.Sprite#setPixelGrid(int)}). Other images are
+     * resampled unevenly, so the game only accepts pixel scales that divide the scale its
+     * sprites are drawn at (see {@link com.diamondhunter.hub.DiamondHunter#setPixelScale(int)}).
+     * <p>
+     * While the pixel scale is above {@code 1}, the render scale is not used. This creates a
+     * new back-buffer, so it must be called from the thread that renders and the
+     * {@link #getGraphics() graphics} must be retrieved again afterwards.
+     *
+     * @param pixelScale The pixel scale, or {@code 1} to use the render scale.
+     */
+    public void setPixelScale(int pixelScale) {
+        if (pixelScale < 1)
+            throw new IllegalArgumentException("Cannot set pixel scale to " + pixelScale);
+
+        if (this.pixelScale == pixelScale) return;
+
+        this.pixelScale = pixelScale;
+        createBuffer();
+    }
+
+    /**
+     * Whether images can be drawn with a {@link #getRasterizer() rasterizer}, which writes
+     * straight into the pixels of the back-buffer.
+     *
+     * @return Returns {@code true} if software rendering is on.
+     */
+    public boolean isSoftwareRendering() {
+        return softwareRendering;
+    }
+
+    /**
+     * Turns software rendering on or off. This creates a new back-buffer, so it must be
+     * called from the thread that renders and the {@link #getGraphics() graphics} must be
+     * retrieved again afterwards.
+     *
+     * @param softwareRendering {@code true} to draw with a rasterizer.
+     */
+    public void setSoftwareRendering(boolean softwareRendering) {
+        if (this.softwareRendering == softwareRendering) return;
+
+        this.softwareRendering = softwareRendering;
+        createBuffer();
+    }
+
+    /**
+     * The rasterizer that draws into the back-buffer.
+     *
+     * @return Returns the rasterizer or {@code null} if software rendering is off.
+     */
+    public Rasterizer getRasterizer() {
+        return rasterizer;
+    }
+
+    /**
+     * Splits the back-buffer into horizontal bands that render queues are drawn into on
+     * several threads at once. See {@link BandRenderer}.
+     *
+     * @param bandCount The amount of bands, or {@code 1} or less to draw on the thread that
+     *                  renders.
+     */
+    public void setRenderBands(int bandCount) {
+        if (bandRenderer != null) {
+            if (bandRenderer.getBandCount() == bandCount) return;
+
+            bandRenderer.shutdown();
+            bandRenderer = null;
+        }
+
+        if (bandCount > 1)
+            bandRenderer = new BandRenderer(this, bandCount);
+    }
+
+    /**
+     * The renderer that draws render queues in parallel bands.
+     *
+     * @return Returns the band renderer or {@code null} if bands are not used.
+     */
+    public BandRenderer getBandRenderer() {
+        return bandRenderer;
+    }
+
+    /**
+     * Whether only the {@link #getDirtyRegions() dirty regions} of every frame are cleared,
+     * drawn and shown, instead of the whole display.
+     *
+     * @return Returns {@code true} if damage tracking is on.
+     */
+    public boolean isDamageTracking() {
+        return damageTracking;
+    }
+
+    /**
+     * Turns damage tracking on or off. With damage tracking, the back-buffer keeps the last
+     * frame and whoever renders must add everything that changed to the
+     * {@link #getDirtyRegions() dirty regions} before calling {@link #beginFrame()}. This
+     * must be called from the thread that renders.
+     *
+     * @param damageTracking {@code true} to only draw what changed.
+     */
+    public void setDamageTracking(boolean damageTracking) {
+        if (this.damageTracking == damageTracking) return;
+
+        this.damageTracking = damageTracking;
+
+        dirtyRegions.addAll();
+        displayGraphics.setClip(0, 0, width, height);
+    }
+
+    /**
+     * The parts of the display that changed since the last frame. Only used with
+     * {@link #isDamageTracking() damage tracking}.
+     *
+     * @return Returns the dirty regions of the current frame.
+     */
+    public DirtyRegions getDirtyRegions() {
+        return dirtyRegions;
+    }
+
+    /**
+     * Makes the next frame draw the whole display, for example after the window was hidden
+     * and the window system lost what was on the screen. May be called from any thread.
+     */
+    public void invalidateFrame() {
+        exposed = true;
+    }
+
+    /**
+     * Prepares the back-buffer for rendering a frame. With damage tracking, the dirty regions
+     * are cleared and the graphics are clipped to them, so anything rendered outside of them
+     * is skipped.
+     *
+     * @return Returns {@code false} if nothing changed and the frame doesn't have to be
+     * rendered at all.
+     */
+    public boolean beginFrame() {
+        if (exposed) {
+            exposed = false;
+            dirtyRegions.addAll();
+        }
+
+        if (!damageTracking)
+            return true;
+
+        if (dirtyRegions.isEmpty())
+            return false;
+
+        for (int i = 0; i < dirtyRegions.size(); i++)
+            displayGraphics.clearRect(dirtyRegions.getX(i), dirtyRegions.getY(i), dirtyRegions.getWidth(i), dirtyRegions.getHeight(i));
+
+        displayGraphics.setClip(dirtyRegions.toShape());
+
+        return true;
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+
+        // Swing just painted the background over the last frame
+        invalidateFrame();
+    }
+
     @Override
     public void addNotify() {
         super.addNotify();
@@ -47,13 +324,111 @@ public class Display extends JPanel {
     }
 
     public Graphics2D getGraphics() {
+        // Swing paints through getGraphics() on the event thread and disposes whatever it
+        // gets, which must not be the graphics of the back-buffer
+        if (SwingUtilities.isEventDispatchThread())
+            return (Graphics2D) super.getGraphics();
+
         return displayGraphics;
     }
 
+    /**
+     * The component that receives the key and mouse input of this display.
+     *
+     * @return Returns the input component.
+     */
+    public Component getInputComponent() {
+        return this;
+    }
+
+    /**
+     * Whether the {@link #getInputComponent() input component} has focus.
+     *
+     * @return Returns {@code true} if input is sent to this display.
+     */
+    public boolean isInputFocused() {
+        return getInputComponent().hasFocus();
+    }
+
+    /**
+     * The image that the game renders into before it is shown by {@link #update()}.
+     *
+     * @return Returns the image of the current frame.
+     */
+    public BufferedImage getImage() {
+        return display;
+    }
+
     public void update() {
-        getDirectGraphics().drawImage(display, 0, 0, width, height, null);
-        displayGraphics.clearRect(0, 0, width, height);
-        getDirectGraphics().dispose();
+        Graphics2D g = getDirectGraphics();
+
+        if (g != null) {
+            if (damageTracking)
+                presentDirtyRegions(g);
+            else drawFrame(g);
+
+            g.dispose();
+        }
+
+        clearBuffer();
+    }
+
+    /**
+     * Copies only the dirty regions of the back-buffer onto the given graphics.
+     *
+     * @param g The graphics to show the frame with, at the size of the display
+     */
+    protected void presentDirtyRegions(Graphics g) {
+        boolean scaled = display.getWidth() != width || display.getHeight() != height || pixelScale > 1;
+        Shape oldClip = g.getClip();
+
+        for (int i = 0; i < dirtyRegions.size(); i++) {
+            int x = dirtyRegions.getX(i);
+            int y = dirtyRegions.getY(i);
+            int x2 = x + dirtyRegions.getWidth(i);
+            int y2 = y + dirtyRegions.getHeight(i);
+
+            if (scaled) {
+                // The edges of a region don't fall on whole pixels of a smaller back-buffer,
+                // so scale all of it and let the clip keep it to the region
+                g.setClip(x, y, x2 - x, y2 - y);
+                drawFrame(g);
+            } else {
+                g.drawImage(display, x, y, x2, y2, x, y, x2, y2, null);
+            }
+        }
+
+        g.setClip(oldClip);
+    }
+
+    /**
+     * Draws the whole back-buffer onto the given graphics, scaled up to the size of the
+     * display if it is rendered at a lower resolution. With a {@link #getPixelScale() pixel
+     * scale}, it is scaled by exactly the pixel scale with nearest neighbour.
+     *
+     * @param g The graphics to show the frame with, at the size of the display
+     */
+    protected void drawFrame(Graphics g) {
+        if (pixelScale > 1) {
+            ((Graphics2D) g).setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+            g.drawImage(display, 0, 0, display.getWidth() * pixelScale, display.getHeight() * pixelScale, null);
+        } else {
+            g.drawImage(display, 0, 0, width, height, null);
+        }
+    }
+
+    /**
+     * Clears the back-buffer for the next frame. With damage tracking, the back-buffer keeps
+     * the frame and only the dirty regions are cleared, when the next frame
+     * {@link #beginFrame() begins}.
+     */
+    protected void clearBuffer() {
+        if (damageTracking) {
+            dirtyRegions.clear();
+            displayGraphics.setClip(0, 0, width, height);
+        } else {
+            displayGraphics.clearRect(0, 0, width, height);
+        }
     }
 
     @Override
@@ -0,0 +1,136 @@
+package com.diamondhunter.graphics.window;
+
+import java.awt.*;
+import java.awt.event.KeyEvent;
+import java.awt.event.KeyListener;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseListener;
+import java.awt.event.MouseMotionListener;
+import java.awt.image.BufferedImage;
+
+/**
+ * A {@code HeadlessDisplay} is a {@link Display} that is never shown on the screen. The game
+ * renders into it exactly like it would into a normal display but instead of being drawn to
+ * a window, every frame is copied into an offscreen image that can be read with
+ * {@link #getPresentedImage()}.
+ * <p>
+ * Because there is no window, there is also no real input. Input can instead be sent with
+ * the {@code press}, {@code release}, {@code move} and {@code click} methods, which deliver
+ * their events straight to the key and mouse listeners of this display. A headless display
+ * always acts like it has focus.
+ * <p>
+ * This lets the game run without an X server, for example on a build server.
+ */
+public class HeadlessDisplay extends Display {
+
+    private BufferedImage presentedImage;
+    private Graphics2D presentedGraphics;
+
+    public HeadlessDisplay(int width, int height) {
+        this(new Dimension(width, height));
+    }
+
+    public HeadlessDisplay(Dimension size) {
+        super(size);
+
+        presentedImage = new BufferedImage(size.width, size.height, BufferedImage.TYPE_INT_ARGB);
+        presentedGraphics = presentedImage.createGraphics();
+    }
+
+    /**
+     * Copies the current frame, or only its dirty regions with damage tracking, into the
+     * {@link #getPresentedImage() presented image} and clears the display for the next frame.
+     */
+    @Override
+    public void update() {
+        presentedGraphics.setComposite(AlphaComposite.Src);
+
+        if (isDamageTracking())
+            presentDirtyRegions(presentedGraphics);
+        else drawFrame(presentedGraphics);
+
+        clearBuffer();
+    }
+
+    /**
+     * The last frame that was presented by this display.
+     *
+     * @return Returns the image of the last presented frame.
+     */
+    public BufferedImage getPresentedImage() {
+        return presentedImage;
+    }
+
+    @Override
+    public boolean isReady() {
+        return true;
+    }
+
+    @Override
+    public boolean hasFocus() {
+        return true;
+    }
+
+    @Override
+    public boolean isFocusOwner() {
+        return true;
+    }
+
+    public void pressKey(int keyCode) {
+        KeyEvent event = createKeyEvent(KeyEvent.KEY_PRESSED, keyCode);
+
+        for (KeyListener listener : getKeyListeners())
+            listener.keyPressed(event);
+    }
+
+    public void releaseKey(int keyCode) {
+        KeyEvent event = createKeyEvent(KeyEvent.KEY_RELEASED, keyCode);
+
+        for (KeyListener listener : getKeyListeners())
+            listener.keyReleased(event);
+    }
+
+    public void moveMouse(int x, int y) {
+        MouseEvent event = createMouseEvent(MouseEvent.MOUSE_MOVED, x, y, MouseEvent.NOBUTTON);
+
+        for (MouseMotionListener listener : getMouseMotionListeners())
+            listener.mouseMoved(event);
+    }
+
+    public void dragMouse(int x, int y, int button) {
+        MouseEvent event = createMouseEvent(MouseEvent.MOUSE_DRAGGED, x, y, button);
+
+        for (MouseMotionListener listener : getMouseMotionListeners())
+            listener.mouseDragged(event);
+    }
+
+    public void pressMouse(int x, int y, int button) {
+        MouseEvent event = createMouseEvent(MouseEvent.MOUSE_PRESSED, x, y, button);
+
+        for (MouseListener listener : getMouseListeners())
+            listener.mousePressed(event);
+    }
+
+    public void releaseMouse(int x, int y, int button) {
+        MouseEvent event = createMouseEvent(MouseEvent.MOUSE_RELEASED, x, y, button);
+
+        for (MouseListener listener : getMouseListeners())
+            listener.mouseReleased(event);
+    }
+
+    public void clickMouse(int x, int y, int button) {
+        MouseEvent event = createMouseEvent(MouseEvent.MOUSE_CLICKED, x, y, button);
+
+        for (MouseListener listener : getMouseListeners())
+            listener.mouseClicked(event);
+    }
+
+    private KeyEvent createKeyEvent(int id, int keyCode) {
+        return new KeyEvent(this, id, System.currentTimeMillis(), 0, keyCode, KeyEvent.CHAR_UNDEFINED);
+    }
+
+    private MouseEvent createMouseEvent(int id, int x, int y, int button) {
+        return new MouseEvent(this, id, System.currentTimeMillis(), 0, x, y,
+                id == MouseEvent.MOUSE_CLICKED ? 1 : 0, false, button);
+    }
+}
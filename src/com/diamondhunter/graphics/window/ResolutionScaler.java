@@ -0,0 +1,130 @@
+package com.diamondhunter.graphics.window;
+
+/**
+ * A {@code ResolutionScaler} lowers the {@link Display#setRenderScale(float) render scale}
+ * of a {@link Display} when frames take longer than they may, and raises it again once
+ * there is time to spare.
+ * <p>
+ * The time every frame takes to render, up to the point where it is presented, is
+ * averaged, so a single slow frame does not change anything. The resolution is only
+ * lowered once the average stayed over budget for a while, and is only raised again once
+ * the average, as it would be at the higher resolution, stayed well under budget for even
+ * longer. This gap keeps the resolution from switching back and forth between two steps.
+ */
+public class ResolutionScaler {
+
+    public static final float MIN_SCALE = 0.5f;
+    public static final float MAX_SCALE = 1.0f;
+    public static final float SCALE_STEP = 0.125f;
+
+    /**
+     * The share of the time between two frames that rendering may take.
+     */
+    public static final double RENDER_BUDGET_SHARE = 0.75;
+
+    // How much of the budget the frames may use, at the higher resolution, before raising it
+    private static final double RAISE_HEADROOM = 0.8;
+
+    // How many frames in a row must be over or under budget before the scale changes
+    private static final int LOWER_FRAMES = 15;
+    private static final int RAISE_FRAMES = 120;
+
+    // How many frames the average gets to settle after the scale changed
+    private static final int SETTLE_FRAMES = 30;
+
+    // How much the average follows every new frame
+    private static final double AVERAGE_WEIGHT = 0.1;
+
+    private final Display display;
+    private final long budget;
+
+    private double averageTime = -1;
+    private int framesOverBudget;
+    private int framesUnderBudget;
+    private int settleFrames;
+
+    /**
+     * Creates a scaler.
+     *
+     * @param display            The display to scale
+     * @param timeBetweenRenders The time, in nanoseconds, between two frames
+     */
+    public ResolutionScaler(Display display, long timeBetweenRenders) {
+        this.display = display;
+        this.budget = (long) (timeBetweenRenders * RENDER_BUDGET_SHARE);
+    }
+
+    /**
+     * Records the time a frame took to render and changes the render scale if needed. Must
+     * be called on the thread that renders, between two frames.
+     *
+     * @param renderTime The time, in nanoseconds, that the frame took to render, without
+     *                   presenting it. A present that waits for the screen to refresh
+     *                   takes as long at any resolution, so it must not be counted.
+     * @return Returns {@code true} if the render scale changed.
+     */
+    public boolean record(long renderTime) {
+        averageTime = averageTime < 0 ? renderTime : averageTime + (renderTime - averageTime) * AVERAGE_WEIGHT;
+
+        if (settleFrames > 0) {
+            settleFrames--;
+            return false;
+        }
+
+        float scale = display.getRenderScale();
+
+        if (averageTime > budget) {
+            framesUnderBudget = 0;
+
+            if (++framesOverBudget >= LOWER_FRAMES && scale > MIN_SCALE)
+                return changeScale(Math.max(MIN_SCALE, scale - SCALE_STEP));
+        } else {
+            framesOverBudget = 0;
+
+            // Rendering time grows with the amount of pixels, so guess what it would be
+            float higherScale = Math.min(MAX_SCALE, scale + SCALE_STEP);
+            double ratio = (double) higherScale / scale;
+
+            if (averageTime * ratio * ratio < budget * RAISE_HEADROOM) {
+                if (++framesUnderBudget >= RAISE_FRAMES && scale < MAX_SCALE)
+                    return changeScale(higherScale);
+            } else {
+                framesUnderBudget = 0;
+            }
+        }
+
+        return false;
+    }
+
+    private boolean changeScale(float scale) {
+        display.setRenderScale(scale);
+
+        framesOverBudget = 0;
+        framesUnderBudget = 0;
+        settleFrames = SETTLE_FRAMES;
+
+        return true;
+    }
+
+    public Display getDisplay() {
+        return display;
+    }
+
+    /**
+     * The time that rendering may take before the resolution is lowered.
+     *
+     * @return Returns the budget in nanoseconds.
+     */
+    public long getBudget() {
+        return budget;
+    }
+
+    /**
+     * The average time that frames take to render.
+     *
+     * @return Returns the average in nanoseconds.
+     */
+    public double getAverageTime() {
+        return Math.max(0, averageTime);
+    }
+}
@@ -4,18 +4,31 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.WindowEvent;
 import java.awt.event.WindowListener;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class Window extends JFrame implements WindowListener {
 
     private int width, height;
     private Display display;
-    private boolean minimized;
+    private volatile boolean minimized;
+    private volatile boolean focused;
+
+    // Signalled when the window comes back to the foreground
+    private final Lock foregroundLock = new ReentrantLock();
+    private final Condition foreground = foregroundLock.newCondition();
+    private long foregroundSignals;
 
     public Window(String title) {
         this(title, Toolkit.getDefaultToolkit().getScreenSize());
     }
 
     public Window(String title, Display display) {
+        this(title, display, true);
+    }
+
+    public Window(String title, Display display, boolean visible) {
         addWindowListener(this);
 
         setTitle(title);
@@ -30,7 +43,7 @@ public class Window extends JFrame implements WindowListener {
         pack();
 
         setLocationRelativeTo(null);
-        setVisible(true);
+        setVisible(visible);
     }
 
     public Window(String title, int width, int height) {
@@ -170,9 +183,67 @@ public class Window extends JFrame implements WindowListener {
         return minimized;
     }
 
+    /**
+     * Whether the window is in the background, which means that it is minimized or that it
+     * does not have focus.
+     *
+     * @return Returns {@code true} if the window is in the background.
+     */
+    public boolean isInBackground() {
+        return minimized || !focused;
+    }
+
+    /**
+     * Blocks the calling thread while the window is in the background. Returns as soon as
+     * the window is restored or gains focus, when {@link #signalForeground()} is called or
+     * when the timeout runs out.
+     *
+     * @param timeoutNanos The longest time to wait, in nanoseconds, or {@code 0} or less to
+     *                     wait without a timeout.
+     */
+    public void awaitForeground(long timeoutNanos) {
+        foregroundLock.lock();
+
+        try {
+            long signals = foregroundSignals;
+            long remaining = timeoutNanos;
+
+            while (signals == foregroundSignals && isInBackground()) {
+                if (timeoutNanos <= 0) {
+                    foreground.await();
+                } else {
+                    if (remaining <= 0)
+                        break;
+
+                    remaining = foreground.awaitNanos(remaining);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            foregroundLock.unlock();
+        }
+    }
+
+    /**
+     * Wakes up every thread that is {@link #awaitForeground(long) waiting} for the window to
+     * come back to the foreground.
+     */
+    public void signalForeground() {
+        foregroundLock.lock();
+
+        try {
+            foregroundSignals++;
+            foreground.signalAll();
+        } finally {
+            foregroundLock.unlock();
+        }
+    }
+
     @Override
     public void windowOpened(WindowEvent e) {
         minimized = false;
+        signalForeground();
     }
 
     @Override
@@ -193,15 +264,19 @@ public class Window extends JFrame implements WindowListener {
     @Override
     public void windowDeiconified(WindowEvent e) {
         minimized = false;
+        display.invalidateFrame();
+        signalForeground();
     }
 
     @Override
     public void windowActivated(WindowEvent e) {
-
+        focused = true;
+        display.invalidateFrame();
+        signalForeground();
     }
 
     @Override
     public void windowDeactivated(WindowEvent e) {
-
+        focused = false;
     }
 }
@@ -2,19 +2,43 @@ package com.diamondhunter.hub;
 
 import java.awt.Color;
 import java.awt.Graphics2D;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.diamondhunter.entity.base.EntityManager;
+import com.diamondhunter.entity.base.EntitySnapshot;
 import com.diamondhunter.graphics.font.ImageFont;
+import com.diamondhunter.graphics.sprite.RenderQueue;
+import com.diamondhunter.graphics.sprite.Sprite;
+import com.diamondhunter.graphics.sprite.TextureAtlas;
+import com.diamondhunter.graphics.window.CanvasDisplay;
+import com.diamondhunter.graphics.window.DirtyRegions;
+import com.diamondhunter.graphics.window.Display;
+import com.diamondhunter.graphics.window.HeadlessDisplay;
+import com.diamondhunter.graphics.window.ResolutionScaler;
 import com.diamondhunter.graphics.window.Window;
+import com.diamondhunter.hub.loop.FramePacer;
+import com.diamondhunter.hub.loop.GameLoop;
 import com.diamondhunter.start.Start;
 import com.diamondhunter.state.base.StateManager;
+import com.diamondhunter.state.base.StateSnapshot;
 import com.diamondhunter.state.game.MenuState;
 import com.diamondhunter.state.game.PlayState;
 import com.diamondhunter.util.Version;
+import com.diamondhunter.util.concurrent.TripleBuffer;
+import com.diamondhunter.util.graphics.AnimationClock;
+import com.diamondhunter.util.input.InputAction;
+import com.diamondhunter.util.input.InputRecorder;
+import com.diamondhunter.util.input.InputReplayer;
 import com.diamondhunter.util.input.KeyHandler;
 import com.diamondhunter.util.input.MouseHandler;
 import com.diamondhunter.util.logging.Logger;
 import com.diamondhunter.util.logging.LoggerOptions;
+import com.diamondhunter.util.logic.Camera;
+import com.diamondhunter.util.profiling.FrameProfiler;
 
 public final class DiamondHunter implements Runnable {
 
@@ -25,6 +49,27 @@ public final class DiamondHunter implements Runnable {
 	private static final String DEBUG_MODE_ARGUMENT = "-debug";
 	private static final Color DEBUG_MODE_COLOR = Color.GREEN;
 	private static ImageFont DEBUG_MODE_FONT;
+	private static ImageFont PROFILER_FONT;
+
+	private static final String PROFILE_ARGUMENT = "-profile";
+
+	private static final String HEADLESS_MODE_ARGUMENT = "-headless";
+	private static final String TICK_LIMIT_ARGUMENT = "-ticks=";
+
+	private static final String RECORD_ARGUMENT = "-record=";
+	private static final String REPLAY_ARGUMENT = "-replay=";
+
+	private static final String RENDER_SCALE_ARGUMENT = "-render-scale=";
+	private static final String PIXEL_SCALE_ARGUMENT = "-pixel-scale=";
+
+	private static final String DISPLAY_ARGUMENT = "-display=";
+	private static final String BUFFERS_ARGUMENT = "-buffers=";
+	private static final String VOLATILE_SPRITES_ARGUMENT = "-volatile-sprites";
+	private static final String SPRITE_CACHE_ARGUMENT = "-sprite-cache=";
+	private static final String TEXTURE_ATLAS_ARGUMENT = "-texture-atlas=";
+	private static final String DAMAGE_TRACKING_ARGUMENT = "-damage-tracking";
+	private static final String SOFTWARE_RENDERER_ARGUMENT = "-software-renderer";
+	private static final String RENDER_BANDS_ARGUMENT = "-render-bands=";
 
 	// Manager name
 	public static final String MANAGER_NAME = GAME_TITLE + "-" + version.toString();
@@ -33,11 +78,16 @@ public final class DiamondHunter implements Runnable {
 	private static final double TARGET_HERTZ = 60.0f;
 	private static final double TARGET_FPS = 60.0f;
 
+	// Updates per second while the window is minimized or unfocused
+	private static final double DEFAULT_BACKGROUND_HERTZ = 5.0f;
+	private static final String BACKGROUND_HERTZ_ARGUMENT = "-background-ups=";
+
 	// Logging
 	private static final String DEFAULT_LOG_FORMAT = "[" + LoggerOptions.Format.HOUR12 + ":"
 			+ LoggerOptions.Format.MINUTE + ":" + LoggerOptions.Format.SECOND + " " + LoggerOptions.Format.HOUR_AM_PM
 			+ " - " + LoggerOptions.Format.LEVEL + "] " + LoggerOptions.Format.PROMPT;
 	private static boolean DEBUG_MODE = false;
+	private static boolean HEADLESS_MODE = false;
 
 	// Implementation for other use
 	private static DiamondHunter implementation = new DiamondHunter();
@@ -46,24 +96,107 @@ public final class DiamondHunter implements Runnable {
 	private static int DISPLAY_WIDTH = 1280;
 	private static int DISPLAY_HEIGHT = DISPLAY_WIDTH / 16 * 9;
 
+	// Every sprite is drawn at a whole multiple of this many pixels per pixel of its art: the
+	// menu background at 8, the buttons at 4, the title at 6 and the debug font at 2. Only
+	// pixel scales that divide it keep every pixel of the art the same size on the screen
+	private static final int SPRITE_PIXEL_SCALE = 2;
+
 	// Logging
 	private final Logger logger;
 
+	// Profiling
+	private final FrameProfiler profiler;
+	private FrameProfiler.Phase framePhase;
+	private FrameProfiler.Phase inputPhase;
+	private FrameProfiler.Phase entityUpdatePhase;
+	private FrameProfiler.Phase entityRenderPhase;
+	private FrameProfiler.Phase drawPhase;
+	private FrameProfiler.Phase presentPhase;
+
 	// Input
 	private KeyHandler keyHandler;
 	private MouseHandler mouseHandler;
 
+	// Input recording and replaying
+	private InputRecorder inputRecorder;
+	private InputReplayer inputReplayer;
+	private final List<InputAction> inputActions = new ArrayList<>();
+	private long inputTick;
+	private boolean inputFocused = true;
+
 	// Thread information
-	private boolean running = false;
+	private volatile boolean running = false;
 	private Thread mainThread;
 	private Window window;
+	private Display display;
+
+	// Render resolution
+	private ResolutionScaler resolutionScaler;
+
+	// The time the last frame took to render, up to the flush of the render queue, or -1 if
+	// the last frame drew nothing
+	private long renderTime = -1;
+	private boolean adaptiveResolution = true;
+	private float renderScale = 1.0f;
+	private int pixelScale = 1;
+
+	// Presenting
+	private boolean pageFlipping = true;
+	private int bufferCount = CanvasDisplay.DEFAULT_BUFFER_COUNT;
+	private boolean damageTracking = false;
+	private boolean softwareRendering = false;
+	private int renderBands = 1;
+
+	// Game loop
+	private GameLoop gameLoop;
+	private final GameLoop.Target loopTarget = new GameLoop.Target() {
+		@Override
+		public boolean isRunning() {
+			return running;
+		}
+
+		@Override
+		public void update(double deltaSeconds) {
+			tick(deltaSeconds);
+		}
+
+		@Override
+		public void render(float alpha) {
+			frame(alpha);
+		}
+
+		@Override
+		public boolean isInBackground() {
+			// The window is hidden until the first frame, which must still be rendered
+			return startedRendering && window != null && window.isInBackground();
+		}
+
+		@Override
+		public double getBackgroundHertz() {
+			return backgroundHertz;
+		}
+
+		@Override
+		public void awaitForeground(long timeoutNanos) {
+			if (window != null)
+				window.awaitForeground(timeoutNanos);
+		}
+	};
+	private double backgroundHertz = DEFAULT_BACKGROUND_HERTZ;
 
 	// Game info
-	private boolean startedRendering = false;
+	private volatile boolean startedRendering = false;
 
 	// Frames and updates
-	private double currentFps;
-	private double currentUps;
+	private volatile double currentFps;
+	private volatile double currentUps;
+	private final AtomicInteger frameCount = new AtomicInteger();
+	private final AtomicInteger updateCount = new AtomicInteger();
+	private long lastCounterTime;
+	private long tickCount;
+	private long tickLimit;
+	private long totalFrameCount;
+	private double deltaTime;
 
 	// Game state manager
 	private StateManager stateManager;
@@ -75,9 +208,18 @@ public final class DiamondHunter implements Runnable {
 	// Entity manager
 	private EntityManager entityManager;
 
+	// Snapshots of the states and entities handed from the simulation thread to the render
+	// thread. Only used when the game loop updates and renders on separate threads.
+	private TripleBuffer<WorldSnapshot> worldSnapshots;
+
+	// Collects what is drawn during a frame so it can be drawn sorted. Only used by the
+	// thread that renders.
+	private RenderQueue renderQueue;
+
 	private DiamondHunter() {
 		logger = Logger.createLogger(MANAGER_NAME);
 		logger.getOptions().setLogFormat(DEFAULT_LOG_FORMAT);
+		profiler = new FrameProfiler();
 	}
 
 	public static DiamondHunter getImplementation() {
@@ -100,6 +242,10 @@ public final class DiamondHunter implements Runnable {
 		return TARGET_FPS;
 	}
 
+	public static String getBackgroundHertzArgument() {
+		return BACKGROUND_HERTZ_ARGUMENT;
+	}
+
 	public static boolean isDebugMode() {
 		return DEBUG_MODE;
 	}
@@ -122,6 +268,82 @@ public final class DiamondHunter implements Runnable {
 		return DEBUG_MODE_FONT;
 	}
 
+	public static String getProfileArgument() {
+		return PROFILE_ARGUMENT;
+	}
+
+	/**
+	 * Whether the game runs without a window. In headless mode the game renders into an
+	 * offscreen {@link HeadlessDisplay} and can run without an X server.
+	 *
+	 * @return Returns {@code true} if the game is running headless.
+	 */
+	public static boolean isHeadlessMode() {
+		return HEADLESS_MODE;
+	}
+
+	public static void setHeadlessMode(boolean mode) {
+		if (!Thread.currentThread().getStackTrace()[2].getClassName().equals(Start.class.getName()))
+			return;
+		HEADLESS_MODE = mode;
+	}
+
+	public static String getHeadlessModeArgument() {
+		return HEADLESS_MODE_ARGUMENT;
+	}
+
+	public static String getTickLimitArgument() {
+		return TICK_LIMIT_ARGUMENT;
+	}
+
+	public static String getRecordArgument() {
+		return RECORD_ARGUMENT;
+	}
+
+	public static String getReplayArgument() {
+		return REPLAY_ARGUMENT;
+	}
+
+	public static String getRenderScaleArgument() {
+		return RENDER_SCALE_ARGUMENT;
+	}
+
+	public static String getPixelScaleArgument() {
+		return PIXEL_SCALE_ARGUMENT;
+	}
+
+	public static String getDisplayArgument() {
+		return DISPLAY_ARGUMENT;
+	}
+
+	public static String getBuffersArgument() {
+		return BUFFERS_ARGUMENT;
+	}
+
+	public static String getVolatileSpritesArgument() {
+		return VOLATILE_SPRITES_ARGUMENT;
+	}
+
+	public static String getSpriteCacheArgument() {
+		return SPRITE_CACHE_ARGUMENT;
+	}
+
+	public static String getTextureAtlasArgument() {
+		return TEXTURE_ATLAS_ARGUMENT;
+	}
+
+	public static String getDamageTrackingArgument() {
+		return DAMAGE_TRACKING_ARGUMENT;
+	}
+
+	public static String getSoftwareRendererArgument() {
+		return SOFTWARE_RENDERER_ARGUMENT;
+	}
+
+	public static String getRenderBandsArgument() {
+		return RENDER_BANDS_ARGUMENT;
+	}
+
 	public synchronized void start() {
 		if (running)
 			return;
@@ -136,6 +358,10 @@ public final class DiamondHunter implements Runnable {
 			return;
 		running = false;
 
+		// Wake up the game loop if it is waiting in the background
+		if (window != null)
+			window.signalForeground();
+
 		try {
 			mainThread.join();
 		} catch (InterruptedException e) {
@@ -148,7 +374,35 @@ public final class DiamondHunter implements Runnable {
 		logger.logLine(Logger.Level.INFO, "Building...");
 
 		// Display
-		window = new Window(GAME_TITLE, DISPLAY_WIDTH, DISPLAY_HEIGHT, false);
+		if (isHeadlessMode()) {
+			display = new HeadlessDisplay(DISPLAY_WIDTH, DISPLAY_HEIGHT);
+		} else {
+			if (pageFlipping)
+				display = new CanvasDisplay(DISPLAY_WIDTH, DISPLAY_HEIGHT, bufferCount);
+			else display = new Display(DISPLAY_WIDTH, DISPLAY_HEIGHT);
+
+			window = new Window(GAME_TITLE, display, false);
+		}
+
+		display.setRenderScale(renderScale);
+		display.setPixelScale(pixelScale);
+		display.setDamageTracking(damageTracking);
+		display.setSoftwareRendering(softwareRendering);
+		display.setRenderBands(renderBands);
+
+		// The camera sees the whole display
+		Camera.getMainCamera().setViewportSize(DISPLAY_WIDTH, DISPLAY_HEIGHT);
+
+		// Sprites are scaled once, straight to the pixels of the smaller back-buffer, and
+		// drawn where those pixels start
+		if (pixelScale > 1) {
+			Sprite.setScaledCopiesEnabled(false);
+			Sprite.setPixelGrid(pixelScale);
+		}
+
+		// A pixel scale keeps the resolution fixed
+		if (adaptiveResolution && pixelScale == 1)
+			resolutionScaler = new ResolutionScaler(display, (long) (1000000000 / TARGET_FPS));
 
 		// Input
 		keyHandler = new KeyHandler(this);
@@ -166,12 +420,56 @@ public final class DiamondHunter implements Runnable {
 		
 		stateManager.setFallbackState(menuState);
 
+		// Profiling (always on in debug mode so the overlay can show it)
+		if (isDebugMode())
+			profiler.setEnabled(true);
+
+		stateManager.setProfiler(profiler);
+		framePhase = profiler.getPhase("frame");
+		inputPhase = profiler.getPhase("input");
+		entityUpdatePhase = profiler.getPhase("update entities");
+		entityRenderPhase = profiler.getPhase("render entities");
+		drawPhase = profiler.getPhase("draw");
+		presentPhase = profiler.getPhase("present");
+
+		if (profiler.getExportFile() != null) {
+			Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+				try {
+					profiler.export();
+					logger.logLine(Logger.Level.INFO, "Saved profile to \"" + profiler.getExportFile().getPath() + "\"");
+				} catch (IOException e) {
+					logger.logLine(Logger.Level.ERROR, "Could not save profile to \"" + profiler.getExportFile().getPath() + "\"");
+				}
+			}, GAME_TITLE + " - Profile Export"));
+		}
+
+		if (inputRecorder != null) {
+			Runtime.getRuntime().addShutdownHook(new Thread(this::closeInputRecorder, GAME_TITLE + " - Input Recording"));
+			logger.logLine(Logger.Level.INFO, "Recording input to \"" + inputRecorder.getFile().getPath() + "\"");
+		}
+
+		if (inputReplayer != null)
+			logger.logLine(Logger.Level.INFO, "Replaying input from \"" + inputReplayer.getFile().getPath() + "\"");
+
 		// Entity manager
 		entityManager = EntityManager.createManager(MANAGER_NAME);
+		worldSnapshots = new TripleBuffer<>(WorldSnapshot::new);
+		renderQueue = new RenderQueue();
 
 		DEBUG_MODE_FONT = new ImageFont("font/diamond-font.png", 7, 12);
 		DEBUG_MODE_FONT.setSize(2);
 		DEBUG_MODE_FONT.setLetterSpacing((int) (DEBUG_MODE_FONT.getLetterSpacing() * 2));
+
+		PROFILER_FONT = new ImageFont("font/diamond-font.png", 7, 12);
+		// Drawn at the pixel scale, so a pixel of the font never becomes less than a pixel
+		PROFILER_FONT.setSize(pixelScale);
+
+		// Pack the sprites of every sprite sheet that was loaded into the texture atlas
+		TextureAtlas atlas = Sprite.getTextureAtlas();
+		atlas.pack();
+
+		if (atlas.getPageCount() > 0)
+			logger.logLine(Logger.Level.INFO, "Packed " + atlas.getSpriteCount() + " sprites into " + atlas.getPageCount() + " texture pages");
 	}
 
 	private void update() {
@@ -180,8 +478,16 @@ public final class DiamondHunter implements Runnable {
 		if (!startedRendering)
 			return;
 
+		// Advance every animation by the game time of this update
+		AnimationClock.getMainClock().advance(Math.round(deltaTime * 1000000000.0));
+
 		// Display the current state(s)
 		stateManager.update();
+
+		// Update entities
+		entityUpdatePhase.begin();
+		entityManager.update();
+		entityUpdatePhase.end();
 	}
 
 	private void input() {
@@ -189,6 +495,8 @@ public final class DiamondHunter implements Runnable {
 		if (!startedRendering)
 			return;
 
+		inputPhase.begin();
+
 		// Take input for states
 		stateManager.input(keyHandler, mouseHandler);
 		entityManager.input(keyHandler, mouseHandler);
@@ -196,312 +504,298 @@ public final class DiamondHunter implements Runnable {
 		// Update input
 		keyHandler.update();
 		mouseHandler.update();
+
+		inputPhase.end();
 	}
 
-	private void render() {
+	private void render(float alpha) {
+		long renderStart = System.nanoTime();
+		renderTime = -1;
 
 		// Make sure the game has loaded and started rendering before we render entities
-		if (startedRendering) {
-			// Render state
-			stateManager.render(window.getDisplay().getGraphics());
+		if (startedRendering && beginFrame()) {
+			// The simulation thread changes the states and entities while this one renders, so
+			// draw what it captured of them instead, both from the same update
+			WorldSnapshot snapshot = null;
+
+			if (gameLoop.isMultiThreaded()) {
+				worldSnapshots.update();
+				snapshot = worldSnapshots.getReadBuffer();
+			}
+
+			// Render state, into the render queue where possible
+			if (snapshot != null)
+				snapshot.states.render(renderQueue, display.getGraphics(), alpha);
+			else stateManager.render(renderQueue, display.getGraphics(), alpha);
+
+			// Render entities, the render queue sorts them by depth
+			entityRenderPhase.begin();
+
+			if (snapshot != null)
+				snapshot.entities.render(renderQueue, alpha);
+			else entityManager.render(renderQueue, alpha, getCamera());
 
-			// Render entities
-			entityManager.render(window.getDisplay().getGraphics());
+			entityRenderPhase.end();
+
+			drawPhase.begin();
+			flushRenderQueue();
+			drawPhase.end();
+
+			// The present may wait for the screen, which lowering the resolution can't speed up
+			renderTime = System.nanoTime() - renderStart;
 
 			if (isDebugMode()) {
 				// Render debug options
-				renderDebug(window.getDisplay().getGraphics());
+				renderDebug(display.getGraphics());
 			}
 		}
 
 		// Update window render
-		window.getDisplay().update();
+		presentPhase.begin();
+		display.update();
+		presentPhase.end();
 
 		// Make sure we show the window once the game has started rendering for 1 frame.
 		// We need this so we do not get a white screen caused by the loading of assets
 		// before our game.
-		if (!window.isVisible()) {
+		if (!startedRendering) {
 			// Log the current status
 			logger.logLine(Logger.Level.INFO, "Launching...");
 
 			// Now show the windows and notify we can start
-			window.setVisible(true);
+			if (window != null)
+				window.setVisible(true);
 			startedRendering = true;
 		}
 	}
 
-	private void renderDebug(Graphics2D g) {
-		// Color oldColor = g.getColor(); -- Only needed when using text font
+	private void tick(double deltaSeconds) {
+		deltaTime = deltaSeconds;
 
-		// g.setColor(getDebugModeColor()); -- Only needed when using text font
-		ImageFont font = getDebugModeFont();
+		// Read once so that the input and the update agree on whether the game has started
+		if (startedRendering) {
+			pollInput();
+			update();
+
+			// Only take input if we can see the screen
+			if (inputFocused)
+				input();
+		} else {
+			discardInput();
+		}
 
-		// Render FPS
+		tickCount++;
 
-		font.renderText(g, (int) this.currentFps + " FPS", 10, 10);
-		font.renderText(g, (int) this.currentUps + " UPS", 10, 40);
-	}
+		// Stop once we ran the amount of updates we were asked to
+		if (tickLimit > 0 && tickCount >= tickLimit)
+			running = false;
 
-	public void closeProgram() {
-		// TODO Add save game code
-		System.exit(0);
+		// Stop once the whole recording was replayed
+		if (inputReplayer != null && inputReplayer.isFinished(inputTick))
+			running = false;
+
+		// Hand the states and entities over to the render thread
+		if (gameLoop.isMultiThreaded() && startedRendering) {
+			WorldSnapshot snapshot = worldSnapshots.getWriteBuffer();
+
+			stateManager.snapshot(snapshot.states, tickCount);
+			entityManager.snapshot(snapshot.entities, tickCount);
+			worldSnapshots.publish();
+		}
+
+		updateCount.incrementAndGet();
+		updateCounters();
 	}
 
-	@Override
-	public void run() {
+	private void frame(float alpha) {
+		// There is nothing to show while the window is minimized
+		if (isMinimized())
+			return;
 
-		/*
-		 * Note that this game loop may not always be optimized for your pc. If your pc
-		 * gets random lag spikes or if your game is constantly freezing, this game loop
-		 * will update the updates that were lost from that lag. By doing so, your game
-		 * will be faster than usual during that time.
-		 *
-		 * If this game loop does not work for you, please try to use the game loops
-		 * below.
-		 */
+		framePhase.begin();
+		render(alpha);
+		framePhase.end();
 
-		// The amount of time we should wait for before doing an update.
-		// Basically how long we should wait before one game hertz.
-		final double TIME_BETWEEN_UPDATES = 1000000000 / TARGET_HERTZ;
+		// Lower the resolution if rendering is too slow, raise it if there is time to spare
+		// Frames that drew nothing say nothing about how long drawing takes
+		if (resolutionScaler != null && renderTime >= 0 && resolutionScaler.record(renderTime) && isDebugMode())
+			logger.logLine(Logger.Level.INFO, "Render scale changed to " + Math.round(display.getRenderScale() * 100) + "%");
 
-		// The maximum amount of times we should update before rendering.
-		// Set to '1' if you are worried about hitches and flickering.
-		final int MAX_UPDATES_BEFORE_RENDER = 5;
+		totalFrameCount++;
+		frameCount.incrementAndGet();
+		updateCounters();
+	}
 
-		// The last time, in nanoseconds, that we updated the game.
-		// This gets changed later.
-		double lastUpdateTime = System.nanoTime();
+	/*
+	 * Applies the input that arrived since the last update (or the recorded input when
+	 * replaying) so every update sees a fixed set of input, and records it if needed.
+	 */
+	private void pollInput() {
+		inputActions.clear();
+		keyHandler.poll(inputActions);
+		mouseHandler.poll(inputActions);
 
-		// The last time, in nanoseconds, that we render the game.
-		// This gets changed later.
-		double lastRenderTime;
+		if (inputReplayer != null) {
+			// Real input is ignored while replaying
+			inputActions.clear();
 
-		// The amount of time we should wait for before rendering.
-		// Basically how long we should wait before one game frame.
-		final double TIME_BETWEEN_RENDERS = 1000000000 / TARGET_FPS;
+			try {
+				inputReplayer.next(inputTick, inputActions);
+			} catch (IOException e) {
+				logger.logLine(Logger.Level.ERROR, "Could not read input from \"" + inputReplayer.getFile().getPath() + "\"");
+				if (isDebugMode())
+					e.printStackTrace();
 
-		// The current time in seconds (from nanoseconds)
-		int lastSecondTime = (int) (lastUpdateTime / 1000000000);
+				running = false;
+			}
+		} else {
+			boolean focused = !isMinimized() && display.isInputFocused();
 
-		// The FPS of the last updates
-		int oldFrameCount = 0;
+			if (focused != inputFocused)
+				inputActions.add(InputAction.focus(focused));
+		}
 
-		// The current fps (this is later stored in a field)
-		int frameCount = 0;
+		for (InputAction action : inputActions) {
+			if (action.getType().isFocus()) {
+				inputFocused = action.getType() == InputAction.Type.FOCUS_GAINED;
 
-		// The UPS(updates per second or ticks) of the last updates
-		int oldUpdateCount = 0;
+				// Keys that are held while the focus is lost never get released
+				if (!inputFocused)
+					keyHandler.forceReleaseKeys();
+			} else {
+				action.apply(keyHandler, mouseHandler);
+			}
+		}
 
-		// The current ups(updates per second) (this is later stored in a field)
-		int updateCount = 0;
+		if (inputRecorder != null) {
+			try {
+				inputRecorder.record(inputTick, inputActions);
+			} catch (IOException e) {
+				logger.logLine(Logger.Level.ERROR, "Could not record input to \"" + inputRecorder.getFile().getPath() + "\"");
+				if (isDebugMode())
+					e.printStackTrace();
 
-		// Initialize the game
-		initialize();
+				closeInputRecorder();
+				inputRecorder = null;
+			}
+		}
 
-		while (running) {
+		inputTick++;
+	}
 
-			// Get the current time in nanoseconds
-			double now = System.nanoTime();
+	private void discardInput() {
+		inputActions.clear();
+		keyHandler.poll(inputActions);
+		mouseHandler.poll(inputActions);
+		inputActions.clear();
+	}
 
-			// The amount of updates we do
-			int updateAmount = 0;
+	private void closeInputRecorder() {
+		InputRecorder recorder = inputRecorder;
 
-			// If it's been long enough for us to be able to update (specified by
-			// TIME_BETWEEN_UPDATES)
-			// && we haven't updated the right amount of times (specified by
-			// MAX_UPDATES_BEFORE_RENDER)
-			// (which basically means: if we haven't reached the desired amount of updates).
-			while (now - lastUpdateTime > TIME_BETWEEN_UPDATES && updateAmount < MAX_UPDATES_BEFORE_RENDER) {
-				update();
+		if (recorder == null)
+			return;
 
-				// Only take input if we can see the screen
-				if (!window.isMinimized() && window.hasFocus())
-					input();
+		try {
+			recorder.close();
+		} catch (IOException e) {
+			logger.logLine(Logger.Level.ERROR, "Could not save input recording to \"" + recorder.getFile().getPath() + "\"");
+		}
+	}
 
-				lastUpdateTime += TIME_BETWEEN_UPDATES;
-				updateAmount++;
+	private boolean isMinimized() {
+		// A headless display has no window that could be minimized
+		return window != null && window.isMinimized();
+	}
 
-				// Save the updates (a.k.a UPS or ticks) so we can use it later. The only use
-				// for this
-				// variable is to be used to count UPS (or ticks).
-				updateCount++;
-			}
+	// Synchronized because updates and frames may be counted on different threads
+	private synchronized void updateCounters() {
+		long now = System.nanoTime();
 
-			// If one update takes too long, don't try to forgive it, just continue
-			if (now - lastUpdateTime > TIME_BETWEEN_UPDATES) {
-				lastUpdateTime = now - TIME_BETWEEN_UPDATES;
-			}
+		// If it has been 1 second, save the current frames and updates
+		if (now - lastCounterTime >= 1000000000L) {
+			currentFps = frameCount.getAndSet(0);
+			currentUps = updateCount.getAndSet(0);
 
-			// Render and take input if we need to
-			if (!window.isMinimized()) {
-				render();
+			lastCounterTime = now;
+		}
+	}
 
-				if (window.getDisplay().hasFocus())
-					input();
-			}
+	/*
+	 * Finds out what has to be drawn this frame. With damage tracking, only the parts that
+	 * the states changed are drawn, unless there are entities or debug information, which
+	 * change every frame.
+	 */
+	private boolean beginFrame() {
+		if (display.isDamageTracking()) {
+			DirtyRegions regions = display.getDirtyRegions();
+
+			// The states of a threaded loop are changed by another thread, so what they changed
+			// isn't known here
+			if (isDebugMode() || gameLoop.isMultiThreaded() || !entityManager.getEntities().isEmpty())
+				regions.addAll();
+			else stateManager.collectDamage(regions);
+		}
 
-			// Now is the last time we rendered
-			lastRenderTime = now;
+		return display.beginFrame();
+	}
 
-			// Update frame count
-			frameCount++;
+	private void flushRenderQueue() {
+		if (display.getBandRenderer() != null)
+			display.getBandRenderer().flush(renderQueue);
+		else if (display.isSoftwareRendering())
+			renderQueue.flush(display.getRasterizer());
+		else renderQueue.flush(display.getGraphics());
+	}
 
-			// The current time in seconds (from nanoseconds)
-			int thisSecond = (int) (lastUpdateTime / 1000000000);
+	private void renderDebug(Graphics2D g) {
+		// Color oldColor = g.getColor(); -- Only needed when using text font
 
-			// If it has been 1 second
-			if (thisSecond > lastSecondTime) {
-				// If the current frame count is different than the previous one
-				if (oldFrameCount != frameCount) {
-					oldFrameCount = frameCount;
-				}
+		// g.setColor(getDebugModeColor()); -- Only needed when using text font
+		ImageFont font = getDebugModeFont();
 
-				// If the current update count is different than the previous one
-				if (oldUpdateCount != updateCount) {
-					oldUpdateCount = updateCount;
-				}
+		// Render FPS on top of the entities
 
-				// Set the current frames and updates
-				currentFps = frameCount;
-				currentUps = updateCount;
+		font.renderText(renderQueue, RenderQueue.DEBUG_LAYER, 0, (int) this.currentFps + " FPS", 10, 10);
+		font.renderText(renderQueue, RenderQueue.DEBUG_LAYER, 0, (int) this.currentUps + " UPS", 10, 40);
+		flushRenderQueue();
 
-				updateCount = 0;
-				frameCount = 0;
-				lastSecondTime = thisSecond;
-			}
+		// Render frame timings
+		Color oldColor = g.getColor();
+		g.setColor(getDebugModeColor());
+		profiler.render(g, PROFILER_FONT, 10, 70, (long) (1000000000 / TARGET_FPS));
+		g.setColor(oldColor);
+	}
 
-			// Sleep if we should not update or render yet. This is determined by the
-			// TIME_BETWEEN_RENDERS
-			// and TIME_BETWEEN_UPDATES. We run this loop while waiting for the elapsed time
-			// to reach the
-			// desired time (which are specified by those two variables). So basically, we
-			// wait until it has
-			// been one frame.
-			//
-			// This is crucial for the game to not hog the CPU.
-			while (now - lastRenderTime < TIME_BETWEEN_RENDERS && now - lastUpdateTime < TIME_BETWEEN_UPDATES) {
-
-				// Helps clear CPU usage.
-				Thread.yield();
-
-				// Sleeps the thread (basically do nothing for the given amount of time (which
-				// in this case,
-				// if 1 millisecond)).
-				try {
-					Thread.sleep(1);
-				} catch (Exception e) {
-					if (isDebugMode())
-						logger.logLine(Logger.Level.ERROR, "Could not sleep thread, CPU usage increased...");
-				}
+	public void closeProgram() {
+		// TODO Add save game code
+		System.exit(0);
+	}
 
-				Thread.yield();
+	@Override
+	public void run() {
+		// Initialize the game
+		initialize();
 
-				try {
-					Thread.sleep(0);
-				} catch (InterruptedException e) {
-					if (isDebugMode())
-						logger.logLine(Logger.Level.ERROR, "Could not sleep thread, CPU usage increased...");
-				}
+		// Use the fixed timestep loop unless another one was selected at startup
+		if (gameLoop == null)
+			gameLoop = GameLoop.Type.FIXED.create(TARGET_HERTZ, TARGET_FPS, new FramePacer());
 
-				// Make sure we're updating the current time so we can use it to check if we
-				// should update or render.
-				now = System.nanoTime();
-			}
+		lastCounterTime = System.nanoTime();
 
-			Thread.yield();
+		long startTime = lastCounterTime;
+		gameLoop.run(loopTarget);
 
-			try {
-				Thread.sleep(0);
-			} catch (InterruptedException e) {
-				if (isDebugMode())
-					logger.logLine(Logger.Level.ERROR, "Could not sleep thread, CPU usage increased...");
-			}
-		}
+		closeInputRecorder();
 
-		/*
-		 * Another functional game loop. If CPU Usage is getting too high, try using
-		 * this game loop, it might help keep the CPU usage down.
-		 */
-
-//        long start;
-//        long elapsed;
-//        long wait;
-//        long TARGET_TIME = (long) (1000 / TARGET_FPS);
-//
-//        initialize();
-//
-//        // game loop
-//        while (running) {
-//
-//            start = System.nanoTime();
-//
-//            update();
-//            input();
-//            render();
-//
-//            elapsed = System.nanoTime() - start;
-//
-//            wait = TARGET_TIME - elapsed / 1000000;
-//            if (wait < 0) wait = TARGET_TIME;
-//
-//            try {
-//                Thread.yield();
-//                Thread.sleep(wait);
-//            } catch (Exception e) {
-//                e.printStackTrace();
-//            }
-//        }
-
-//        /**
-//         * Custom made game loop; fps is also not traceable. This is just a decent/bad game loop
-//         */
-//        initialize();
-//
-//        while (running) {
-//            update();
-//            input();
-//            render();
-//
-//            try {
-//                Thread.yield();
-//                Thread.sleep((long) (1000 / TARGET_HERTZ));
-//            } catch (InterruptedException e) {
-//                e.printStackTrace();
-//            }
-//        }
-
-		/*
-		 * A final alternative game-loop. Use if game loop above does not help as a last
-		 * attempt. !WARNING! This game loop my help the CPU usage decrease although
-		 * there is no way of keeping track of FPS and/or UPS.
-		 */
-
-//        initialize();
-//
-//        while (running) {
-//            long startTime = System.currentTimeMillis();
-//
-//            update();
-//            input();
-//            render();
-//
-//            long remaining = (System.currentTimeMillis() - startTime);
-//
-//            try {
-//                Thread.sleep(remaining - 2); // adds up to 18 ms since start if repaint took 10ms
-//            } catch (InterruptedException e) {
-//                e.printStackTrace();
-//            }
-//
-//            remaining = (System.currentTimeMillis() - startTime);
-//
-//            try {
-//                Thread.yield();
-//                Thread.sleep(remaining); // should be 1-2ms
-//            } catch (InterruptedException e) {
-//                e.printStackTrace();
-//            }
-//        }
+		// Without a window the throughput is the only thing there is to see, and a replay
+		// is usually run as a benchmark
+		if (isHeadlessMode() || inputReplayer != null) {
+			double seconds = (System.nanoTime() - startTime) / 1000000000.0;
+
+			logger.logLine(Logger.Level.INFO, String.format(Locale.ROOT, "Ran %d updates and %d frames in %.2f seconds (%.1f UPS, %.1f FPS)",
+					tickCount, totalFrameCount, seconds, tickCount / seconds, totalFrameCount / seconds));
+		}
 
 		// Properly stop the thread if it wasn't already stopped by the user
 		stop();
@@ -515,10 +809,25 @@ public final class DiamondHunter implements Runnable {
 		return playState;
 	}
 
+	/**
+	 * The window that the game is shown in.
+	 *
+	 * @return Returns the window or {@code null} if the game is running headless.
+	 */
 	public Window getWindow() {
 		return window;
 	}
 
+	/**
+	 * The display that the game renders into. This is the display of the
+	 * {@link #getWindow() window} or, when running headless, a {@link HeadlessDisplay}.
+	 *
+	 * @return Returns the display of the game.
+	 */
+	public Display getDisplay() {
+		return display;
+	}
+
 	public Thread getThread() {
 		return mainThread;
 	}
@@ -527,6 +836,266 @@ public final class DiamondHunter implements Runnable {
 		return running;
 	}
 
+	public GameLoop getGameLoop() {
+		return gameLoop;
+	}
+
+	/**
+	 * Stops the game after it ran the given amount of updates.
+	 *
+	 * @param tickLimit The amount of updates to run or {@code 0} to run until closed.
+	 */
+	public void setTickLimit(long tickLimit) {
+		if (running)
+			throw new IllegalStateException("Cannot change the tick limit while the game is running!");
+
+		this.tickLimit = Math.max(0, tickLimit);
+	}
+
+	public long getTickLimit() {
+		return tickLimit;
+	}
+
+	/**
+	 * The updates per second that the game runs at while its window is minimized or does
+	 * not have focus. Nothing is rendered in the background.
+	 *
+	 * @return Returns the background update rate.
+	 */
+	public double getBackgroundHertz() {
+		return backgroundHertz;
+	}
+
+	/**
+	 * Sets the updates per second that the game runs at in the background.
+	 *
+	 * @param backgroundHertz The background update rate, or {@code 0} to pause updates in
+	 *                        the background.
+	 */
+	public void setBackgroundHertz(double backgroundHertz) {
+		if (backgroundHertz < 0 || backgroundHertz > TARGET_HERTZ)
+			throw new IllegalArgumentException("Cannot set background hertz to " + backgroundHertz);
+
+		this.backgroundHertz = backgroundHertz;
+	}
+
+	/**
+	 * Whether the game is shown with page flipping through a {@link CanvasDisplay}, or by
+	 * copying every frame onto a normal {@link Display}.
+	 *
+	 * @return Returns {@code true} if page flipping is used.
+	 */
+	public boolean isPageFlipping() {
+		return pageFlipping;
+	}
+
+	public void setPageFlipping(boolean pageFlipping) {
+		if (running)
+			throw new IllegalStateException("Cannot change the display while the game is running!");
+
+		this.pageFlipping = pageFlipping;
+	}
+
+	public int getBufferCount() {
+		return bufferCount;
+	}
+
+	/**
+	 * Whether the display only draws and shows the parts of the screen that changed. See
+	 * {@link Display#setDamageTracking(boolean)}.
+	 *
+	 * @return Returns {@code true} if damage tracking is used.
+	 */
+	public boolean isDamageTracking() {
+		return damageTracking;
+	}
+
+	public void setDamageTracking(boolean damageTracking) {
+		if (running)
+			throw new IllegalStateException("Cannot change the display while the game is running!");
+
+		this.damageTracking = damageTracking;
+	}
+
+	/**
+	 * Whether queued sprites are drawn by writing straight into the pixels of the display
+	 * instead of through Java2D. See {@link Display#setSoftwareRendering(boolean)}.
+	 *
+	 * @return Returns {@code true} if the software renderer is used.
+	 */
+	public boolean isSoftwareRendering() {
+		return softwareRendering;
+	}
+
+	public void setSoftwareRendering(boolean softwareRendering) {
+		if (running)
+			throw new IllegalStateException("Cannot change the display while the game is running!");
+
+		this.softwareRendering = softwareRendering;
+	}
+
+	/**
+	 * The amount of horizontal bands that the render queue is drawn in on separate threads.
+	 * See {@link Display#setRenderBands(int)}.
+	 *
+	 * @return Returns the amount of bands, where {@code 1} draws on the render thread.
+	 */
+	public int getRenderBands() {
+		return renderBands;
+	}
+
+	public void setRenderBands(int renderBands) {
+		if (running)
+			throw new IllegalStateException("Cannot change the display while the game is running!");
+
+		if (renderBands < 1)
+			throw new IllegalArgumentException("Cannot render in " + renderBands + " bands");
+
+		this.renderBands = renderBands;
+	}
+
+	/**
+	 * Sets the amount of buffers that a page flipping display flips between.
+	 *
+	 * @param bufferCount {@code 2} for double buffering or {@code 3} for triple buffering.
+	 */
+	public void setBufferCount(int bufferCount) {
+		if (running)
+			throw new IllegalStateException("Cannot change the display while the game is running!");
+
+		if (bufferCount < 2)
+			throw new IllegalArgumentException("Cannot page flip with " + bufferCount + " buffers");
+
+		this.bufferCount = bufferCount;
+	}
+
+	/**
+	 * Whether the render resolution is lowered automatically when frames take too long.
+	 *
+	 * @return Returns {@code true} if the resolution is adaptive.
+	 */
+	public boolean isAdaptiveResolution() {
+		return adaptiveResolution;
+	}
+
+	public void setAdaptiveResolution(boolean adaptiveResolution) {
+		if (running)
+			throw new IllegalStateException("Cannot change the render resolution while the game is running!");
+
+		this.adaptiveResolution = adaptiveResolution;
+	}
+
+	/**
+	 * Sets the resolution that the game starts rendering at, compared to the size of the
+	 * display. See {@link Display#setRenderScale(float)}.
+	 *
+	 * @param renderScale The render scale, from {@code 0} (exclusive) to {@code 1}.
+	 */
+	public void setRenderScale(float renderScale) {
+		if (running)
+			throw new IllegalStateException("Cannot change the render resolution while the game is running!");
+
+		if (renderScale <= 0 || renderScale > 1)
+			throw new IllegalArgumentException("Cannot set render scale to " + renderScale);
+
+		this.renderScale = renderScale;
+	}
+
+	public float getRenderScale() {
+		return display == null ? renderScale : display.getRenderScale();
+	}
+
+	/**
+	 * Renders at the size of the display divided by the pixel scale and scales every frame
+	 * up by exactly that when it is shown. See {@link Display#setPixelScale(int)}.
+	 * <p>
+	 * Only pixel scales that divide the scale that every sprite is drawn at, which is
+	 * {@link #getSpritePixelScale()}, are accepted. With those, every pixel of the art of a
+	 * sprite becomes the same whole number of pixels of the smaller back-buffer, and sprites
+	 * are drawn where those pixels start (see {@link Sprite#setPixelGrid(int)}), so nothing
+	 * is resampled unevenly.
+	 *
+	 * @param pixelScale The pixel scale, or {@code 1} to render at the render scale.
+	 * @throws IllegalArgumentException If the pixel scale doesn't divide the scale of the
+	 *                                  sprites.
+	 */
+	public void setPixelScale(int pixelScale) {
+		if (running)
+			throw new IllegalStateException("Cannot change the render resolution while the game is running!");
+
+		if (pixelScale < 1)
+			throw new IllegalArgumentException("Cannot set pixel scale to " + pixelScale);
+
+		if (SPRITE_PIXEL_SCALE % pixelScale != 0)
+			throw new IllegalArgumentException("Cannot set pixel scale to " + pixelScale + ", sprites are drawn at multiples of " + SPRITE_PIXEL_SCALE);
+
+		this.pixelScale = pixelScale;
+	}
+
+	public int getPixelScale() {
+		return pixelScale;
+	}
+
+	/**
+	 * The scale, in screen pixels per pixel of art, that every sprite is drawn at a whole
+	 * multiple of. The {@link #setPixelScale(int) pixel scale} must divide it.
+	 *
+	 * @return Returns the common scale of the sprites.
+	 */
+	public static int getSpritePixelScale() {
+		return SPRITE_PIXEL_SCALE;
+	}
+
+	/**
+	 * Records the input of every update to the given recorder. The recorder is closed
+	 * when the game stops.
+	 *
+	 * @param inputRecorder The recorder or {@code null} to not record.
+	 */
+	public void setInputRecorder(InputRecorder inputRecorder) {
+		if (running)
+			throw new IllegalStateException("Cannot start recording while the game is running!");
+
+		this.inputRecorder = inputRecorder;
+	}
+
+	public InputRecorder getInputRecorder() {
+		return inputRecorder;
+	}
+
+	/**
+	 * Replays recorded input instead of taking real input. The game stops once the whole
+	 * recording was replayed.
+	 *
+	 * @param inputReplayer The replayer or {@code null} to take real input.
+	 */
+	public void setInputReplayer(InputReplayer inputReplayer) {
+		if (running)
+			throw new IllegalStateException("Cannot start replaying while the game is running!");
+
+		this.inputReplayer = inputReplayer;
+	}
+
+	public InputReplayer getInputReplayer() {
+		return inputReplayer;
+	}
+
+	public void setGameLoop(GameLoop gameLoop) {
+		if (running)
+			throw new IllegalStateException("Cannot change the game loop while the game is running!");
+
+		this.gameLoop = gameLoop;
+	}
+
+	/**
+	 * The amount of game time, in seconds, that the current update covers.
+	 *
+	 * @return Returns the delta time of the current update.
+	 */
+	public double getDeltaTime() {
+		return deltaTime;
+	}
+
 	@Deprecated
 	public void setRunning(boolean running) {
 		this.running = running;
@@ -536,6 +1105,10 @@ public final class DiamondHunter implements Runnable {
 		return logger;
 	}
 
+	public FrameProfiler getProfiler() {
+		return profiler;
+	}
+
 	public double getCurrentUPS() {
 		return currentUps;
 	}
@@ -548,6 +1121,15 @@ public final class DiamondHunter implements Runnable {
 		return entityManager;
 	}
 
+	/**
+	 * The camera that the game renders with.
+	 *
+	 * @return Returns the main camera.
+	 */
+	public Camera getCamera() {
+		return Camera.getMainCamera();
+	}
+
 	public StateManager getStateManager() {
 		return stateManager;
 	}
@@ -565,4 +1147,13 @@ public final class DiamondHunter implements Runnable {
 
 		return super.equals(obj);
 	}
+
+	/*
+	 * Everything the render thread needs of one update. The states and entities share a
+	 * snapshot so they are always drawn from the same update, with the same camera.
+	 */
+	private static final class WorldSnapshot {
+		private final StateSnapshot states = new StateSnapshot();
+		private final EntitySnapshot entities = new EntitySnapshot();
+	}
 }
@@ -0,0 +1,39 @@
+package com.diamondhunter.hub.loop;
+
+/**
+ * Runs a game loop iteration for a {@link GameLoop.Target target} that is in the
+ * background. Instead of waking up for every update and frame, the loop runs at most one
+ * update at the background rate and then blocks until the next one is due or the game is
+ * back in the foreground. Nothing is rendered.
+ * <p>
+ * Every background update covers the real time between two background updates, whatever
+ * the delta of the loop is, so the game and its animations keep their speed while in the
+ * background. The delta is capped at {@link VariableStepLoop#MAX_DELTA_SECONDS} so a very
+ * low background rate doesn't make single updates skip too far ahead.
+ */
+final class BackgroundThrottle {
+
+    private BackgroundThrottle() {
+    }
+
+    /**
+     * Idles the loop if the target is in the background. Loops should reset their timing
+     * after this returns {@code true} so they don't try to catch up on the time spent idle.
+     *
+     * @param target The target of the loop
+     * @param update Whether this thread runs the updates of the target
+     * @return Returns {@code true} if the target was in the background.
+     */
+    static boolean idle(GameLoop.Target target, boolean update) {
+        if (!target.isInBackground())
+            return false;
+
+        double hertz = target.getBackgroundHertz();
+
+        if (update && hertz > 0)
+            target.update(Math.min(1.0 / hertz, VariableStepLoop.MAX_DELTA_SECONDS));
+
+        target.awaitForeground(hertz > 0 ? (long) (1000000000 / hertz) : 0);
+        return true;
+    }
+}
@@ -0,0 +1,117 @@
+package com.diamondhunter.hub.loop;
+
+/**
+ * A game loop that updates the game at a fixed rate no matter how fast it renders.
+ * <p>
+ * The time that passes between frames is added to an accumulator which is then consumed
+ * in fixed steps of {@code 1 / hertz} seconds. Whatever is left in the accumulator after
+ * updating is handed to the renderer as an interpolation alpha so that movement stays
+ * smooth even when the frame rate and the update rate do not line up.
+ * <p>
+ * If the game falls too far behind (for example after a lag spike), at most
+ * {@link #getMaxUpdatesBeforeRender()} updates are run before rendering and the rest of
+ * the lost time is dropped instead of making the game run faster to catch up.
+ * <p>
+ * While the game is in the background, it only updates at its background rate and does
+ * not render.
+ */
+public class FixedTimestepLoop implements GameLoop {
+
+    /**
+     * The default maximum amount of updates that are run before rendering.
+     */
+    public static final int DEFAULT_MAX_UPDATES_BEFORE_RENDER = 5;
+
+    private final long timeBetweenUpdates;
+    private final long timeBetweenRenders;
+    private final int maxUpdatesBeforeRender;
+
+    private final FramePacer pacer;
+
+    public FixedTimestepLoop(double hertz, double fps, FramePacer pacer) {
+        this(hertz, fps, DEFAULT_MAX_UPDATES_BEFORE_RENDER, pacer);
+    }
+
+    /**
+     * Creates a fixed timestep loop.
+     *
+     * @param hertz                  The amount of updates per second.
+     * @param fps                    The maximum amount of frames per second. Use {@code 0}
+     *                               or less to render after every update.
+     * @param maxUpdatesBeforeRender The maximum amount of updates that are run before
+     *                               rendering.
+     * @param pacer                  The pacer used to wait between frames.
+     */
+    public FixedTimestepLoop(double hertz, double fps, int maxUpdatesBeforeRender, FramePacer pacer) {
+        this.timeBetweenUpdates = (long) (1000000000 / hertz);
+        this.timeBetweenRenders = fps > 0 ? (long) (1000000000 / fps) : 0;
+        this.maxUpdatesBeforeRender = Math.max(1, maxUpdatesBeforeRender);
+        this.pacer = pacer;
+    }
+
+    @Override
+    public void run(Target target) {
+        final double deltaSeconds = timeBetweenUpdates / 1000000000.0;
+
+        long lastTime = System.nanoTime();
+        long nextRenderTime = lastTime;
+        long accumulator = 0;
+
+        while (target.isRunning()) {
+            // Barely run at all while nobody can see the game
+            if (BackgroundThrottle.idle(target, true)) {
+                lastTime = System.nanoTime();
+                nextRenderTime = lastTime;
+                accumulator = 0;
+                continue;
+            }
+
+            long now = System.nanoTime();
+            accumulator += now - lastTime;
+            lastTime = now;
+
+            // If we fell too far behind, don't try to catch up, just continue
+            if (accumulator > timeBetweenUpdates * maxUpdatesBeforeRender)
+                accumulator = timeBetweenUpdates * maxUpdatesBeforeRender;
+
+            while (accumulator >= timeBetweenUpdates) {
+                target.update(deltaSeconds);
+                accumulator -= timeBetweenUpdates;
+            }
+
+            if (now - nextRenderTime >= 0) {
+                target.render((float) accumulator / timeBetweenUpdates);
+
+                nextRenderTime += timeBetweenRenders;
+
+                // Don't try to make up frames that were never rendered
+                if (now - nextRenderTime > timeBetweenRenders)
+                    nextRenderTime = now;
+            }
+
+            // Wait for whatever comes first: the next update or the next frame
+            long nextUpdateTime = lastTime + (timeBetweenUpdates - accumulator);
+
+            if (timeBetweenRenders > 0 && nextRenderTime - nextUpdateTime < 0)
+                pacer.waitUntil(nextRenderTime);
+            else
+                pacer.waitUntil(nextUpdateTime);
+        }
+    }
+
+    public long getTimeBetweenUpdates() {
+        return timeBetweenUpdates;
+    }
+
+    public long getTimeBetweenRenders() {
+        return timeBetweenRenders;
+    }
+
+    public int getMaxUpdatesBeforeRender() {
+        return maxUpdatesBeforeRender;
+    }
+
+    public FramePacer getPacer() {
+        return pacer;
+    }
+}
@@ -0,0 +1,117 @@
+package com.diamondhunter.hub.loop;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A {@code FramePacer} makes the game thread wait until a given point in time without
+ * hogging the CPU.
+ * <p>
+ * {@link Thread#sleep(long)} only has a resolution of one millisecond and usually wakes
+ * up late, which makes frames jitter by 1-2 ms. This pacer parks the thread with
+ * {@link LockSupport#parkNanos(long)} for most of the wait and, when {@link #isSpinning()
+ * spinning} is enabled, busy-waits for the last fraction of it. The spin window adapts to
+ * how late the operating system actually wakes us up, so we only spin for as long as we
+ * need to and the rest of the frame is spent parked.
+ */
+public final class FramePacer {
+
+    /**
+     * The smallest amount of time, in nanoseconds, that we spin for before a deadline.
+     */
+    public static final long MIN_SPIN_THRESHOLD = 50_000L;
+
+    /**
+     * The largest amount of time, in nanoseconds, that we spin for before a deadline.
+     */
+    public static final long MAX_SPIN_THRESHOLD = 2_000_000L;
+
+    private final boolean spinning;
+
+    // How long before the deadline we stop parking and start spinning
+    private long spinThreshold = 250_000L;
+
+    /**
+     * Creates a hybrid park/spin pacer.
+     */
+    public FramePacer() {
+        this(true);
+    }
+
+    /**
+     * Creates a pacer.
+     *
+     * @param spinning Whether the end of each wait should be spun for precision. If
+     *                 {@code false}, the pacer only parks which uses the least CPU but
+     *                 may wake up a bit late.
+     */
+    public FramePacer(boolean spinning) {
+        this.spinning = spinning;
+    }
+
+    /**
+     * Creates a pacer from its start argument name.
+     *
+     * @param name Either {@code hybrid} or {@code sleep}.
+     * @return Returns the pacer or {@code null} if the name is unknown.
+     */
+    public static FramePacer forName(String name) {
+        if (name.equalsIgnoreCase("hybrid"))
+            return new FramePacer(true);
+        else if (name.equalsIgnoreCase("sleep"))
+            return new FramePacer(false);
+
+        return null;
+    }
+
+    /**
+     * Waits until {@link System#nanoTime()} reaches the given deadline. Returns straight away
+     * if the deadline has already passed.
+     *
+     * @param deadline The time, in nanoseconds, to wait for.
+     */
+    public void waitUntil(long deadline) {
+        long remaining = deadline - System.nanoTime();
+
+        while (remaining > 0) {
+            if (!spinning || remaining > spinThreshold) {
+                long parkTime = spinning ? remaining - spinThreshold : remaining;
+                long parkStart = System.nanoTime();
+
+                LockSupport.parkNanos(parkTime);
+
+                if (spinning)
+                    adjustThreshold(System.nanoTime() - parkStart - parkTime);
+            } else {
+                Thread.onSpinWait();
+            }
+
+            remaining = deadline - System.nanoTime();
+        }
+    }
+
+    /**
+     * Widens the spin window straight away when we woke up later than it allows and slowly
+     * narrows it again when the operating system wakes us up on time.
+     *
+     * @param oversleep How late, in nanoseconds, the last park woke up.
+     */
+    private void adjustThreshold(long oversleep) {
+        if (oversleep > spinThreshold)
+            spinThreshold = oversleep;
+        else
+            spinThreshold -= (spinThreshold - oversleep) >> 4;
+
+        if (spinThreshold < MIN_SPIN_THRESHOLD)
+            spinThreshold = MIN_SPIN_THRESHOLD;
+        else if (spinThreshold > MAX_SPIN_THRESHOLD)
+            spinThreshold = MAX_SPIN_THRESHOLD;
+    }
+
+    public boolean isSpinning() {
+        return spinning;
+    }
+
+    public long getSpinThreshold() {
+        return spinThreshold;
+    }
+}
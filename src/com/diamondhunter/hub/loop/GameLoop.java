@@ -0,0 +1,170 @@
+package com.diamondhunter.hub.loop;
+
+/**
+ * A {@code GameLoop} decides when the game should update and when it should render. The
+ * game itself does not care how that is decided, it only exposes a {@link Target} that the
+ * loop drives until {@link Target#isRunning()} returns {@code false}.
+ * <p>
+ * The loops that ship with the game can be selected by name at startup with the
+ * {@link #LOOP_ARGUMENT} argument (for example {@code -loop=variable}). Visit
+ * {@link Type} to see every available loop.
+ *
+ * @see FixedTimestepLoop
+ * @see VariableStepLoop
+ * @see ThreadedGameLoop
+ * @see UnlimitedLoop
+ * @see FramePacer
+ */
+public interface GameLoop {
+
+    /**
+     * The start argument used to select a game loop by its name.
+     */
+    String LOOP_ARGUMENT = "-loop=";
+
+    /**
+     * The start argument used to select how the loop waits between frames.
+     */
+    String PACER_ARGUMENT = "-pacer=";
+
+    /**
+     * Runs this loop on the calling thread until the target stops running.
+     *
+     * @param target The game that this loop drives.
+     */
+    void run(Target target);
+
+    /**
+     * Whether this loop updates and renders on different threads. If it does, the game
+     * must not read anything from the render thread that the update thread is changing
+     * and should hand its state over through snapshots instead.
+     *
+     * @return Returns {@code true} if updating and rendering happen on different threads.
+     */
+    default boolean isMultiThreaded() {
+        return false;
+    }
+
+    /**
+     * The game that is being driven by a {@code GameLoop}.
+     */
+    interface Target {
+
+        /**
+         * Whether the loop should keep on running.
+         *
+         * @return Returns {@code true} if the loop should keep running.
+         */
+        boolean isRunning();
+
+        /**
+         * Runs one simulation step (update and input) of the game.
+         *
+         * @param deltaSeconds The amount of game time, in seconds, covered by this step.
+         */
+        void update(double deltaSeconds);
+
+        /**
+         * Renders one frame of the game.
+         *
+         * @param alpha How far, from {@code 0} to {@code 1}, the rendered frame is between
+         *              the last simulation step and the next one. Renderers can use this to
+         *              interpolate positions so movement looks smooth at any frame rate.
+         */
+        void render(float alpha);
+
+        /**
+         * Whether the game is in the background (for example minimized). While it is, loops
+         * skip rendering and only update at the {@link #getBackgroundHertz() background
+         * rate}, blocking in {@link #awaitForeground(long)} between updates.
+         *
+         * @return Returns {@code true} if the game is in the background.
+         */
+        default boolean isInBackground() {
+            return false;
+        }
+
+        /**
+         * The updates per second to run while the game is in the background. Each of them
+         * covers the time until the next one, so the game keeps its speed.
+         *
+         * @return Returns the background update rate, or {@code 0} to not update at all.
+         */
+        default double getBackgroundHertz() {
+            return 0;
+        }
+
+        /**
+         * Blocks while the game is in the background, until it comes back to the foreground,
+         * stops running or the timeout runs out.
+         *
+         * @param timeoutNanos The longest time to wait, in nanoseconds, or {@code 0} to wait
+         *                     without a timeout.
+         */
+        default void awaitForeground(long timeoutNanos) {
+        }
+    }
+
+    /**
+     * All of the game loops that can be selected at startup.
+     */
+    enum Type {
+        FIXED("fixed", "Updates at a fixed rate and interpolates between updates when rendering."),
+        VARIABLE("variable", "Updates once per frame using the measured frame time."),
+        THREADED("threaded", "Updates at a fixed rate on a simulation thread and renders snapshots on another."),
+        UNLIMITED("unlimited", "Updates and renders back-to-back without waiting, for benchmarks and replays.");
+
+        private final String name;
+        private final String description;
+
+        Type(String name, String description) {
+            this.name = name;
+            this.description = description;
+        }
+
+        /**
+         * Creates a new loop of this type.
+         *
+         * @param hertz The target updates per second.
+         * @param fps   The target frames per second.
+         * @param pacer The pacer used to wait between frames.
+         * @return Returns the created loop.
+         */
+        public GameLoop create(double hertz, double fps, FramePacer pacer) {
+            switch (this) {
+                case VARIABLE:
+                    return new VariableStepLoop(fps, pacer);
+                case THREADED:
+                    return new ThreadedGameLoop(hertz, fps, pacer);
+                case UNLIMITED:
+                    return new UnlimitedLoop(hertz);
+                case FIXED:
+                default:
+                    return new FixedTimestepLoop(hertz, fps, pacer);
+            }
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        /**
+         * Finds the loop type with the given name.
+         *
+         * @param name The name of the loop, ignoring case.
+         * @return Returns the loop type or {@code null} if there is none with that name.
+         */
+        public static Type forName(String name) {
+            for (Type type : values()) {
+                if (type.name.equalsIgnoreCase(name))
+                    return type;
+            }
+
+            return null;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.diamondhunter.hub.loop;
+
+import com.diamondhunter.hub.DiamondHunter;
+import com.diamondhunter.util.logging.Logger;
+
+/**
+ * A game loop that updates and renders the game on two different threads.
+ * <p>
+ * Updates run on their own simulation thread at a fixed rate while the thread that runs
+ * this loop only renders. A slow frame (for example a slow blit to the screen) therefore
+ * never steals time from the simulation and the updates per second stay at their target
+ * even when rendering falls behind. The game is expected to hand its state over to the
+ * render thread through snapshots when {@link #isMultiThreaded()} is {@code true}.
+ * <p>
+ * The render thread interpolates using the time since the last update was published.
+ */
+public class ThreadedGameLoop implements GameLoop {
+
+    private final long timeBetweenUpdates;
+    private final long timeBetweenRenders;
+    private final int maxUpdatesBeforeWait;
+
+    private final FramePacer renderPacer;
+    private final FramePacer simulationPacer;
+
+    // The time that the last update finished at
+    private volatile long lastUpdateTime;
+
+    // Whether the simulation thread is still alive
+    private volatile boolean simulating;
+
+    public ThreadedGameLoop(double hertz, double fps, FramePacer pacer) {
+        this(hertz, fps, FixedTimestepLoop.DEFAULT_MAX_UPDATES_BEFORE_RENDER, pacer);
+    }
+
+    /**
+     * Creates a threaded loop.
+     *
+     * @param hertz                The amount of updates per second.
+     * @param fps                  The maximum amount of frames per second.
+     * @param maxUpdatesBeforeWait The maximum amount of updates that are run to catch up
+     *                             before the rest of the lost time is dropped.
+     * @param pacer                The pacer used to wait between frames. The simulation
+     *                             thread gets its own pacer of the same kind.
+     */
+    public ThreadedGameLoop(double hertz, double fps, int maxUpdatesBeforeWait, FramePacer pacer) {
+        this.timeBetweenUpdates = (long) (1000000000 / hertz);
+        this.timeBetweenRenders = (long) (1000000000 / fps);
+        this.maxUpdatesBeforeWait = Math.max(1, maxUpdatesBeforeWait);
+        this.renderPacer = pacer;
+        this.simulationPacer = new FramePacer(pacer.isSpinning());
+    }
+
+    @Override
+    public void run(Target target) {
+        lastUpdateTime = System.nanoTime();
+        simulating = true;
+
+        Thread simulationThread = new Thread(() -> simulate(target), Thread.currentThread().getName() + " - Simulation");
+        simulationThread.start();
+
+        long nextRenderTime = System.nanoTime();
+
+        while (target.isRunning() && simulating) {
+            // Nothing is rendered while nobody can see the game
+            if (BackgroundThrottle.idle(target, false)) {
+                nextRenderTime = System.nanoTime();
+                continue;
+            }
+
+            float alpha = (float) (System.nanoTime() - lastUpdateTime) / timeBetweenUpdates;
+            target.render(Math.min(alpha, 1.0f));
+
+            nextRenderTime += timeBetweenRenders;
+
+            // Don't try to make up frames that were never rendered
+            if (System.nanoTime() - nextRenderTime > timeBetweenRenders)
+                nextRenderTime = System.nanoTime();
+
+            renderPacer.waitUntil(nextRenderTime);
+        }
+
+        try {
+            simulationThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void simulate(Target target) {
+        final double deltaSeconds = timeBetweenUpdates / 1000000000.0;
+
+        long nextUpdateTime = System.nanoTime();
+
+        try {
+            while (target.isRunning()) {
+                if (BackgroundThrottle.idle(target, true)) {
+                    lastUpdateTime = System.nanoTime();
+                    nextUpdateTime = lastUpdateTime;
+                    continue;
+                }
+
+                int updateAmount = 0;
+
+                while (System.nanoTime() - nextUpdateTime >= 0 && updateAmount < maxUpdatesBeforeWait) {
+                    target.update(deltaSeconds);
+                    lastUpdateTime = System.nanoTime();
+
+                    nextUpdateTime += timeBetweenUpdates;
+                    updateAmount++;
+                }
+
+                // If we fell too far behind, don't try to catch up, just continue
+                if (System.nanoTime() - nextUpdateTime > timeBetweenUpdates)
+                    nextUpdateTime = System.nanoTime();
+
+                simulationPacer.waitUntil(nextUpdateTime);
+            }
+        } catch (RuntimeException e) {
+            DiamondHunter.getImplementation().getLogger().logLine(Logger.Level.ERROR, "The simulation thread crashed:");
+            e.printStackTrace();
+        } finally {
+            simulating = false;
+        }
+    }
+
+    @Override
+    public boolean isMultiThreaded() {
+        return true;
+    }
+
+    public long getTimeBetweenUpdates() {
+        return timeBetweenUpdates;
+    }
+
+    public long getTimeBetweenRenders() {
+        return timeBetweenRenders;
+    }
+}
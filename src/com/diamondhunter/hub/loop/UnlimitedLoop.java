@@ -0,0 +1,38 @@
+package com.diamondhunter.hub.loop;
+
+/**
+ * A game loop that never waits. Every iteration runs one update with a fixed delta and
+ * renders one frame, back-to-back, as fast as the computer allows.
+ * <p>
+ * Because the updates still use the fixed delta of the target update rate, the game
+ * simulates exactly like it would with {@link FixedTimestepLoop}, only faster. This makes
+ * it the loop to use for benchmarks and for replaying recorded input.
+ */
+public class UnlimitedLoop implements GameLoop {
+
+    private final double deltaSeconds;
+
+    /**
+     * Creates an unlimited loop.
+     *
+     * @param hertz The update rate that the simulation pretends to run at.
+     */
+    public UnlimitedLoop(double hertz) {
+        this.deltaSeconds = 1.0 / hertz;
+    }
+
+    @Override
+    public void run(Target target) {
+        while (target.isRunning()) {
+            if (BackgroundThrottle.idle(target, true))
+                continue;
+
+            target.update(deltaSeconds);
+            target.render(1.0f);
+        }
+    }
+
+    public double getDeltaSeconds() {
+        return deltaSeconds;
+    }
+}
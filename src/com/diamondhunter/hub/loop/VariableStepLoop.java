@@ -0,0 +1,70 @@
+package com.diamondhunter.hub.loop;
+
+/**
+ * A game loop that runs exactly one update per rendered frame. The update is given the
+ * measured time since the last frame, so the simulation speed follows the frame rate.
+ * <p>
+ * This is the simplest loop and it uses the least CPU, but anything in the game that
+ * counts updates instead of reading the delta time will speed up or slow down with the
+ * frame rate. Frames are capped at the target FPS.
+ */
+public class VariableStepLoop implements GameLoop {
+
+    /**
+     * The largest delta, in seconds, that an update is given. This stops the game from
+     * jumping forward after the window was dragged or the computer stalled.
+     */
+    public static final double MAX_DELTA_SECONDS = 0.25;
+
+    private final long timeBetweenRenders;
+    private final FramePacer pacer;
+
+    /**
+     * Creates a variable step loop.
+     *
+     * @param fps   The maximum amount of frames per second.
+     * @param pacer The pacer used to wait between frames.
+     */
+    public VariableStepLoop(double fps, FramePacer pacer) {
+        this.timeBetweenRenders = (long) (1000000000 / fps);
+        this.pacer = pacer;
+    }
+
+    @Override
+    public void run(Target target) {
+        long lastTime = System.nanoTime();
+        long nextFrameTime = lastTime;
+
+        while (target.isRunning()) {
+            // Barely run at all while nobody can see the game
+            if (BackgroundThrottle.idle(target, true)) {
+                lastTime = System.nanoTime();
+                nextFrameTime = lastTime;
+                continue;
+            }
+
+            long now = System.nanoTime();
+            double deltaSeconds = Math.min((now - lastTime) / 1000000000.0, MAX_DELTA_SECONDS);
+            lastTime = now;
+
+            target.update(deltaSeconds);
+            target.render(1.0f);
+
+            nextFrameTime += timeBetweenRenders;
+
+            // Don't try to make up frames that were never rendered
+            if (System.nanoTime() - nextFrameTime > timeBetweenRenders)
+                nextFrameTime = System.nanoTime();
+
+            pacer.waitUntil(nextFrameTime);
+        }
+    }
+
+    public long getTimeBetweenRenders() {
+        return timeBetweenRenders;
+    }
+
+    public FramePacer getPacer() {
+        return pacer;
+    }
+}
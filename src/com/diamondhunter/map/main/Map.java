@@ -1,9 +1,12 @@
 package com.diamondhunter.map.main;
 
+import com.diamondhunter.graphics.sprite.RenderQueue;
+import com.diamondhunter.map.tiled.layer.TiledTileLayer;
 import com.diamondhunter.map.tiled.map.TiledMap;
 import com.diamondhunter.util.input.KeyHandler;
 import com.diamondhunter.util.input.MouseHandler;
 import com.diamondhunter.util.loading.ResourceLoader;
+import com.diamondhunter.util.logic.Camera;
 import com.diamondhunter.util.logic.Vector2f;
 
 import java.awt.*;
@@ -18,11 +21,11 @@ public class Map {
     private TiledMap map;
 
     /**
-     * The position of the map on the screen. This can also be accessed
-     * by using {@link Vector2f#getWorldVar() getWorldVar()}. This variable
-     * is what changes the position of every entity on the screen.
+     * The position of the map on the screen. This is the position of the
+     * {@link Camera#getMainCamera() main camera}, which is what changes the
+     * position of every entity on the screen.
      *
-     * @see Vector2f#getWorldVar()
+     * @see Camera#getPosition()
      */
     private Vector2f pos;
 
@@ -38,8 +41,8 @@ public class Map {
     	// Load the map
         map = new TiledMap(path);
 
-        // Assign this world var to the current one
-        pos = Vector2f.getWorldVar();
+        // Assign this position to the camera's
+        pos = Camera.getMainCamera().getPosition();
     }
 
     public void input(KeyHandler keyHandler, MouseHandler mouseHandler) {
@@ -50,6 +53,10 @@ public class Map {
         map.render(g);
     }
 
+    public void render(RenderQueue queue) {
+        map.render(queue, 1, TiledTileLayer.class);
+    }
+
     public void update() {
 
     }
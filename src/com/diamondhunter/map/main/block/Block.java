@@ -1,5 +1,6 @@
 package com.diamondhunter.map.main.block;
 
+import com.diamondhunter.graphics.sprite.RenderQueue;
 import com.diamondhunter.graphics.sprite.Sprite;
 import com.diamondhunter.util.input.KeyHandler;
 import com.diamondhunter.util.input.MouseHandler;
@@ -20,7 +21,11 @@ public abstract class Block {
     public abstract void update();
     public void input(KeyHandler keyHandler, MouseHandler mouseHandler){}
     public void render(Graphics2D g){
-        sprite.render(g, pos.getWorldVector(), (int) getWidth(), (int) getHeight());
+        sprite.render(g, pos.getWorldX(), pos.getWorldY(), (int) getWidth(), (int) getHeight());
+    }
+
+    public void render(RenderQueue queue){
+        sprite.queue(queue, RenderQueue.MAP_LAYER, 0, pos.getWorldX(), pos.getWorldY(), (int) getWidth(), (int) getHeight());
     }
 
     public void setSprite(Sprite sprite) {
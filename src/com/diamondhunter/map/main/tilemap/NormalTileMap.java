@@ -16,17 +16,22 @@ public class NormalTileMap extends TileMap {
         super(map);
         this.layer = data.getLayer();
 
-        for (int i = 0; i < data.getSplitData().length; i++) {
-            String indexDataString = data.getSplitData()[i];
-            indexDataString = indexDataString.stripLeading().stripTrailing().trim();
-            long indexData = Long.parseLong(indexDataString);
-            TiledTile tile = this.layer.getTile(indexData);
+        createGrid(layer.getWidth(), layer.getHeight(), map.getTiledMap().getTileWidth(), map.getTiledMap().getTileHeight());
 
-            Vector2f pos = new Vector2f((i % layer.getWidth()) * tile.getTiledTileset().getTileWidth(), (i / layer.getWidth()) * tile.getTiledTileset().getTileHeight());
+        for (int i = 0; i < layer.getWidth() * layer.getHeight(); i++) {
+            TiledTile tile = map.getTiledMap().getTile(layer.getGid(i));
+
+            if (tile == null)
+                continue;
+
+            int x = i % layer.getWidth();
+            int y = i / layer.getWidth();
+
+            Vector2f pos = new Vector2f(x * tile.getTiledTileset().getTileWidth(), y * tile.getTiledTileset().getTileHeight());
             Sprite sprite = new Sprite(tile);
             Block block = new NormalBlock(pos, sprite);
             block.setScale(1);
-            blocks.put((i % layer.getWidth()) + "," + (i / layer.getWidth()), block);
+            setBlock(x, y, block);
         }
     }
 
@@ -1,37 +1,110 @@
 package com.diamondhunter.map.main.tilemap;
 
+import com.diamondhunter.graphics.sprite.RenderQueue;
 import com.diamondhunter.map.main.block.Block;
 import com.diamondhunter.util.input.KeyHandler;
 import com.diamondhunter.util.input.MouseHandler;
+import com.diamondhunter.util.logic.Camera;
 
 import java.awt.*;
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.util.Arrays;
 
 public abstract class TileMap {
 	protected com.diamondhunter.map.main.Map map;
-	protected Map<String, Block> blocks;
+
+	// The blocks laid out row by row, so the block at x, y is at x + y * columns. Only the
+	// rows and columns in view are visited when rendering.
+	protected Block[] blocks;
+	protected int columns, rows;
+	protected float cellWidth, cellHeight;
 
 	public TileMap(com.diamondhunter.map.main.Map map) {
 		this.map = map;
-		blocks = new LinkedHashMap<>();
+		blocks = new Block[0];
+	}
+
+	/**
+	 * Lays the blocks of this map out on a grid. Any blocks that were set before are removed.
+	 *
+	 * @param columns    The amount of columns
+	 * @param rows       The amount of rows
+	 * @param cellWidth  The width of a cell
+	 * @param cellHeight The height of a cell
+	 */
+	protected void createGrid(int columns, int rows, float cellWidth, float cellHeight) {
+		this.blocks = new Block[columns * rows];
+		this.columns = columns;
+		this.rows = rows;
+		this.cellWidth = cellWidth;
+		this.cellHeight = cellHeight;
 	}
 
 	public void render(Graphics2D g) {
-		for (Block block : blocks.values()) {
-			block.render(g);
+		render(g, Camera.getMainCamera());
+	}
+
+	/**
+	 * Renders the blocks of this map that the given camera can see.
+	 *
+	 * @param g      The graphics to render with
+	 * @param camera The camera to render from
+	 */
+	public void render(Graphics2D g, Camera camera) {
+		if (blocks.length == 0)
+			return;
+
+		int firstColumn = Math.max(0, camera.getFirstColumn(cellWidth));
+		int firstRow = Math.max(0, camera.getFirstRow(cellHeight));
+		int lastColumn = Math.min(columns - 1, camera.getLastColumn(cellWidth));
+		int lastRow = Math.min(rows - 1, camera.getLastRow(cellHeight));
+
+		for (int y = firstRow; y <= lastRow; y++) {
+			for (int x = firstColumn; x <= lastColumn; x++) {
+				Block block = blocks[x + y * columns];
+
+				if (block != null)
+					block.render(g);
+			}
+		}
+	}
+
+	/**
+	 * Adds the blocks of this map that the given camera can see to a render queue. Blocks
+	 * don't overlap, so the queue is free to group them by image.
+	 *
+	 * @param queue  The queue to render into
+	 * @param camera The camera to render from
+	 */
+	public void render(RenderQueue queue, Camera camera) {
+		if (blocks.length == 0)
+			return;
+
+		int firstColumn = Math.max(0, camera.getFirstColumn(cellWidth));
+		int firstRow = Math.max(0, camera.getFirstRow(cellHeight));
+		int lastColumn = Math.min(columns - 1, camera.getLastColumn(cellWidth));
+		int lastRow = Math.min(rows - 1, camera.getLastRow(cellHeight));
+
+		for (int y = firstRow; y <= lastRow; y++) {
+			for (int x = firstColumn; x <= lastColumn; x++) {
+				Block block = blocks[x + y * columns];
+
+				if (block != null)
+					block.render(queue);
+			}
 		}
 	}
 
 	public void update() {
-		for (Block block : blocks.values()) {
-			block.update();
+		for (Block block : blocks) {
+			if (block != null)
+				block.update();
 		}
 	}
 
 	public void input(KeyHandler keyHandler, MouseHandler mouseHandler) {
-		for (Block block : blocks.values()) {
-			block.input(keyHandler, mouseHandler);
+		for (Block block : blocks) {
+			if (block != null)
+				block.input(keyHandler, mouseHandler);
 		}
 	}
 
@@ -41,8 +114,8 @@ public abstract class TileMap {
 
 	@Override
 	public boolean equals(Object obj) {
-		if(obj instanceof Map){
-			return blocks.equals(obj);
+		if(obj instanceof TileMap){
+			return Arrays.equals(blocks, ((TileMap) obj).blocks);
 		} else if(obj instanceof com.diamondhunter.map.main.Map){
 			return map.equals(obj);
 		}
@@ -50,11 +123,48 @@ public abstract class TileMap {
 		return super.equals(obj);
 	}
 
-	public Map<String, Block> getBlocks() {
+	/**
+	 * The block at the given column and row.
+	 *
+	 * @param x The column of the block
+	 * @param y The row of the block
+	 * @return Returns the block or {@code null} if there is none.
+	 */
+	public Block getBlock(int x, int y) {
+		if (x < 0 || y < 0 || x >= columns || y >= rows)
+			return null;
+
+		return blocks[x + y * columns];
+	}
+
+	/**
+	 * Puts a block at the given column and row of this map.
+	 *
+	 * @param x     The column of the block
+	 * @param y     The row of the block
+	 * @param block The block or {@code null} to remove the block
+	 */
+	public void setBlock(int x, int y, Block block) {
+		if (x < 0 || y < 0 || x >= columns || y >= rows)
+			throw new IndexOutOfBoundsException("Block " + x + "," + y + " is outside of the map");
+
+		blocks[x + y * columns] = block;
+	}
+
+	/**
+	 * The blocks of this map, row by row. Empty cells are {@code null}.
+	 *
+	 * @return Returns the blocks of this map.
+	 */
+	public Block[] getBlocks() {
 		return blocks;
 	}
 
-	public void setBlocks(Map<String, Block> blocks) {
-		this.blocks = blocks;
+	public int getColumns() {
+		return columns;
+	}
+
+	public int getRows() {
+		return rows;
 	}
 }
@@ -34,6 +34,10 @@ public abstract class TiledLayer implements TiledPropertiable {
     // Whether the object is shown (1) or hidden (0). Defaults to 1.
     protected boolean visible;
 
+    // How fast the layer scrolls compared to the camera. Defaults to 1.
+    protected float parallaxX;
+    protected float parallaxY;
+
     // The name of the layer
     protected String name;
 
@@ -103,6 +107,16 @@ public abstract class TiledLayer implements TiledPropertiable {
         else
             this.opacity = 1;
 
+        if (layerElement.hasAttribute("parallaxx"))
+            this.parallaxX = Float.parseFloat(layerElement.getAttribute("parallaxx"));
+        else
+            this.parallaxX = 1;
+
+        if (layerElement.hasAttribute("parallaxy"))
+            this.parallaxY = Float.parseFloat(layerElement.getAttribute("parallaxy"));
+        else
+            this.parallaxY = 1;
+
         int visibleInt = layerElement.hasAttribute("visible") ? Integer.parseInt(layerElement.getAttribute("visible"))
                 : 1;
 
@@ -199,6 +213,14 @@ public abstract class TiledLayer implements TiledPropertiable {
         return opacity;
     }
 
+    public float getParallaxX() {
+        return parallaxX;
+    }
+
+    public float getParallaxY() {
+        return parallaxY;
+    }
+
     public boolean isVisible() {
         return visible;
     }
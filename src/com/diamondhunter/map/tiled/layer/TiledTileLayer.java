@@ -1,21 +1,65 @@
 package com.diamondhunter.map.tiled.layer;
 
+import java.awt.AlphaComposite;
 import java.awt.Graphics2D;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.util.List;
 import java.util.regex.Pattern;
 
+import com.diamondhunter.graphics.raster.Rasterizer;
+import com.diamondhunter.graphics.sprite.RenderQueue;
 import com.diamondhunter.map.tiled.map.TiledMap;
 import com.diamondhunter.map.tiled.tileset.TiledTile;
 import com.diamondhunter.map.tiled.tileset.TiledTileset;
+import com.diamondhunter.util.loading.ImageLoader;
+import com.diamondhunter.util.logic.Camera;
 import org.w3c.dom.Element;
 
+/**
+ * A layer of tiles in a {@link TiledMap}.
+ * <p>
+ * The tiles are stored as their gids, row by row, so the tile at {@code x, y} is the gid at
+ * {@code x + y * width}. A gid of {@code 0} means there is no tile. The tiles themselves are
+ * looked up with {@link TiledMap#getTile(int)}.
+ * <p>
+ * Drawing every tile on its own each frame costs one {@code drawImage} call per tile. The
+ * layer is instead baked into chunks of {@link #CHUNK_SIZE} by {@link #CHUNK_SIZE} tiles
+ * when it loads, and only the chunks that the {@link Camera} can see are drawn. A chunk is baked again
+ * the next time it is drawn after one of its tiles was {@link #setTile(int, int, TiledTile)
+ * changed}.
+ * <p>
+ * Tiles of a tileset with larger tiles than the map are drawn the way Tiled draws them: at
+ * their own size, with their bottom left corner on the bottom left corner of their cell, so
+ * they reach up and to the right into the cells next to them. Every chunk is made larger by
+ * the most that a tile of the map reaches out, so those tiles are not cut off at the edge
+ * of their chunk. Where such a tile reaches into another chunk, the chunk below or to the
+ * right of it is drawn over it, even if Tiled would draw the tile on top.
+ */
 public class TiledTileLayer extends TiledLayer {
 
+    /**
+     * The width and height, in tiles, of a chunk.
+     */
+    public static final int CHUNK_SIZE = 16;
+
+    // Tiled stores whether a tile is flipped in the highest bits of its gid
+    private static final long GID_MASK = 0x0FFFFFFFL;
+
     private TiledTileLayerData data;
-    private Map<String, TiledTile> tiles;
+    private int[] gids;
+
+    // Baked chunks, row by row. Chunks without tiles stay null
+    private BufferedImage[] chunks;
+    private boolean[] dirtyChunks;
+    private int chunkColumns, chunkRows;
+
+    // How far the largest tiles reach out of their cell, to the right and up
+    private int overhangX, overhangY;
 
     public TiledTileLayer(TiledMap map, File file, Element layerElement) {
         super(map, Type.TILE, file, layerElement);
@@ -39,72 +83,347 @@ public class TiledTileLayer extends TiledLayer {
         }
 
         data = new TiledTileLayerData(rawData, encoding);
+        gids = new int[width * height];
 
         if (encoding == Encoding.CSV) {
-            for (int i = 0; i < (width * height); i++) {
-                long tileGid = Long.parseLong(data.getSplitData()[i].trim());
-                TiledTile tile = null;
+            for (int i = 0; i < gids.length; i++) {
+                // Flipped tiles are drawn the normal way around
+                int gid = (int) (Long.parseLong(data.getSplitData()[i].trim()) & GID_MASK);
+
+                if (map.getTile(gid) != null)
+                    gids[i] = gid;
+            }
+        }
 
-                for (int j = 0; j < map.getTilesets().size(); j++) {
-                    TiledTileset tileset = map.getTileset(j);
+        // Bake the whole layer now so the first frames don't have to
+        chunkColumns = (width + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        chunkRows = (height + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        chunks = new BufferedImage[chunkColumns * chunkRows];
+        dirtyChunks = new boolean[chunks.length];
+        updateOverhang();
 
-                    if (tileset.containsTile(tileGid)) {
-                        tile = tileset.getTile(tileGid);
-                        break;
-                    }
-                }
+        for (int i = 0; i < chunks.length; i++)
+            bakeChunk(i % chunkColumns, i / chunkColumns);
+    }
+
+    @Override
+    public void render(Graphics2D g, float scale) {
+        render(g, scale, Camera.getMainCamera());
+    }
+
+    /**
+     * Renders the chunks of this layer that the given camera can see.
+     *
+     * @param g      The graphics to render with
+     * @param scale  The scale of the map
+     * @param camera The camera to render from
+     */
+    public void render(Graphics2D g, float scale, Camera camera) {
+        if (chunks == null)
+            return;
+
+        int chunkWidth = CHUNK_SIZE * map.getTileWidth();
+        int chunkHeight = CHUNK_SIZE * map.getTileHeight();
+
+        // Only draw the chunks that are in view
+        int firstColumn = Math.max(0, camera.getFirstColumn(chunkWidth * scale));
+        int firstRow = Math.max(0, camera.getFirstRow(chunkHeight * scale));
+        int lastColumn = Math.min(chunkColumns - 1, camera.getLastColumn(chunkWidth * scale));
+        int lastRow = Math.min(chunkRows - 1, camera.getLastRow(chunkHeight * scale));
+
+        // Large tiles reach into view from the chunks to the left and below
+        if (overhangX > 0)
+            firstColumn = Math.max(0, firstColumn - 1);
+
+        if (overhangY > 0)
+            lastRow = Math.min(chunkRows - 1, lastRow + 1);
+
+        int cameraX = (int) camera.getX();
+        int cameraY = (int) camera.getY();
+
+        for (int chunkY = firstRow; chunkY <= lastRow; chunkY++) {
+            for (int chunkX = firstColumn; chunkX <= lastColumn; chunkX++) {
+                int index = chunkX + chunkY * chunkColumns;
 
-                if (tile != null)
-                    tiles.put((i % width) + "," + (i / width), tile);
+                if (dirtyChunks[index])
+                    bakeChunk(chunkX, chunkY);
+
+                BufferedImage chunk = chunks[index];
+
+                if (chunk == null)
+                    continue;
+
+                // Work from the edges so scaled chunks never leave gaps between them
+                int x1 = (int) (chunkX * chunkWidth * scale);
+                int y1 = (int) ((chunkY * chunkHeight - overhangY) * scale);
+                int x2 = (int) ((chunkX * chunkWidth + chunk.getWidth()) * scale);
+                int y2 = (int) ((chunkY * chunkHeight - overhangY + chunk.getHeight()) * scale);
+
+                g.drawImage(chunk, x1 - cameraX, y1 - cameraY, x2 - x1, y2 - y1, null);
             }
         }
     }
 
-    public void render(Graphics2D g, float scale) {
-        for (Map.Entry<String, TiledTile> tilesEntry : tiles.entrySet()) {
-            if (tilesEntry.getValue() != null) {
-                String[] position = tilesEntry.getKey().split(Pattern.quote(","));
-                int x = Integer.parseInt(position[0]);
-                int y = Integer.parseInt(position[1]);
-
-                if (tilesEntry.getValue() != null)
-                    g.drawImage(tilesEntry.getValue().getImage(),
-                            (int) (x * tilesEntry.getValue().getTiledTileset().getTileWidth() * scale),
-                            (int) (y * tilesEntry.getValue().getTiledTileset().getTileHeight() * scale),
-                            (int) (tilesEntry.getValue().getTiledTileset().getTileWidth() * scale),
-                            (int) (tilesEntry.getValue().getTiledTileset().getTileHeight() * scale), null);
+    /**
+     * Adds the chunks of this layer that the given camera can see to a render queue, on the
+     * {@link RenderQueue#MAP_LAYER map layer}. Chunks that have to be baked again are baked
+     * straight away, so the queue only holds finished images.
+     *
+     * @param queue  The queue to render into
+     * @param depth  The depth of this layer, layers with a lower depth are drawn on top
+     * @param scale  The scale of the map
+     * @param camera The camera to render from
+     */
+    public void render(RenderQueue queue, float depth, float scale, Camera camera) {
+        if (chunks == null)
+            return;
+
+        int chunkWidth = CHUNK_SIZE * map.getTileWidth();
+        int chunkHeight = CHUNK_SIZE * map.getTileHeight();
+
+        int firstColumn = Math.max(0, camera.getFirstColumn(chunkWidth * scale));
+        int firstRow = Math.max(0, camera.getFirstRow(chunkHeight * scale));
+        int lastColumn = Math.min(chunkColumns - 1, camera.getLastColumn(chunkWidth * scale));
+        int lastRow = Math.min(chunkRows - 1, camera.getLastRow(chunkHeight * scale));
+
+        // Large tiles reach into view from the chunks to the left and below
+        if (overhangX > 0)
+            firstColumn = Math.max(0, firstColumn - 1);
+
+        if (overhangY > 0)
+            lastRow = Math.min(chunkRows - 1, lastRow + 1);
+
+        int cameraX = (int) camera.getX();
+        int cameraY = (int) camera.getY();
+
+        for (int chunkY = firstRow; chunkY <= lastRow; chunkY++) {
+            for (int chunkX = firstColumn; chunkX <= lastColumn; chunkX++) {
+                int index = chunkX + chunkY * chunkColumns;
+
+                if (dirtyChunks[index])
+                    bakeChunk(chunkX, chunkY);
+
+                BufferedImage chunk = chunks[index];
+
+                if (chunk == null)
+                    continue;
+
+                int x1 = (int) (chunkX * chunkWidth * scale);
+                int y1 = (int) ((chunkY * chunkHeight - overhangY) * scale);
+                int x2 = (int) ((chunkX * chunkWidth + chunk.getWidth()) * scale);
+                int y2 = (int) ((chunkY * chunkHeight - overhangY + chunk.getHeight()) * scale);
+
+                queue.submit(RenderQueue.MAP_LAYER, depth, chunk, x1 - cameraX, y1 - cameraY, x2 - x1, y2 - y1, AlphaComposite.SrcOver);
             }
         }
     }
 
+    /**
+     * Draws the whole layer into one image, for example to use it as a
+     * {@link com.diamondhunter.graphics.parallax.ParallaxLayer parallax layer}. If large tiles
+     * reach out of the layer, the image is made larger to the right and at the top so they
+     * fit, and the layer starts that far down in the image.
+     *
+     * @return Returns a new image of the layer or {@code null} if the layer has no tiles.
+     */
+    public BufferedImage toImage() {
+        if (chunks == null)
+            return null;
+
+        int chunkWidth = CHUNK_SIZE * map.getTileWidth();
+        int chunkHeight = CHUNK_SIZE * map.getTileHeight();
+
+        BufferedImage image = null;
+        Graphics2D g = null;
+
+        for (int index = 0; index < chunks.length; index++) {
+            int chunkX = index % chunkColumns;
+            int chunkY = index / chunkColumns;
+
+            if (dirtyChunks[index])
+                bakeChunk(chunkX, chunkY);
+
+            if (chunks[index] == null)
+                continue;
+
+            if (g == null) {
+                image = ImageLoader.createCompatibleImage(width * map.getTileWidth() + overhangX, height * map.getTileHeight() + overhangY, Transparency.TRANSLUCENT);
+                g = image.createGraphics();
+            }
+
+            g.drawImage(chunks[index], chunkX * chunkWidth, chunkY * chunkHeight, null);
+        }
+
+        if (g != null)
+            g.dispose();
+
+        return image;
+    }
+
+    private void bakeChunk(int chunkX, int chunkY) {
+        int index = chunkX + chunkY * chunkColumns;
+        int tileWidth = map.getTileWidth();
+        int tileHeight = map.getTileHeight();
+
+        int startX = chunkX * CHUNK_SIZE;
+        int startY = chunkY * CHUNK_SIZE;
+        int endX = Math.min(startX + CHUNK_SIZE, width);
+        int endY = Math.min(startY + CHUNK_SIZE, height);
+
+        dirtyChunks[index] = false;
+
+        BufferedImage chunk = chunks[index];
+        Graphics2D g = null;
+
+        for (int y = startY; y < endY; y++) {
+            for (int x = startX; x < endX; x++) {
+                TiledTile tile = map.getTile(gids[x + y * width]);
+
+                if (tile == null)
+                    continue;
+
+                if (g == null) {
+                    int chunkWidth = (endX - startX) * tileWidth + overhangX;
+                    int chunkHeight = (endY - startY) * tileHeight + overhangY;
+
+                    if (chunk == null || chunk.getWidth() != chunkWidth || chunk.getHeight() != chunkHeight)
+                        chunk = ImageLoader.createCompatibleImage(chunkWidth, chunkHeight, Transparency.TRANSLUCENT);
+                    else Rasterizer.invalidate(chunk);
+
+                    g = chunk.createGraphics();
+                    g.setComposite(AlphaComposite.Clear);
+                    g.fillRect(0, 0, chunk.getWidth(), chunk.getHeight());
+                    g.setComposite(AlphaComposite.SrcOver);
+                }
+
+                // Line the bottom of the tile up with the bottom of its cell, like Tiled does
+                TiledTileset tileset = tile.getTiledTileset();
+                int tileY = overhangY + (y - startY + 1) * tileHeight - tileset.getTileHeight();
+
+                g.drawImage(tile.getImage(), (x - startX) * tileWidth, tileY, tileset.getTileWidth(), tileset.getTileHeight(), null);
+            }
+        }
+
+        if (g != null)
+            g.dispose();
+
+        // Don't keep an image around for a chunk that has no tiles
+        chunks[index] = g == null ? null : chunk;
+    }
+
+    /*
+     * Finds how far the largest tiles of the tilesets of the map reach out of their cell.
+     */
+    private void updateOverhang() {
+        overhangX = 0;
+        overhangY = 0;
+
+        for (TiledTileset tileset : map.getTilesets()) {
+            overhangX = Math.max(overhangX, tileset.getTileWidth() - map.getTileWidth());
+            overhangY = Math.max(overhangY, tileset.getTileHeight() - map.getTileHeight());
+        }
+    }
+
+    /**
+     * Changes a tile of this layer. The chunk that holds the tile is baked again the next
+     * time it is drawn.
+     *
+     * @param x    The x position of the tile, in tiles
+     * @param y    The y position of the tile, in tiles
+     * @param tile The new tile or {@code null} to remove the tile
+     */
+    public void setTile(int x, int y, TiledTile tile) {
+        setGid(x, y, tile == null ? 0 : (int) tile.getGid());
+    }
+
+    /**
+     * Changes a tile of this layer by its gid. The chunk that holds the tile is baked again
+     * the next time it is drawn.
+     *
+     * @param x   The x position of the tile, in tiles
+     * @param y   The y position of the tile, in tiles
+     * @param gid The gid of the new tile or {@code 0} to remove the tile
+     */
+    public void setGid(int x, int y, int gid) {
+        if (x < 0 || y < 0 || x >= width || y >= height)
+            throw new IndexOutOfBoundsException("Tile " + x + "," + y + " is outside of the layer");
+
+        gids[x + y * width] = gid;
+
+        if (dirtyChunks != null)
+            dirtyChunks[x / CHUNK_SIZE + y / CHUNK_SIZE * chunkColumns] = true;
+    }
+
+    /**
+     * Bakes every chunk again the next time it is drawn, for example after the image of a
+     * tileset or the tilesets of the map changed.
+     */
+    public void invalidateChunks() {
+        if (dirtyChunks != null) {
+            updateOverhang();
+            Arrays.fill(dirtyChunks, true);
+        }
+    }
+
     @Override
     public void clearData() {
         super.clearData();
 
-        if (tiles == null)
-            tiles = new LinkedHashMap<>();
-        tiles.clear();
+        gids = null;
     }
 
     public TiledTile getTile(int x, int y) {
-        return tiles.get(x + "," + y);
+        return map.getTile(getGid(x, y));
     }
 
     public TiledTile getTile(int count) {
-        return getTile(count % width, count / width);
+        return map.getTile(getGid(count));
     }
 
     public TiledTile getTile(long tileGid) {
-        for (TiledTile tile : tiles.values()) {
-            if (tile.getGid() == tileGid)
-                return tile;
+        for (int i = 0; i < gids.length; i++) {
+            if (gids[i] == tileGid)
+                return map.getTile(gids[i]);
         }
 
         return null;
     }
 
+    /**
+     * The gid of the tile at the given position.
+     *
+     * @param x The x position of the tile, in tiles
+     * @param y The y position of the tile, in tiles
+     * @return Returns the gid or {@code 0} if there is no tile there.
+     */
+    public int getGid(int x, int y) {
+        if (gids == null || x < 0 || y < 0 || x >= width || y >= height)
+            return 0;
+
+        return gids[x + y * width];
+    }
+
+    /**
+     * The gid of the tile at the given index, counting row by row.
+     *
+     * @param count The index of the tile
+     * @return Returns the gid or {@code 0} if there is no tile there.
+     */
+    public int getGid(int count) {
+        return gids == null || count < 0 || count >= gids.length ? 0 : gids[count];
+    }
+
     public Collection<TiledTile> getTiles() {
-        return tiles.values();
+        List<TiledTile> tiles = new ArrayList<>();
+
+        for (int i = 0; gids != null && i < gids.length; i++) {
+            TiledTile tile = map.getTile(gids[i]);
+
+            if (tile != null)
+                tiles.add(tile);
+        }
+
+        return tiles;
     }
 
     public TiledTileLayerData getData() {
@@ -10,6 +10,7 @@ import com.diamondhunter.map.tiled.layer.TiledLayer;
 import com.diamondhunter.map.tiled.map.TiledMap;
 import com.diamondhunter.map.tiled.tileset.TiledTile;
 import com.diamondhunter.map.tiled.tileset.TiledTileset;
+import com.diamondhunter.util.logic.Camera;
 import org.w3c.dom.Element;
 import org.w3c.dom.NodeList;
 
@@ -89,11 +90,19 @@ public class TiledObjectGroup extends TiledLayer {
 
     @Override
     public void render(Graphics2D g, float scale) {
+        Camera camera = Camera.getMainCamera();
+        int cameraX = (int) camera.getX();
+        int cameraY = (int) camera.getY();
+
         if (objects != null && !objects.isEmpty()) {
             for (TiledObject object : objects) {
                 if (object != null) {
                     Rectangle bounds = object.getBounds();
-                    g.drawRect((int)(bounds.x * scale), (int)(bounds.y * scale), (int)(bounds.width * scale), (int)(bounds.height * scale));
+
+                    if (!camera.isVisible(bounds.x * scale, bounds.y * scale, bounds.width * scale, bounds.height * scale))
+                        continue;
+
+                    g.drawRect((int)(bounds.x * scale) - cameraX, (int)(bounds.y * scale) - cameraY, (int)(bounds.width * scale), (int)(bounds.height * scale));
 
                     if (object.getTileRefrenceGid() > 0) {
                         for (int i = 0; i < map.getTilesets().size(); i++) {
@@ -101,7 +110,8 @@ public class TiledObjectGroup extends TiledLayer {
 
                             if (tileset.containsTile(object.getTileRefrenceGid())) {
                                 TiledTile tile = tileset.getTile(object.getTileRefrenceGid());
-                                tile.render(g, scale, bounds.x, bounds.y);
+                                g.drawImage(tile.getImage(), (int) (bounds.x * scale) - cameraX, (int) (bounds.y * scale) - cameraY,
+                                        (int) (tile.getImage().getWidth() * scale), (int) (tile.getImage().getHeight() * scale), null);
                             }
                         }
                     }
@@ -17,6 +17,7 @@ import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 
+import com.diamondhunter.graphics.sprite.RenderQueue;
 import com.diamondhunter.map.tiled.layer.TiledLayer;
 import com.diamondhunter.map.tiled.layer.TiledTileLayer;
 import com.diamondhunter.map.tiled.layer.object.TiledObjectGroup;
@@ -24,8 +25,10 @@ import com.diamondhunter.map.tiled.property.TiledPropertiable;
 import com.diamondhunter.map.tiled.property.TiledProperties;
 import com.diamondhunter.map.tiled.property.TiledProperty;
 
+import com.diamondhunter.map.tiled.tileset.TiledTile;
 import com.diamondhunter.map.tiled.tileset.TiledTileset;
 import com.diamondhunter.util.loading.ResourceLoader;
+import com.diamondhunter.util.logic.Camera;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
@@ -47,6 +50,9 @@ public class TiledMap implements TiledPropertiable {
     private TiledProperties properties;
 
     private List<TiledTileset> tilesets;
+
+    // Every tile of every tileset, indexed by gid
+    private TiledTile[] tilesByGid;
     private List<TiledLayer> layers;
 
     public TiledMap() {
@@ -170,6 +176,8 @@ public class TiledMap implements TiledPropertiable {
             tilesets.add(new TiledTileset(this, firstgid, tilesetElement));
         }
 
+        createTileLookup();
+
         // Layers
 
         // Tile layer
@@ -203,6 +211,31 @@ public class TiledMap implements TiledPropertiable {
         // Data clearing
         tilesets.clear();
         layers.clear();
+        tilesByGid = null;
+    }
+
+    private void createTileLookup() {
+        long lastGid = 0;
+
+        for (TiledTileset tileset : tilesets)
+            lastGid = Math.max(lastGid, tileset.getLastGid());
+
+        tilesByGid = new TiledTile[(int) lastGid + 1];
+
+        for (TiledTileset tileset : tilesets) {
+            for (long gid = tileset.getFirstGid(); gid <= tileset.getLastGid(); gid++)
+                tilesByGid[(int) gid] = tileset.getTile(gid);
+        }
+    }
+
+    /**
+     * Finds the tile with the given gid in any of the tilesets of this map.
+     *
+     * @param gid The gid of the tile, {@code 0} for no tile
+     * @return Returns the tile or {@code null} if there is none with that gid.
+     */
+    public TiledTile getTile(int gid) {
+        return gid > 0 && tilesByGid != null && gid < tilesByGid.length ? tilesByGid[gid] : null;
     }
 
     public void render(Graphics2D g, float scale, Class<? extends TiledLayer>... layerClasses) {
@@ -217,6 +250,24 @@ public class TiledMap implements TiledPropertiable {
         render(g, 1, layerClasses);
     }
 
+    /**
+     * Adds the tile layers of this map to a render queue. Later layers are drawn on top of
+     * earlier ones. Object groups cannot be queued and are left out.
+     *
+     * @param queue        The queue to render into
+     * @param scale        The scale to render at
+     * @param layerClasses The kinds of layers to render
+     */
+    @SafeVarargs
+    public final void render(RenderQueue queue, float scale, Class<? extends TiledLayer>... layerClasses) {
+        TiledLayer[] layers = getLayers(layerClasses);
+
+        for (int i = 0; i < layers.length; i++) {
+            if (layers[i] instanceof TiledTileLayer)
+                ((TiledTileLayer) layers[i]).render(queue, layers.length - i, scale, Camera.getMainCamera());
+        }
+    }
+
     public TiledLayer[] getLayers(Class<? extends TiledLayer>... layerClasses) {
         List<TiledLayer> layers = new LinkedList<>();
 
@@ -293,6 +344,14 @@ public class TiledMap implements TiledPropertiable {
         return file;
     }
 
+    public int getTileWidth() {
+        return tileWidth;
+    }
+
+    public int getTileHeight() {
+        return tileHeight;
+    }
+
     /**
      * {@inheritDoc}
      */
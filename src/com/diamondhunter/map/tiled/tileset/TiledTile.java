@@ -4,6 +4,7 @@ import com.diamondhunter.map.tiled.layer.object.TiledObjectGroup;
 import com.diamondhunter.map.tiled.map.TiledMap;
 import com.diamondhunter.map.tiled.property.TiledPropertiable;
 import com.diamondhunter.map.tiled.property.TiledProperties;
+import com.diamondhunter.util.loading.ImageLoader;
 
 import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
@@ -27,11 +28,12 @@ public class TiledTile implements TiledPropertiable {
         this.tileset = tileset;
         this.gid = gid;
         this.objectGroup = objectGroup;
-        int intGid = (int) (gid - 1);
+        int intGid = (int) (gid - tileset.getFirstGid());
 
-        image = tileset.getImage().getSubimage(intGid % tileset.getTileColumns() * tileset.getTileWidth(),
+        // Copied so every tile can be cached in video memory on its own
+        image = ImageLoader.copyCompatibleImage(tileset.getImage().getSubimage(intGid % tileset.getTileColumns() * tileset.getTileWidth(),
                 intGid / tileset.getTileColumns() * tileset.getTileHeight(), tileset.getTileWidth(),
-                tileset.getTileHeight());
+                tileset.getTileHeight()));
         clearData();
     }
 
@@ -8,7 +8,6 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
-import javax.imageio.ImageIO;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
@@ -19,6 +18,7 @@ import com.diamondhunter.map.tiled.map.TiledMap;
 import com.diamondhunter.map.tiled.property.TiledPropertiable;
 import com.diamondhunter.map.tiled.property.TiledProperties;
 import com.diamondhunter.map.tiled.property.TiledProperty;
+import com.diamondhunter.util.loading.ImageLoader;
 import com.diamondhunter.util.logging.Logger;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
@@ -49,6 +49,9 @@ public class TiledTileset implements TiledPropertiable {
 
     private Set<TiledTile> tiles;
 
+    // The tiles in gid order, starting at the first gid
+    private TiledTile[] tilesByGid;
+
     public TiledTileset(TiledMap map, long firstgid, Element tilesetElement) {
         this.map = map;
         this.firstgid = firstgid;
@@ -130,7 +133,8 @@ public class TiledTileset implements TiledPropertiable {
         if (tileNodes.getLength() > 0) {
             for (int i = 0; i < tileNodes.getLength(); i++) {
                 Element tileElement = (Element) tileNodes.item(i);
-                long gid = Long.parseLong(tileElement.getAttribute("id"));
+                // Tile ids are local to the tileset
+                long gid = firstgid + Long.parseLong(tileElement.getAttribute("id"));
                 TiledTile tile = getTile(gid);
 
                 // Load tile properties
@@ -197,11 +201,7 @@ public class TiledTileset implements TiledPropertiable {
 
         imagePath = new File("F:\\Users\\alvyn\\Documents\\Diamond Hunter\\out\\production\\Diamond Hunter\\game\\map\\map-tileset-formatted.png");
 
-        try {
-            this.image = ImageIO.read(imagePath);
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+        this.image = ImageLoader.loadImage(imagePath);
 
         int tileAmountWidth = image.getWidth() / tileWidth;
         int tileAmountHeight = image.getHeight() / tileHeight;
@@ -209,10 +209,14 @@ public class TiledTileset implements TiledPropertiable {
         this.tileRows = tileAmountHeight;
 
         this.lastgid = tileAmountWidth * tileAmountHeight + firstgid - 1;
+        this.tilesByGid = new TiledTile[tileAmountWidth * tileAmountHeight];
 
         for (int y = 0; y < tileAmountHeight; y++) {
             for (int x = 0; x < tileAmountWidth; x++) {
-                tiles.add(new TiledTile(map, this, firstgid + (x + y * tileAmountWidth), null, new TiledProperties()));
+                TiledTile tile = new TiledTile(map, this, firstgid + (x + y * tileAmountWidth), null, new TiledProperties());
+
+                tiles.add(tile);
+                tilesByGid[x + y * tileAmountWidth] = tile;
             }
         }
     }
@@ -229,6 +233,7 @@ public class TiledTileset implements TiledPropertiable {
             tiles = ConcurrentHashMap.newKeySet();
 
         tiles.clear();
+        tilesByGid = null;
     }
 
     public TiledMap getTiledMap() {
@@ -248,12 +253,10 @@ public class TiledTileset implements TiledPropertiable {
     }
 
     public TiledTile getTile(long gid) {
-        for (TiledTile tile : getTiles()) {
-            if (tile.getGid() == gid)
-                return tile;
-        }
+        if (tilesByGid == null || !containsTile(gid))
+            return null;
 
-        return null;
+        return tilesByGid[(int) (gid - firstgid)];
     }
 
     public long getFirstGid() {
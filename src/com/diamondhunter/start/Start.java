@@ -1,24 +1,203 @@
 package com.diamondhunter.start;
 
+import com.diamondhunter.graphics.sprite.Sprite;
 import com.diamondhunter.hub.DiamondHunter;
+import com.diamondhunter.hub.loop.FramePacer;
+import com.diamondhunter.hub.loop.GameLoop;
+import com.diamondhunter.util.input.InputRecorder;
+import com.diamondhunter.util.input.InputReplayer;
+import com.diamondhunter.util.logging.Logger;
 
 import javax.swing.*;
+import java.io.File;
+import java.io.IOException;
 
 public class Start {
 
     public Start(String[] args) {
-        // Check for debug mode start
-        if (args.length == 1) { // Check if there is only 1 argument. Could change later for debug password
-            if (args[0].equalsIgnoreCase(DiamondHunter.getDebugModeArgument())) {
+        DiamondHunter diamondHunter = DiamondHunter.getImplementation();
+
+        GameLoop.Type loopType = null;
+        FramePacer pacer = new FramePacer();
+        boolean renderScaleSelected = false;
+
+        for (String arg : args) {
+            // Check for debug mode start
+            if (arg.equalsIgnoreCase(DiamondHunter.getDebugModeArgument())) {
                 DiamondHunter.setDebugMode(true);
+            } else if (arg.equalsIgnoreCase(DiamondHunter.getHeadlessModeArgument())) {
+                // Check for headless mode start
+                DiamondHunter.setHeadlessMode(true);
+            } else if (arg.toLowerCase().startsWith(DiamondHunter.getTickLimitArgument())) {
+                // Check for a limit on the amount of updates to run
+                String ticks = arg.substring(DiamondHunter.getTickLimitArgument().length());
+
+                try {
+                    diamondHunter.setTickLimit(Long.parseLong(ticks));
+                } catch (NumberFormatException e) {
+                    diamondHunter.getLogger().logLine(Logger.Level.WARNING, "Invalid tick limit: \"" + ticks + "\"");
+                }
+            } else if (arg.toLowerCase().startsWith(DiamondHunter.getProfileArgument())) {
+                // Check for profiling, with "-profile=<file>" saving the profile on exit
+                diamondHunter.getProfiler().setEnabled(true);
+
+                if (arg.startsWith("=", DiamondHunter.getProfileArgument().length()))
+                    diamondHunter.getProfiler().setExportFile(new File(arg.substring(DiamondHunter.getProfileArgument().length() + 1)));
+            } else if (arg.toLowerCase().startsWith(DiamondHunter.getDisplayArgument())) {
+                // Check for the way frames are shown, "canvas" to page flip or "panel" to copy them
+                String name = arg.substring(DiamondHunter.getDisplayArgument().length());
+
+                if (name.equalsIgnoreCase("canvas"))
+                    diamondHunter.setPageFlipping(true);
+                else if (name.equalsIgnoreCase("panel"))
+                    diamondHunter.setPageFlipping(false);
+                else diamondHunter.getLogger().logLine(Logger.Level.WARNING, "Unknown display: \"" + name + "\"");
+            } else if (arg.equalsIgnoreCase(DiamondHunter.getVolatileSpritesArgument())) {
+                // Check for drawing hot sprites from video memory
+                Sprite.setVolatileImagesEnabled(true);
+            } else if (arg.toLowerCase().startsWith(DiamondHunter.getSpriteCacheArgument())) {
+                // Check for the megabytes that scaled copies of sprites may take up, 0 to not keep any
+                String megabytes = arg.substring(DiamondHunter.getSpriteCacheArgument().length());
+
+                try {
+                    Sprite.getScaledImageCache().setCapacity(Long.parseLong(megabytes) * 1024 * 1024);
+                } catch (IllegalArgumentException e) {
+                    diamondHunter.getLogger().logLine(Logger.Level.WARNING, "Invalid sprite cache size: \"" + megabytes + "\"");
+                }
+            } else if (arg.toLowerCase().startsWith(DiamondHunter.getTextureAtlasArgument())) {
+                // Check for the size of the texture atlas pages, 0 to give every sprite its own image
+                String size = arg.substring(DiamondHunter.getTextureAtlasArgument().length());
+
+                try {
+                    Sprite.getTextureAtlas().setPageSize(Integer.parseInt(size));
+                } catch (IllegalArgumentException e) {
+                    diamondHunter.getLogger().logLine(Logger.Level.WARNING, "Invalid texture atlas size: \"" + size + "\"");
+                }
+            } else if (arg.equalsIgnoreCase(DiamondHunter.getDamageTrackingArgument())) {
+                // Check for only drawing the parts of the screen that changed
+                diamondHunter.setDamageTracking(true);
+            } else if (arg.equalsIgnoreCase(DiamondHunter.getSoftwareRendererArgument())) {
+                // Check for drawing sprites straight into the pixels of the display
+                diamondHunter.setSoftwareRendering(true);
+            } else if (arg.toLowerCase().startsWith(DiamondHunter.getBuffersArgument())) {
+                // Check for the amount of buffers to page flip between
+                String buffers = arg.substring(DiamondHunter.getBuffersArgument().length());
+
+                try {
+                    diamondHunter.setBufferCount(Integer.parseInt(buffers));
+                } catch (IllegalArgumentException e) {
+                    diamondHunter.getLogger().logLine(Logger.Level.WARNING, "Invalid buffer count: \"" + buffers + "\"");
+                }
+            } else if (arg.toLowerCase().startsWith(DiamondHunter.getRenderBandsArgument())) {
+                // Check for drawing frames in parallel bands, "auto" for one band per core
+                String bands = arg.substring(DiamondHunter.getRenderBandsArgument().length());
+
+                try {
+                    if (bands.equalsIgnoreCase("auto"))
+                        diamondHunter.setRenderBands(Runtime.getRuntime().availableProcessors());
+                    else diamondHunter.setRenderBands(Integer.parseInt(bands));
+                } catch (IllegalArgumentException e) {
+                    diamondHunter.getLogger().logLine(Logger.Level.WARNING, "Invalid render band count: \"" + bands + "\"");
+                }
+            } else if (arg.toLowerCase().startsWith(DiamondHunter.getBackgroundHertzArgument())) {
+                // Check for a different update rate while in the background
+                String hertz = arg.substring(DiamondHunter.getBackgroundHertzArgument().length());
+
+                try {
+                    diamondHunter.setBackgroundHertz(Double.parseDouble(hertz));
+                } catch (IllegalArgumentException e) {
+                    diamondHunter.getLogger().logLine(Logger.Level.WARNING, "Invalid background update rate: \"" + hertz + "\"");
+                }
+            } else if (arg.toLowerCase().startsWith(DiamondHunter.getRenderScaleArgument())) {
+                // Check for a fixed render scale, or "auto" to adapt it to the frame time
+                String scale = arg.substring(DiamondHunter.getRenderScaleArgument().length());
+
+                try {
+                    if (scale.equalsIgnoreCase("auto")) {
+                        diamondHunter.setAdaptiveResolution(true);
+                    } else {
+                        diamondHunter.setRenderScale(Float.parseFloat(scale));
+                        diamondHunter.setAdaptiveResolution(false);
+                    }
+
+                    renderScaleSelected = true;
+                } catch (IllegalArgumentException e) {
+                    diamondHunter.getLogger().logLine(Logger.Level.WARNING, "Invalid render scale: \"" + scale + "\"");
+                }
+            } else if (arg.toLowerCase().startsWith(DiamondHunter.getPixelScaleArgument())) {
+                // Check for rendering at a low resolution that is scaled up by a whole number, for pixel art. Only divisors
+                // of the scale the sprites are drawn at are accepted, so every sprite keeps even pixels
+                String scale = arg.substring(DiamondHunter.getPixelScaleArgument().length());
+
+                try {
+                    diamondHunter.setPixelScale(Integer.parseInt(scale));
+                } catch (IllegalArgumentException e) {
+                    diamondHunter.getLogger().logLine(Logger.Level.WARNING, "Invalid pixel scale: \"" + scale + "\"");
+                }
+            } else if (arg.toLowerCase().startsWith(DiamondHunter.getRecordArgument())) {
+                // Check for input recording
+                File file = new File(arg.substring(DiamondHunter.getRecordArgument().length()));
+
+                try {
+                    diamondHunter.setInputRecorder(new InputRecorder(file, DiamondHunter.getTargetHertz()));
+                } catch (IOException e) {
+                    diamondHunter.getLogger().logLine(Logger.Level.ERROR, "Could not record input to \"" + file.getPath() + "\"");
+                }
+            } else if (arg.toLowerCase().startsWith(DiamondHunter.getReplayArgument())) {
+                // Check for input replaying
+                File file = new File(arg.substring(DiamondHunter.getReplayArgument().length()));
+
+                try {
+                    InputReplayer replayer = new InputReplayer(file);
+
+                    if (replayer.getHertz() != DiamondHunter.getTargetHertz())
+                        diamondHunter.getLogger().logLine(Logger.Level.WARNING, "\"" + file.getPath() + "\" was recorded at "
+                                + replayer.getHertz() + " UPS, the replay may not match");
+
+                    diamondHunter.setInputReplayer(replayer);
+                } catch (IOException e) {
+                    diamondHunter.getLogger().logLine(Logger.Level.ERROR, "Could not replay input from \"" + file.getPath() + "\": " + e.getMessage());
+                }
+            } else if (arg.toLowerCase().startsWith(GameLoop.LOOP_ARGUMENT)) {
+                // Check for a different game loop
+                String name = arg.substring(GameLoop.LOOP_ARGUMENT.length());
+                GameLoop.Type type = GameLoop.Type.forName(name);
+
+                if (type == null)
+                    diamondHunter.getLogger().logLine(Logger.Level.WARNING, "Unknown game loop: \"" + name + "\"");
+                else loopType = type;
+            } else if (arg.toLowerCase().startsWith(GameLoop.PACER_ARGUMENT)) {
+                // Check for a different frame pacer
+                String name = arg.substring(GameLoop.PACER_ARGUMENT.length());
+                FramePacer namedPacer = FramePacer.forName(name);
+
+                if (namedPacer == null)
+                    diamondHunter.getLogger().logLine(Logger.Level.WARNING, "Unknown frame pacer: \"" + name + "\"");
+                else pacer = namedPacer;
             }
         }
 
+        // Benchmarks should render at the same resolution every run unless asked otherwise
+        if (DiamondHunter.isHeadlessMode() && !renderScaleSelected)
+            diamondHunter.setAdaptiveResolution(false);
+
+        // Replays run as fast as possible unless another loop was selected
+        if (loopType == null)
+            loopType = diamondHunter.getInputReplayer() != null ? GameLoop.Type.UNLIMITED : GameLoop.Type.FIXED;
+
+        diamondHunter.setGameLoop(loopType.create(DiamondHunter.getTargetHertz(), DiamondHunter.getTargetFPS(), pacer));
+
         // Start the game
-        DiamondHunter.getImplementation().start();
+        diamondHunter.start();
     }
 
     public static void main(String[] args) {
+        // AWT has to know it is headless before anything touches the toolkit
+        for (String arg : args) {
+            if (arg.equalsIgnoreCase(DiamondHunter.getHeadlessModeArgument()))
+                System.setProperty("java.awt.headless", "true");
+        }
+
         SwingUtilities.invokeLater(() -> new Start(args));
     }
 }
@@ -1,5 +1,7 @@
 package com.diamondhunter.state.base;
 
+import com.diamondhunter.graphics.sprite.RenderQueue;
+import com.diamondhunter.graphics.window.DirtyRegions;
 import com.diamondhunter.util.input.KeyHandler;
 import com.diamondhunter.util.input.MouseHandler;
 
@@ -50,6 +52,46 @@ public abstract class State {
 
     public abstract void render(Graphics2D g);
 
+    /**
+     * Renders this state in between two updates. States that move things around can
+     * override this to interpolate their positions, otherwise this is the same as
+     * {@link #render(Graphics2D)}.
+     *
+     * @param g     The graphics to render with
+     * @param alpha How far, from {@code 0} to {@code 1}, this frame is between the last
+     *              update and the next one
+     */
+    public void render(Graphics2D g, float alpha) {
+        render(g);
+    }
+
+    /**
+     * Adds everything this state draws to a render queue instead of drawing it straight
+     * away, which lets the frame be drawn in parallel bands. States that are drawn on top
+     * of each other must use different layers or depths. By default a state cannot do this
+     * and is rendered with {@link #render(Graphics2D, float)} instead.
+     *
+     * @param queue The queue to render into
+     * @param alpha How far, from {@code 0} to {@code 1}, this frame is between the last
+     *              update and the next one
+     * @return Returns {@code false} if this state can only render with graphics.
+     */
+    public boolean render(RenderQueue queue, float alpha) {
+        return false;
+    }
+
+    /**
+     * Adds the parts of the screen that this state changed since it was last rendered, when
+     * the display {@link com.diamondhunter.graphics.window.Display#isDamageTracking() only
+     * draws what changed}. States that don't keep track of what they change redraw the
+     * whole screen, which is what this does by default.
+     *
+     * @param regions The dirty regions of the next frame
+     */
+    public void addDamage(DirtyRegions regions) {
+        regions.addAll();
+    }
+
     public StateManager getManager() {
         return manager;
     }
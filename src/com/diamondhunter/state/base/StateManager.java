@@ -1,11 +1,15 @@
 package com.diamondhunter.state.base;
 
+import com.diamondhunter.graphics.sprite.RenderQueue;
+import com.diamondhunter.graphics.window.DirtyRegions;
 import com.diamondhunter.util.input.KeyHandler;
 import com.diamondhunter.util.input.MouseHandler;
+import com.diamondhunter.util.profiling.FrameProfiler;
 
 import java.awt.Graphics2D;
 import java.lang.reflect.Array;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArraySet;
 
 public final class StateManager {
 
@@ -15,6 +19,14 @@ public final class StateManager {
 
     private State fallBack;
 
+    // Set when a state was activated or deactivated, which changes the whole screen
+    private volatile boolean statesChanged = true;
+
+    // Profiling
+    private FrameProfiler profiler;
+    private Map<State, FrameProfiler.Phase> updatePhases;
+    private Map<State, FrameProfiler.Phase> renderPhases;
+
     public StateManager() {
         this(null);
     }
@@ -22,18 +34,29 @@ public final class StateManager {
     public StateManager(State fallback) {
         this.fallBack = fallback;
 
-        existingStates = new LinkedHashSet<>();
-        activeStates = new LinkedHashSet<>();
+        // States can be rendered by a different thread than the one that changes them
+        existingStates = new CopyOnWriteArraySet<>();
+        activeStates = new CopyOnWriteArraySet<>();
         pendingStates = new PriorityQueue<>();
 
+        // Each map is only used by the thread that updates or renders
+        profiler = new FrameProfiler();
+        updatePhases = new HashMap<>();
+        renderPhases = new HashMap<>();
+
         if (fallback != null)
             addExistingState(fallback);
     }
 
     public void update() {
         for (State state : activeStates) {
-            if (!state.isPaused())
+            if (!state.isPaused()) {
+                FrameProfiler.Phase phase = getPhase(updatePhases, state, "update ");
+
+                phase.begin();
                 state.update();
+                phase.end();
+            }
         }
     }
 
@@ -44,11 +67,98 @@ public final class StateManager {
     }
 
     public void render(Graphics2D g) {
+        render(g, 1.0f);
+    }
+
+    public void render(Graphics2D g, float alpha) {
         for (State state : activeStates) {
-            state.render(g);
+            FrameProfiler.Phase phase = getPhase(renderPhases, state, "render ");
+
+            phase.begin();
+            state.render(g, alpha);
+            phase.end();
+        }
+    }
+
+    /**
+     * Adds the parts of the screen that the active states changed since they were last
+     * rendered. If a state was activated or deactivated since then, all of it changed.
+     *
+     * @param regions The dirty regions of the next frame
+     */
+    public void collectDamage(DirtyRegions regions) {
+        if (statesChanged) {
+            statesChanged = false;
+            regions.addAll();
+            return;
+        }
+
+        for (State state : activeStates)
+            state.addDamage(regions);
+    }
+
+    /**
+     * Adds the active states to a render queue. States that cannot render into a queue are
+     * rendered with the graphics, after the queue was flushed so they end up on top of the
+     * states before them.
+     *
+     * @param queue The queue to render into
+     * @param g     The graphics to render the other states with
+     * @param alpha How far, from {@code 0} to {@code 1}, this frame is between the last
+     *              update and the next one
+     */
+    public void render(RenderQueue queue, Graphics2D g, float alpha) {
+        for (State state : activeStates) {
+            FrameProfiler.Phase phase = getPhase(renderPhases, state, "render ");
+
+            phase.begin();
+
+            if (!state.render(queue, alpha)) {
+                queue.flush(g);
+                state.render(g, alpha);
+            }
+
+            phase.end();
         }
     }
 
+    /**
+     * Captures what the active states draw into the given snapshot so that they can be
+     * rendered by another thread. This must be called by the thread that updates the states.
+     *
+     * @param snapshot The snapshot to capture into
+     * @param tick     The update that the snapshot is captured from
+     */
+    public void snapshot(StateSnapshot snapshot, long tick) {
+        snapshot.clear(tick);
+
+        for (State state : activeStates)
+            snapshot.capture(state);
+    }
+
+    private FrameProfiler.Phase getPhase(Map<State, FrameProfiler.Phase> phases, State state, String prefix) {
+        FrameProfiler.Phase phase = phases.get(state);
+
+        if (phase == null) {
+            phase = profiler.getPhase(prefix + state.getClass().getSimpleName());
+            phases.put(state, phase);
+        }
+
+        return phase;
+    }
+
+    public FrameProfiler getProfiler() {
+        return profiler;
+    }
+
+    public void setProfiler(FrameProfiler profiler) {
+        this.profiler = profiler;
+
+        // The old phases belong to the old profiler
+        updatePhases = new HashMap<>();
+        renderPhases = new HashMap<>();
+    }
+
     public void addExistingState(State state) {
         existingStates.add(state);
     }
@@ -60,7 +170,9 @@ public final class StateManager {
 
     public void addActiveState(State state) {
         addExistingState(state);
-        activeStates.add(state);
+
+        if (activeStates.add(state))
+            statesChanged = true;
     }
 
     @Deprecated
@@ -85,8 +197,11 @@ public final class StateManager {
     }
 
     public void removeActiveState(State state) {
-        if (activeStates.remove(state) && !pendingStates.isEmpty()) {
-            activeStates.add(pendingStates.poll());
+        if (activeStates.remove(state)) {
+            statesChanged = true;
+
+            if (!pendingStates.isEmpty())
+                activeStates.add(pendingStates.poll());
         }
     }
 
@@ -0,0 +1,123 @@
+package com.diamondhunter.state.base;
+
+import com.diamondhunter.graphics.sprite.RenderQueue;
+
+import java.awt.*;
+import java.util.Arrays;
+
+/**
+ * A {@code StateSnapshot} is what the active states of a {@link StateManager} drew at one
+ * point in time. It is captured by the simulation thread with
+ * {@link StateManager#snapshot(StateSnapshot, long)} and then rendered by the render thread,
+ * so the render thread never reads a state while it is being updated.
+ * <p>
+ * Every state is captured by rendering it into a {@link RenderQueue} of its own at the end
+ * of an update, with an interpolation of {@code 1}. The commands hold the images and the
+ * on-screen positions of that update, including the position of the camera that they were
+ * culled and offset with, so they line up with an
+ * {@link com.diamondhunter.entity.base.EntitySnapshot} captured in the same update.
+ * <p>
+ * States that cannot render into a queue cannot be captured. They are rendered by the
+ * render thread itself, in their place between the others, so in a game loop that renders
+ * on another thread they must be safe to render while they are updated.
+ * <p>
+ * Snapshots are reused to avoid creating garbage every update. A snapshot is only written
+ * to by the simulation thread while it owns it and it is never changed again once it has
+ * been handed to the render thread (see
+ * {@link com.diamondhunter.util.concurrent.TripleBuffer}).
+ */
+public final class StateSnapshot {
+
+    private static final int DEFAULT_CAPACITY = 4;
+
+    // The commands of every captured state, in the order the states are rendered in
+    private RenderQueue[] queues = new RenderQueue[DEFAULT_CAPACITY];
+
+    // The states that could not be captured, null for the states that were
+    private State[] uncaptured = new State[DEFAULT_CAPACITY];
+
+    private int size;
+
+    private long tick;
+
+    /**
+     * Empties this snapshot so it can be captured again.
+     *
+     * @param tick The update that this snapshot will be captured from
+     */
+    void clear(long tick) {
+        // Don't keep old images and states alive
+        for (int i = 0; i < size; i++)
+            queues[i].clear();
+
+        Arrays.fill(uncaptured, 0, size, null);
+
+        this.size = 0;
+        this.tick = tick;
+    }
+
+    /**
+     * Captures what a state draws, or remembers it to be rendered later if it cannot render
+     * into a queue.
+     *
+     * @param state The state to capture
+     */
+    void capture(State state) {
+        if (size == queues.length) {
+            queues = Arrays.copyOf(queues, size * 2);
+            uncaptured = Arrays.copyOf(uncaptured, size * 2);
+        }
+
+        if (queues[size] == null)
+            queues[size] = new RenderQueue();
+
+        RenderQueue queue = queues[size];
+
+        if (!state.render(queue, 1.0f)) {
+            queue.clear();
+            uncaptured[size] = state;
+        }
+
+        size++;
+    }
+
+    /**
+     * Adds the captured states to a render queue. States that could not be captured are
+     * rendered with the graphics, after the queue was flushed so they end up on top of the
+     * states before them, like {@link StateManager#render(RenderQueue, Graphics2D, float)}
+     * does.
+     *
+     * @param queue The queue to render into
+     * @param g     The graphics to render the other states with
+     * @param alpha How far, from {@code 0} to {@code 1}, this frame is between the last
+     *              update and the next one
+     */
+    public void render(RenderQueue queue, Graphics2D g, float alpha) {
+        for (int i = 0; i < size; i++) {
+            if (uncaptured[i] == null) {
+                queue.submitAll(queues[i]);
+            } else {
+                queue.flush(g);
+                uncaptured[i].render(g, alpha);
+            }
+        }
+    }
+
+    /**
+     * The amount of states in this snapshot.
+     *
+     * @return Returns the amount of states in this snapshot.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * The update that this snapshot was captured from.
+     *
+     * @return Returns the update count when this snapshot was captured.
+     */
+    public long getTick() {
+        return tick;
+    }
+}
@@ -5,8 +5,12 @@ import com.diamondhunter.graphics.gui.base.GUIButton;
 import com.diamondhunter.graphics.gui.menubutton.PlayButton;
 import com.diamondhunter.graphics.gui.menubutton.QuitButton;
 import com.diamondhunter.graphics.gui.menubutton.StatsButton;
+import com.diamondhunter.graphics.parallax.ParallaxBackground;
+import com.diamondhunter.graphics.parallax.ParallaxLayer;
+import com.diamondhunter.graphics.sprite.RenderQueue;
 import com.diamondhunter.graphics.sprite.Sprite;
 import com.diamondhunter.graphics.sprite.SpriteSheet;
+import com.diamondhunter.graphics.window.DirtyRegions;
 import com.diamondhunter.hub.DiamondHunter;
 import com.diamondhunter.state.base.State;
 import com.diamondhunter.state.base.StateManager;
@@ -43,11 +47,16 @@ import java.awt.image.BufferedImage;
 public class MenuState extends State {
 
     /**
-     * The background used for the menu state. This may be implemented into it's own
-     * class in later versions of the game for a parallax background effect.
-     * But for now, we just save the sprite of the background.
+     * The background used for the menu state. For now it only has one layer, the menu
+     * background image, which doesn't scroll. Layers made from a map can be added with
+     * their own parallax factors.
      */
-    private Sprite background;
+    private ParallaxBackground background;
+
+    /**
+     * How far the background scrolls across every update.
+     */
+    private float backgroundScrollSpeed = 0;
 
     /**
      * The position of the background on the screen. Even though this will most likely
@@ -77,6 +86,18 @@ public class MenuState extends State {
      */
     private int titleScale = 6;
 
+    /**
+     * The frame of the title that was shown when damage was last added, to find out
+     * whether the title animation moved on to the next frame.
+     */
+    private Sprite damageTitleSprite;
+
+    /**
+     * The frame of the title that the damage of the current frame was added for. The
+     * animation may move on in between, so this is the frame that is drawn.
+     */
+    private Sprite frameTitleSprite;
+
     // < ------- START OF BUTTON CREATION ------- > \\
 
     private float buttonSpacing = 10;
@@ -142,8 +163,10 @@ public class MenuState extends State {
     public MenuState(StateManager manager) {
         super(manager, Type.MENU);
 
-        // Assign the background to a sprite
-        background = new Sprite("menu/backgrounds/menu-background.png");
+        // Create the background out of the background image
+        Sprite backgroundSprite = new Sprite("menu/backgrounds/menu-background.png");
+        background = new ParallaxBackground(backgroundSprite.getWidth(), backgroundSprite.getHeight());
+        background.addLayer(new ParallaxLayer(backgroundSprite.getImage(), 0, 0, 1, backgroundSprite.getWidth(), backgroundSprite.getHeight()));
 
         // Save the background position
         backgroundPosition = new Vector2f();
@@ -161,7 +184,7 @@ public class MenuState extends State {
         // Create the buttons
         // The play button
         playButtonSprite = new Sprite("menu/buttons/play/menu-play-button-spritesheet-resized.png");
-        playButtonPosition = new Vector2f(titlePosition.getPosition().x + (titleSpriteSheet.getSpriteWidth() * titleScale) / 2f - (256 / 2f),
+        playButtonPosition = new Vector2f(titlePosition.getPositionX() + (titleSpriteSheet.getSpriteWidth() * titleScale) / 2f - (256 / 2f),
                 titlePosition.y + (titleSpriteSheet.getSpriteHeight() * titleScale) + buttonSpacing);
         playButton = new PlayButton(playButtonPosition, playButtonSprite, 256, 68);
 
@@ -186,8 +209,8 @@ public class MenuState extends State {
 
     @Override
     public void update() {
-        // Update the animation
-        titleAnimation.update();
+        // Scroll the background
+        background.scroll(backgroundScrollSpeed, 0);
 
         // < ------- START OF BUTTON UPDATING ------- >
         // Update play button
@@ -216,10 +239,13 @@ public class MenuState extends State {
     @Override
     public void render(Graphics2D g) {
         // Draw background first so it stays below everything else
-        background.render(g, backgroundPosition);
+        background.render(g, backgroundPosition.getPositionX(), backgroundPosition.getPositionY());
 
         // Draw the game title on top of the background
-        titleAnimation.getCurrentSprite().render(g, titlePosition, titleSpriteSheet.getSpriteWidth() * titleScale, titleSpriteSheet.getSpriteHeight() * titleScale);
+        Sprite titleSprite = frameTitleSprite != null ? frameTitleSprite : titleAnimation.getCurrentSprite();
+        frameTitleSprite = null;
+
+        titleSprite.render(g, titlePosition, titleSpriteSheet.getSpriteWidth() * titleScale, titleSpriteSheet.getSpriteHeight() * titleScale);
 
         // < ------- START OF BUTTON RENDERING ------- >
         // Draw the play button
@@ -232,4 +258,55 @@ public class MenuState extends State {
         quitButton.render(g);
         // < ------- END OF BUTTON RENDERING ------- >
     }
+
+    /**
+     * Queues the menu instead of drawing it, so the full screen background can be drawn in
+     * parallel bands. The background is on its own layer below everything, the title is
+     * below the buttons.
+     *
+     * @param queue The queue to render into
+     * @param alpha How far this frame is between two updates, which the menu doesn't use
+     * @return Returns {@code true}.
+     */
+    @Override
+    public boolean render(RenderQueue queue, float alpha) {
+        background.render(queue, backgroundPosition.getPositionX(), backgroundPosition.getPositionY());
+
+        Sprite titleSprite = frameTitleSprite != null ? frameTitleSprite : titleAnimation.getCurrentSprite();
+        frameTitleSprite = null;
+
+        titleSprite.queue(queue, RenderQueue.GUI_LAYER, 1, titlePosition.getPositionX(), titlePosition.getPositionY(),
+                titleSpriteSheet.getSpriteWidth() * titleScale, titleSpriteSheet.getSpriteHeight() * titleScale);
+
+        playButton.render(queue, 0);
+        statsButton.render(queue, 0);
+        quitButton.render(queue, 0);
+
+        return true;
+    }
+
+    /**
+     * The background of the menu only changes when it scrolls, so otherwise only the title
+     * animation and the buttons have to be drawn again when they change.
+     *
+     * @param regions The dirty regions of the next frame
+     */
+    @Override
+    public void addDamage(DirtyRegions regions) {
+        background.addDamage(regions, backgroundPosition.getPositionX(), backgroundPosition.getPositionY());
+
+        Sprite titleSprite = titleAnimation.getCurrentSprite();
+
+        if (titleSprite != damageTitleSprite) {
+            regions.add(titlePosition.getPositionX(), titlePosition.getPositionY(),
+                    titleSpriteSheet.getSpriteWidth() * titleScale, titleSpriteSheet.getSpriteHeight() * titleScale);
+            damageTitleSprite = titleSprite;
+        }
+
+        frameTitleSprite = titleSprite;
+
+        playButton.addDamage(regions);
+        statsButton.addDamage(regions);
+        quitButton.addDamage(regions);
+    }
 }
@@ -1,5 +1,6 @@
 package com.diamondhunter.state.game;
 
+import com.diamondhunter.graphics.sprite.RenderQueue;
 import com.diamondhunter.map.main.Map;
 import com.diamondhunter.state.base.State;
 import com.diamondhunter.state.base.StateManager;
@@ -35,4 +36,10 @@ public class PlayState extends State {
     public void render(Graphics2D g) {
         map.render(g);
     }
+
+    @Override
+    public boolean render(RenderQueue queue, float alpha) {
+        map.render(queue);
+        return true;
+    }
 }
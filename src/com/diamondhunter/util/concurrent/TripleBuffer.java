@@ -0,0 +1,94 @@
+package com.diamondhunter.util.concurrent;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * A lock-free triple buffer used to hand data from one writer thread to one reader thread.
+ * <p>
+ * There are three buffers: one that is owned by the writer, one that is owned by the reader
+ * and one in the middle that is swapped between them. The writer fills its buffer and
+ * {@link #publish() publishes} it by swapping it with the middle one. The reader
+ * {@link #update() updates} by swapping its buffer with the middle one, if something new
+ * was published. Neither side ever waits for the other and a buffer is never touched by
+ * both threads at once, so the reader always sees a complete, unchanging buffer.
+ * <p>
+ * If the writer publishes more often than the reader reads, the older buffers are simply
+ * skipped and the reader always gets the latest one.
+ *
+ * @param <T> The type of the buffers
+ */
+public final class TripleBuffer<T> {
+
+    // Set on the shared index when the middle buffer holds something the reader hasn't seen
+    private static final int DIRTY = 0b100;
+    private static final int INDEX_MASK = 0b011;
+
+    private final Object[] buffers;
+
+    // Index of the middle buffer and whether it's dirty
+    private final AtomicInteger shared;
+
+    // Only touched by the writer
+    private int writeIndex;
+
+    // Only touched by the reader
+    private int readIndex;
+
+    /**
+     * Creates a triple buffer.
+     *
+     * @param factory Creates each of the three buffers
+     */
+    public TripleBuffer(Supplier<T> factory) {
+        buffers = new Object[]{factory.get(), factory.get(), factory.get()};
+
+        writeIndex = 0;
+        shared = new AtomicInteger(1);
+        readIndex = 2;
+    }
+
+    /**
+     * The buffer that the writer can currently fill. This must only be called by the
+     * writer thread.
+     *
+     * @return Returns the buffer owned by the writer.
+     */
+    @SuppressWarnings("unchecked")
+    public T getWriteBuffer() {
+        return (T) buffers[writeIndex];
+    }
+
+    /**
+     * Makes the write buffer available to the reader and gives the writer a new buffer to
+     * fill. This must only be called by the writer thread.
+     */
+    public void publish() {
+        writeIndex = shared.getAndSet(writeIndex | DIRTY) & INDEX_MASK;
+    }
+
+    /**
+     * Takes the latest published buffer, if there is one that hasn't been read yet. This
+     * must only be called by the reader thread.
+     *
+     * @return Returns {@code true} if the read buffer changed.
+     */
+    public boolean update() {
+        if ((shared.get() & DIRTY) == 0)
+            return false;
+
+        readIndex = shared.getAndSet(readIndex) & INDEX_MASK;
+        return true;
+    }
+
+    /**
+     * The buffer that the reader can currently read. This must only be called by the
+     * reader thread.
+     *
+     * @return Returns the buffer owned by the reader.
+     */
+    @SuppressWarnings("unchecked")
+    public T getReadBuffer() {
+        return (T) buffers[readIndex];
+    }
+}
@@ -1,23 +1,36 @@
 package com.diamondhunter.util.graphics;
 
 import com.diamondhunter.graphics.sprite.Sprite;
-import com.diamondhunter.hub.DiamondHunter;
 import com.diamondhunter.util.general.Utils;
 
+import java.lang.ref.Cleaner;
+
+/**
+ * An {@code Animation} loops through frames, showing each of them for its delay. The frames
+ * are advanced by an {@link AnimationClock} together with every other animation of that
+ * clock, so animations don't have to be updated one by one.
+ * <p>
+ * Every animation takes up an entry in its clock until it is {@link #release() released}.
+ * Whatever replaces or drops an animation should release it straight away. Animations that
+ * are dropped without that are released once they are garbage collected, which can take a
+ * while, and until then the clock keeps advancing them.
+ */
 public class Animation {
     public static final float DEFAULT_DELAY = -1.0f;
 
+    // Releases the animations that were dropped without being released
+    private static final Cleaner cleaner = Cleaner.create();
+
     private Sprite[] frames;
     private double delay;
 
-    private int startIndex;
-    private int endIndex;
-
-    private int index;
-    private long count;
+    private final AnimationClock clock;
+    private final int slot;
+    private final Cleaner.Cleanable cleanable;
+    private boolean released;
 
     public Animation(){
-        delay = DEFAULT_DELAY;
+        this(null, DEFAULT_DELAY, 0, 0);
     }
 
     public Animation(Sprite[] frames){
@@ -33,63 +46,88 @@ public class Animation {
     }
 
     public Animation(Sprite[] frames, double delaySeconds, int startIndex, int endIndex) {
+        this(frames, delaySeconds, startIndex, endIndex, AnimationClock.getMainClock());
+    }
+
+    /**
+     * Creates an animation that is advanced by the given clock.
+     *
+     * @param frames       The frames of the animation
+     * @param delaySeconds The time every frame is shown for, in seconds
+     * @param startIndex   The first frame of the loop
+     * @param endIndex     The last frame of the loop
+     * @param clock        The clock that advances the animation
+     */
+    public Animation(Sprite[] frames, double delaySeconds, int startIndex, int endIndex, AnimationClock clock) {
         this.frames = frames;
         this.delay = delaySeconds;
-        this.startIndex = startIndex;
-        this.endIndex = endIndex;
-        index = startIndex;
-        count = 0;
-    }
-
-    public void update(){
-        if(delay <= -1.0f || Double.isInfinite(delay) || Double.isNaN(delay)) return;
+        this.clock = clock;
 
-        double targetHertz = DiamondHunter.getTargetHertz();
+        slot = clock.register(startIndex, startIndex, endIndex, toNanos(delaySeconds));
+        cleanable = cleaner.register(this, new Release(clock, slot));
+    }
 
-        count++;
+    /*
+     * Delays that are negative, zero, infinite or not a number stop the animation.
+     */
+    private static long toNanos(double delaySeconds) {
+        if (!(delaySeconds > 0) || Double.isInfinite(delaySeconds))
+            return 0;
 
-        if(count >= delay * targetHertz){
-            index++;
-            count = 0;
-        }
+        return Math.max(1, Math.round(delaySeconds * 1000000000.0));
+    }
 
-        if(index < startIndex)
-            index = startIndex;
+    /**
+     * Animations are advanced by their {@link AnimationClock}, this does nothing.
+     *
+     * @deprecated The clock advances every animation at once.
+     */
+    @Deprecated
+    public void update(){
+    }
 
-        if(index > endIndex)
-            index = startIndex;
+    /**
+     * Removes this animation from its clock, so the clock can reuse its place for another
+     * animation. The animation must not be used anymore afterwards.
+     */
+    public void release() {
+        released = true;
+        cleanable.clean();
     }
 
     public Sprite getCurrentSprite(){
-        return frames[index];
+        return frames[clock.getFrame(slot)];
     }
 
     public void setStartIndex(int startIndex) {
-        this.startIndex = startIndex;
+        clock.setStart(slot, startIndex);
     }
 
     public void setAnimationIndex(int index) {
-        this.index = Utils.getNumberUtils().clamp(index, startIndex, endIndex);
+        clock.setFrame(slot, Utils.getNumberUtils().clamp(index, clock.getStart(slot), clock.getEnd(slot)));
     }
 
     public void setEndIndex(int endIndex) {
-        this.endIndex = endIndex;
+        clock.setEnd(slot, endIndex);
     }
 
     public int getStartIndex() {
-        return startIndex;
+        return clock.getStart(slot);
     }
 
     public int getAnimationIndex() {
-        return index;
+        return clock.getFrame(slot);
     }
 
     public int getEndIndex() {
-        return endIndex;
+        return clock.getEnd(slot);
     }
 
     public void setDelay(double delaySeconds) {
         this.delay = delaySeconds;
+
+        if (!released)
+            clock.setDelay(slot, toNanos(delaySeconds));
     }
 
     public double getDelay() {
@@ -98,11 +136,34 @@ public class Animation {
 
     public void setFrames(Sprite[] frames) {
         this.frames = frames;
-        index = startIndex;
-        count = 0;
+        clock.setFrame(slot, clock.getStart(slot));
+        clock.restart(slot);
     }
 
     public Sprite[] getFrames() {
         return frames;
     }
+
+    public AnimationClock getClock() {
+        return clock;
+    }
+
+    /*
+     * Frees the entry of an animation. It must not refer to the animation, or the animation
+     * would never be garbage collected.
+     */
+    private static final class Release implements Runnable {
+        private final AnimationClock clock;
+        private final int slot;
+
+        private Release(AnimationClock clock, int slot) {
+            this.clock = clock;
+            this.slot = slot;
+        }
+
+        @Override
+        public void run() {
+            clock.release(slot);
+        }
+    }
 }
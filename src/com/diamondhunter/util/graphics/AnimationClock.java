@@ -0,0 +1,190 @@
+package com.diamondhunter.util.graphics;
+
+import java.util.Arrays;
+
+/**
+ * An {@code AnimationClock} advances every {@link Animation} that was registered with it at
+ * once. The state of the animations is kept in parallel arrays, one entry per animation: the
+ * frame it shows, the first and last frame it loops between, the time every frame is shown
+ * for and the time it has shown the current frame for. Advancing the clock is a single loop
+ * over those arrays, and reading the frame of an animation is a single array read.
+ * <p>
+ * The clock is advanced by the game time of every update, in nanoseconds, so animations
+ * keep their speed when the amount of updates per second changes. The game advances the
+ * {@link #getMainClock() main clock}, which animations use unless they are given another.
+ * <p>
+ * A clock is advanced and changed by the thread that updates. Other threads may read the
+ * frames of animations. Animations that are garbage collected are released from another
+ * thread, so adding and releasing animations are synchronized.
+ */
+public final class AnimationClock {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private static final AnimationClock mainClock = new AnimationClock();
+
+    private int[] frames = new int[DEFAULT_CAPACITY];
+    private int[] starts = new int[DEFAULT_CAPACITY];
+    private int[] ends = new int[DEFAULT_CAPACITY];
+
+    // The time every frame is shown for, 0 for animations that don't advance
+    private long[] delays = new long[DEFAULT_CAPACITY];
+    private long[] elapsed = new long[DEFAULT_CAPACITY];
+
+    private int size;
+
+    // Entries of released animations, reused before the arrays grow
+    private int[] freeSlots = new int[DEFAULT_CAPACITY];
+    private int freeCount;
+
+    private long time;
+
+    /**
+     * The clock that the game advances every update.
+     *
+     * @return Returns the main clock.
+     */
+    public static AnimationClock getMainClock() {
+        return mainClock;
+    }
+
+    /**
+     * Advances every animation by the given time. Animations that have shown their frame for
+     * longer than their delay move on by as many frames as fit in the time, and wrap around
+     * to their first frame after their last.
+     *
+     * @param nanos The time to advance by, in nanoseconds
+     */
+    public void advance(long nanos) {
+        if (nanos <= 0)
+            return;
+
+        time += nanos;
+
+        for (int i = 0; i < size; i++) {
+            long delay = delays[i];
+
+            if (delay <= 0)
+                continue;
+
+            long passed = elapsed[i] + nanos;
+
+            if (passed < delay) {
+                elapsed[i] = passed;
+                continue;
+            }
+
+            long steps = passed / delay;
+            elapsed[i] = passed - steps * delay;
+
+            int start = starts[i];
+            int length = ends[i] - start + 1;
+
+            if (length <= 0)
+                continue;
+
+            // A frame outside of the loop goes back to the first frame on the first step
+            int frame = frames[i];
+            long offset = frame < start || frame > ends[i] ? steps - 1 : frame - start + steps;
+
+            frames[i] = start + (int) (offset % length);
+        }
+    }
+
+    /*
+     * Adds an animation and returns its entry.
+     */
+    synchronized int register(int frame, int start, int end, long delay) {
+        int slot;
+
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            if (size == frames.length)
+                grow();
+
+            slot = size++;
+        }
+
+        frames[slot] = frame;
+        starts[slot] = start;
+        ends[slot] = end;
+        delays[slot] = delay;
+        elapsed[slot] = 0;
+
+        return slot;
+    }
+
+    /*
+     * Stops advancing an entry so it can be reused by the next animation.
+     */
+    synchronized void release(int slot) {
+        delays[slot] = 0;
+
+        if (freeCount == freeSlots.length)
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+
+        freeSlots[freeCount++] = slot;
+    }
+
+    private void grow() {
+        int capacity = frames.length * 2;
+
+        frames = Arrays.copyOf(frames, capacity);
+        starts = Arrays.copyOf(starts, capacity);
+        ends = Arrays.copyOf(ends, capacity);
+        delays = Arrays.copyOf(delays, capacity);
+        elapsed = Arrays.copyOf(elapsed, capacity);
+    }
+
+    int getFrame(int slot) {
+        return frames[slot];
+    }
+
+    void setFrame(int slot, int frame) {
+        frames[slot] = frame;
+    }
+
+    int getStart(int slot) {
+        return starts[slot];
+    }
+
+    void setStart(int slot, int start) {
+        starts[slot] = start;
+    }
+
+    int getEnd(int slot) {
+        return ends[slot];
+    }
+
+    void setEnd(int slot, int end) {
+        ends[slot] = end;
+    }
+
+    void setDelay(int slot, long delay) {
+        delays[slot] = delay;
+    }
+
+    // Starts the current frame over
+    void restart(int slot) {
+        elapsed[slot] = 0;
+    }
+
+    /**
+     * The total time this clock was advanced by.
+     *
+     * @return Returns the time in nanoseconds.
+     */
+    public long getTime() {
+        return time;
+    }
+
+    /**
+     * The amount of animations that are registered with this clock.
+     *
+     * @return Returns the amount of animations.
+     */
+    public synchronized int getAnimationCount() {
+        return size - freeCount;
+    }
+}
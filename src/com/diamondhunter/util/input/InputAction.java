@@ -0,0 +1,171 @@
+package com.diamondhunter.util.input;
+
+/**
+ * An {@code InputAction} is one piece of input (a key press, a mouse move...) that is
+ * waiting to be applied to the {@link KeyHandler} or {@link MouseHandler}.
+ * <p>
+ * Input from AWT arrives on the event thread at any time. Instead of changing the input
+ * state straight away, the handlers queue their input as actions and the game applies them
+ * all at the start of an update. Every update therefore sees the same input no matter when
+ * it arrived, which is what allows input to be {@link InputRecorder recorded} and
+ * {@link InputReplayer replayed} exactly.
+ */
+public final class InputAction {
+
+    private final Type type;
+    private final int code;
+    private final int x, y;
+
+    private InputAction(Type type, int code, int x, int y) {
+        this.type = type;
+        this.code = code;
+        this.x = x;
+        this.y = y;
+    }
+
+    public static InputAction key(Type type, int keyCode) {
+        if (!type.isKey())
+            throw new IllegalArgumentException(type + " is not a key action");
+
+        return new InputAction(type, keyCode, 0, 0);
+    }
+
+    public static InputAction mouse(Type type, int x, int y, int button) {
+        if (!type.isMouse())
+            throw new IllegalArgumentException(type + " is not a mouse action");
+
+        return new InputAction(type, button, x, y);
+    }
+
+    public static InputAction focus(boolean focused) {
+        return new InputAction(focused ? Type.FOCUS_GAINED : Type.FOCUS_LOST, 0, 0, 0);
+    }
+
+    /**
+     * Applies this action to the handler it belongs to. Focus actions are not applied to
+     * either handler.
+     *
+     * @param keyHandler   The key handler
+     * @param mouseHandler The mouse handler
+     */
+    public void apply(KeyHandler keyHandler, MouseHandler mouseHandler) {
+        if (type.isKey())
+            keyHandler.apply(this);
+        else if (type.isMouse())
+            mouseHandler.apply(this);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * The key code of a key action.
+     *
+     * @return Returns the key code.
+     */
+    public int getKeyCode() {
+        return code;
+    }
+
+    /**
+     * The AWT mouse button of a mouse action.
+     *
+     * @return Returns the mouse button.
+     */
+    public int getButton() {
+        return code;
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) return true;
+
+        if (obj instanceof InputAction) {
+            InputAction action = (InputAction) obj;
+            return type == action.type && code == action.code && x == action.x && y == action.y;
+        }
+
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return ((type.ordinal() * 31 + code) * 31 + x) * 31 + y;
+    }
+
+    @Override
+    public String toString() {
+        if (type.isKey())
+            return type + "[" + code + "]";
+        else if (type.isMouse())
+            return type + "[" + x + ", " + y + ", " + code + "]";
+
+        return type.toString();
+    }
+
+    /**
+     * Every kind of input action. The ids are written to input recordings so they must
+     * never change.
+     */
+    public enum Type {
+        KEY_PRESSED(0),
+        KEY_RELEASED(1),
+        MOUSE_PRESSED(2),
+        MOUSE_RELEASED(3),
+        MOUSE_CLICKED(4),
+        MOUSE_ENTERED(5),
+        MOUSE_EXITED(6),
+        MOUSE_DRAGGED(7),
+        MOUSE_MOVED(8),
+        FOCUS_GAINED(9),
+        FOCUS_LOST(10);
+
+        private static final Type[] BY_ID = new Type[values().length];
+
+        static {
+            for (Type type : values())
+                BY_ID[type.id] = type;
+        }
+
+        private final int id;
+
+        Type(int id) {
+            this.id = id;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public boolean isKey() {
+            return this == KEY_PRESSED || this == KEY_RELEASED;
+        }
+
+        public boolean isMouse() {
+            return id >= MOUSE_PRESSED.id && id <= MOUSE_MOVED.id;
+        }
+
+        public boolean isFocus() {
+            return this == FOCUS_GAINED || this == FOCUS_LOST;
+        }
+
+        /**
+         * Finds the type with the given id.
+         *
+         * @param id The id of the type
+         * @return Returns the type or {@code null} if there is none with that id.
+         */
+        public static Type forId(int id) {
+            return id >= 0 && id < BY_ID.length ? BY_ID[id] : null;
+        }
+    }
+}
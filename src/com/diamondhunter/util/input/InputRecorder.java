@@ -0,0 +1,135 @@
+package com.diamondhunter.util.input;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * An {@code InputRecorder} writes the input applied in every update to a compact binary
+ * file, which can be played back with an {@link InputReplayer}.
+ * <p>
+ * The file starts with a header (the magic number {@code DHIR}, a format version and the
+ * update rate the input was recorded at). It is followed by one block for every update that
+ * had input: the amount of updates since the previous block, the amount of actions and then
+ * the actions. Numbers are written as variable length integers, so a key press usually takes
+ * three bytes and a mouse move six. A block without actions marks the end of the recording
+ * and holds the total amount of updates.
+ */
+public final class InputRecorder implements Closeable {
+
+    static final int MAGIC = 0x44484952;
+    static final int VERSION = 1;
+
+    private final File file;
+    private final DataOutputStream out;
+
+    private long lastBlockTick;
+    private long tickCount;
+    private boolean closed;
+
+    /**
+     * Creates a recorder and writes the header of the recording.
+     *
+     * @param file  The file to record to
+     * @param hertz The update rate the game runs at while recording
+     * @throws IOException If the file could not be created.
+     */
+    public InputRecorder(File file, double hertz) throws IOException {
+        this.file = file;
+        this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeDouble(hertz);
+    }
+
+    /**
+     * Records the actions applied in an update. Updates must be recorded in order and every
+     * update should be recorded, even the ones without input, so the recording knows how
+     * long it is.
+     *
+     * @param tick    The index of the update, starting at {@code 0}
+     * @param actions The actions applied in the update
+     * @throws IOException If the actions could not be written.
+     */
+    public synchronized void record(long tick, List<InputAction> actions) throws IOException {
+        if (closed)
+            return;
+
+        if (tick < tickCount - 1)
+            throw new IllegalArgumentException("Update " + tick + " was recorded after update " + (tickCount - 1));
+
+        tickCount = tick + 1;
+
+        if (actions.isEmpty())
+            return;
+
+        writeVarLong(tick - lastBlockTick);
+        writeVarLong(actions.size());
+
+        for (InputAction action : actions) {
+            out.writeByte(action.getType().getId());
+
+            if (action.getType().isKey()) {
+                writeVarLong(action.getKeyCode());
+            } else if (action.getType().isMouse()) {
+                writeVarLong(zigZag(action.getX()));
+                writeVarLong(zigZag(action.getY()));
+                writeVarLong(action.getButton());
+            }
+        }
+
+        lastBlockTick = tick;
+    }
+
+    /**
+     * Marks the end of the recording and closes the file. Recording after closing does
+     * nothing.
+     *
+     * @throws IOException If the file could not be written.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed)
+            return;
+
+        closed = true;
+
+        try {
+            writeVarLong(Math.max(0, tickCount - lastBlockTick));
+            writeVarLong(0);
+        } finally {
+            out.close();
+        }
+    }
+
+    private void writeVarLong(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+
+        out.writeByte((int) value);
+    }
+
+    private static long zigZag(int value) {
+        return ((long) value << 1) ^ (value >> 31);
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * The amount of updates recorded so far.
+     *
+     * @return Returns the amount of recorded updates.
+     */
+    public synchronized long getTickCount() {
+        return tickCount;
+    }
+}
@@ -0,0 +1,151 @@
+package com.diamondhunter.util.input;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * An {@code InputReplayer} reads a recording made by an {@link InputRecorder} and hands
+ * back the input of every update in the same order it was recorded.
+ * <p>
+ * The recording is read while it is being replayed, so even very long recordings only
+ * keep the current block in memory.
+ */
+public final class InputReplayer implements Closeable {
+
+    private final File file;
+    private final DataInputStream in;
+    private final double hertz;
+
+    // The update that the next block of actions belongs to
+    private long nextBlockTick;
+    private int nextBlockSize;
+
+    // The total amount of updates, known once the end of the recording was read
+    private long tickCount = -1;
+
+    /**
+     * Opens a recording and reads its header.
+     *
+     * @param file The recording to replay
+     * @throws IOException If the file could not be read or is not an input recording.
+     */
+    public InputReplayer(File file) throws IOException {
+        this.file = file;
+        this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+
+        try {
+            if (in.readInt() != InputRecorder.MAGIC)
+                throw new IOException("\"" + file.getPath() + "\" is not an input recording");
+
+            int version = in.readUnsignedByte();
+
+            if (version != InputRecorder.VERSION)
+                throw new IOException("Unsupported input recording version: " + version);
+
+            hertz = in.readDouble();
+            readBlockHeader();
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    private void readBlockHeader() throws IOException {
+        nextBlockTick += readVarLong();
+        nextBlockSize = (int) readVarLong();
+
+        if (nextBlockSize == 0) {
+            tickCount = nextBlockTick;
+            in.close();
+        }
+    }
+
+    /**
+     * Adds the actions recorded for an update to the given list. Updates must be read in
+     * order.
+     *
+     * @param tick    The index of the update, starting at {@code 0}
+     * @param actions The list to add the actions to
+     * @throws IOException If the recording could not be read.
+     */
+    public void next(long tick, List<InputAction> actions) throws IOException {
+        if (tickCount >= 0 || tick < nextBlockTick)
+            return;
+
+        if (tick > nextBlockTick)
+            throw new IllegalStateException("Update " + nextBlockTick + " was skipped while replaying");
+
+        for (int i = 0; i < nextBlockSize; i++) {
+            int id = in.readUnsignedByte();
+            InputAction.Type type = InputAction.Type.forId(id);
+
+            if (type == null)
+                throw new IOException("Unknown input action: " + id);
+
+            if (type.isKey()) {
+                actions.add(InputAction.key(type, (int) readVarLong()));
+            } else if (type.isMouse()) {
+                int x = unZigZag(readVarLong());
+                int y = unZigZag(readVarLong());
+
+                actions.add(InputAction.mouse(type, x, y, (int) readVarLong()));
+            } else {
+                actions.add(InputAction.focus(type == InputAction.Type.FOCUS_GAINED));
+            }
+        }
+
+        readBlockHeader();
+    }
+
+    /**
+     * Whether every recorded update has been replayed.
+     *
+     * @param tick The index of the next update
+     * @return Returns {@code true} if the recording has no more updates.
+     */
+    public boolean isFinished(long tick) {
+        return tickCount >= 0 && tick >= tickCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private long readVarLong() throws IOException {
+        long value = 0;
+
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+
+            if ((b & 0x80) == 0)
+                return value;
+        }
+
+        throw new IOException("Malformed input recording");
+    }
+
+    private static int unZigZag(long value) {
+        return (int) ((value >>> 1) ^ -(value & 1));
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * The update rate that the input was recorded at. Replaying at a different rate will
+     * not give the same results.
+     *
+     * @return Returns the recorded updates per second.
+     */
+    public double getHertz() {
+        return hertz;
+    }
+}
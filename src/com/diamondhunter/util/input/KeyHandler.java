@@ -5,21 +5,28 @@ import com.diamondhunter.graphics.window.Window;
 import com.diamondhunter.hub.DiamondHunter;
 import com.diamondhunter.util.logging.Logger;
 
+import java.awt.*;
 import java.awt.event.FocusEvent;
 import java.awt.event.FocusListener;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 public class KeyHandler implements KeyListener {
 
-    private Display display;
+    private Component component;
     private Map<Integer, Key> keys;
     private Key currentKey, lastKey;
 
+    // Input that arrived from AWT but has not been applied yet
+    private final Queue<InputAction> pendingActions = new ConcurrentLinkedQueue<>();
+
     public KeyHandler(DiamondHunter diamondHunter) {
-        this(diamondHunter.getWindow());
+        this(diamondHunter.getDisplay());
     }
 
     public KeyHandler(Window window) {
@@ -27,32 +34,33 @@ public class KeyHandler implements KeyListener {
     }
 
     public KeyHandler(Display display) {
+        this(display.getInputComponent());
+    }
+
+    public KeyHandler(Component component) {
         boolean addListener = true;
 
-        for (int i = 0; i < display.getKeyListeners().length; i++) {
-            if (display.getKeyListeners()[i].equals(this)) {
+        for (int i = 0; i < component.getKeyListeners().length; i++) {
+            if (component.getKeyListeners()[i].equals(this)) {
                 addListener = false;
                 break;
             }
         }
 
         if (addListener)
-            display.addKeyListener(this);
-        this.display = display;
+            component.addKeyListener(this);
+        this.component = component;
 
         keys = new ConcurrentHashMap<>();
     }
 
+    /**
+     * Ends the update for the keys: keys that were clicked or released this update aren't
+     * anymore. Losing focus is not checked here, the game releases the keys with
+     * {@link #forceReleaseKeys()} when it applies a focus action, so replays release them on
+     * the same update as the recording did.
+     */
     public synchronized void update() {
-        if(!display.isFocusOwner()){
-            for (Key key : keys.values()) {
-                key.released = true;
-                key.clicked = false;
-                key.pressed = false;
-                key.typed = false;
-            }
-        }
-
         for (Key key : keys.values()) {
             key.released = false;
             key.clicked = false;
@@ -60,7 +68,7 @@ public class KeyHandler implements KeyListener {
     }
 
     public void dispose() {
-        display.removeKeyListener(this);
+        component.removeKeyListener(this);
     }
 
     public synchronized void forceReleaseKeys() {
@@ -78,10 +86,45 @@ public class KeyHandler implements KeyListener {
     }
 
     @Override
-    public synchronized void keyPressed(KeyEvent e) {
-        checkKey(e.getKeyCode());
+    public void keyPressed(KeyEvent e) {
+        pendingActions.add(InputAction.key(InputAction.Type.KEY_PRESSED, e.getKeyCode()));
+    }
+
+    @Override
+    public void keyReleased(KeyEvent e) {
+        pendingActions.add(InputAction.key(InputAction.Type.KEY_RELEASED, e.getKeyCode()));
+    }
 
-        Key key = getKey(e.getKeyCode());
+    /**
+     * Moves every key action that arrived since the last poll into the given list. The
+     * actions only change the state of the keys once they are {@link #apply(InputAction)
+     * applied}.
+     *
+     * @param actions The list to add the actions to
+     */
+    public void poll(List<InputAction> actions) {
+        InputAction action;
+
+        while ((action = pendingActions.poll()) != null)
+            actions.add(action);
+    }
+
+    /**
+     * Applies a key action to the state of the keys.
+     *
+     * @param action The action to apply
+     */
+    public void apply(InputAction action) {
+        if (action.getType() == InputAction.Type.KEY_PRESSED)
+            press(action.getKeyCode());
+        else if (action.getType() == InputAction.Type.KEY_RELEASED)
+            release(action.getKeyCode());
+    }
+
+    private synchronized void press(int keyCode) {
+        checkKey(keyCode);
+
+        Key key = getKey(keyCode);
         if(key != null) {
             key.clicked = true;
             key.clicked = false;
@@ -93,11 +136,10 @@ public class KeyHandler implements KeyListener {
         currentKey = key;
     }
 
-    @Override
-    public void keyReleased(KeyEvent e) {
-        checkKey(e.getKeyCode());
+    private synchronized void release(int keyCode) {
+        checkKey(keyCode);
 
-        Key key = getKey(e.getKeyCode());
+        Key key = getKey(keyCode);
         if(key != null) {
             key.clicked = false;
             key.pressed = false;
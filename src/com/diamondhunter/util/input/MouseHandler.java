@@ -11,6 +11,8 @@ import java.awt.event.MouseListener;
 import java.awt.event.MouseMotionListener;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 public class MouseHandler implements MouseListener, MouseMotionListener {
 
@@ -29,8 +31,11 @@ public class MouseHandler implements MouseListener, MouseMotionListener {
 
     private int buttonReleaseCounter = 0;
 
+    // Input that arrived from AWT but has not been applied yet
+    private final Queue<InputAction> pendingActions = new ConcurrentLinkedQueue<>();
+
     public MouseHandler(DiamondHunter diamondHunter) {
-        this(diamondHunter.getWindow());
+        this(diamondHunter.getDisplay());
     }
 
     public MouseHandler(Window window) {
@@ -38,7 +43,11 @@ public class MouseHandler implements MouseListener, MouseMotionListener {
     }
 
     public MouseHandler(Display display) {
-        this.component = display;
+        this(display.getInputComponent());
+    }
+
+    public MouseHandler(Component component) {
+        this.component = component;
         createListener();
         subListeners = new ArrayList<>();
         mouse = new Mouse(this);
@@ -152,10 +161,111 @@ public class MouseHandler implements MouseListener, MouseMotionListener {
         // Check if component is focused
         if(!component.hasFocus()) return;
 
+        pendingActions.add(InputAction.mouse(InputAction.Type.MOUSE_CLICKED, e.getX(), e.getY(), e.getButton()));
+    }
+
+    @Override
+    public void mousePressed(MouseEvent e) {
+        // Check if component is focused
+        if(!component.hasFocus()) return;
+
+        pendingActions.add(InputAction.mouse(InputAction.Type.MOUSE_PRESSED, e.getX(), e.getY(), e.getButton()));
+    }
+
+    @Override
+    public void mouseReleased(MouseEvent e) {
+        // Check if component is focused
+        if(!component.hasFocus()) return;
+
+        pendingActions.add(InputAction.mouse(InputAction.Type.MOUSE_RELEASED, e.getX(), e.getY(), e.getButton()));
+    }
+
+    @Override
+    public void mouseEntered(MouseEvent e) {
+        // Check if component is focused
+        if(!component.hasFocus()) return;
+
+        pendingActions.add(InputAction.mouse(InputAction.Type.MOUSE_ENTERED, e.getX(), e.getY(), e.getButton()));
+    }
+
+    @Override
+    public void mouseExited(MouseEvent e) {
+        // Check if component is focused
+        if(!component.hasFocus()) return;
+
+        pendingActions.add(InputAction.mouse(InputAction.Type.MOUSE_EXITED, e.getX(), e.getY(), e.getButton()));
+    }
+
+    @Override
+    public void mouseDragged(MouseEvent e) {
+        // Check if component is focused
+        if(!component.hasFocus()) return;
+
+        pendingActions.add(InputAction.mouse(InputAction.Type.MOUSE_DRAGGED, e.getX(), e.getY(), e.getButton()));
+    }
+
+    @Override
+    public void mouseMoved(MouseEvent e) {
+        // Check if component is focused
+        if(!component.hasFocus()) return;
+
+        pendingActions.add(InputAction.mouse(InputAction.Type.MOUSE_MOVED, e.getX(), e.getY(), e.getButton()));
+    }
+
+    /**
+     * Moves every mouse action that arrived since the last poll into the given list. The
+     * actions only change the state of the mouse once they are {@link #apply(InputAction)
+     * applied}.
+     *
+     * @param actions The list to add the actions to
+     */
+    public void poll(List<InputAction> actions) {
+        InputAction action;
+
+        while ((action = pendingActions.poll()) != null)
+            actions.add(action);
+    }
+
+    /**
+     * Applies a mouse action to the state of the mouse.
+     *
+     * @param action The action to apply
+     */
+    public void apply(InputAction action) {
+        int x = action.getX(), y = action.getY();
+
+        switch (action.getType()) {
+            case MOUSE_CLICKED:
+                clicked(x, y);
+                break;
+            case MOUSE_PRESSED:
+                pressed(x, y);
+                break;
+            case MOUSE_RELEASED:
+                released(x, y);
+                break;
+            case MOUSE_ENTERED:
+                entered(x, y);
+                break;
+            case MOUSE_EXITED:
+                exited(x, y);
+                break;
+            case MOUSE_DRAGGED:
+                dragged(x, y);
+                break;
+            case MOUSE_MOVED:
+                moved(x, y);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void clicked(int x, int y) {
         try {
             // Only update the mouse position
-            mouse.position.x = e.getPoint().x;
-            mouse.position.y = e.getPoint().y;
+            mouse.position.x = x;
+            mouse.position.y = y;
 
             // Update button press
             mouse.clicked = true;
@@ -169,15 +279,11 @@ public class MouseHandler implements MouseListener, MouseMotionListener {
         }
     }
 
-    @Override
-    public void mousePressed(MouseEvent e) {
-        // Check if component is focused
-        if(!component.hasFocus()) return;
-
+    private void pressed(int x, int y) {
         try {
             // Only update the mouse position
-            mouse.position.x = e.getPoint().x;
-            mouse.position.y = e.getPoint().y;
+            mouse.position.x = x;
+            mouse.position.y = y;
 
             // Update button press
             mouse.pressed = true;
@@ -192,15 +298,11 @@ public class MouseHandler implements MouseListener, MouseMotionListener {
         }
     }
 
-    @Override
-    public void mouseReleased(MouseEvent e) {
-        // Check if component is focused
-        if(!component.hasFocus()) return;
-
+    private void released(int x, int y) {
         try {
             // Only update the mouse position
-            mouse.position.x = e.getPoint().x;
-            mouse.position.y = e.getPoint().y;
+            mouse.position.x = x;
+            mouse.position.y = y;
 
             // Update button press
             mouse.released = true;
@@ -215,15 +317,11 @@ public class MouseHandler implements MouseListener, MouseMotionListener {
         }
     }
 
-    @Override
-    public void mouseEntered(MouseEvent e) {
-        // Check if component is focused
-        if(!component.hasFocus()) return;
-
+    private void entered(int x, int y) {
         try {
             // Only update the mouse position
-            mouse.position.x = e.getPoint().x;
-            mouse.position.y = e.getPoint().y;
+            mouse.position.x = x;
+            mouse.position.y = y;
 
             // Update button press
             mouse.entered = true;
@@ -238,15 +336,11 @@ public class MouseHandler implements MouseListener, MouseMotionListener {
         }
     }
 
-    @Override
-    public void mouseExited(MouseEvent e) {
-        // Check if component is focused
-        if(!component.hasFocus()) return;
-
+    private void exited(int x, int y) {
         try {
             // Only update the mouse position
-            mouse.position.x = e.getPoint().x;
-            mouse.position.y = e.getPoint().y;
+            mouse.position.x = x;
+            mouse.position.y = y;
 
             // Update button press
             mouse.exited = true;
@@ -261,15 +355,11 @@ public class MouseHandler implements MouseListener, MouseMotionListener {
         }
     }
 
-    @Override
-    public void mouseDragged(MouseEvent e) {
-        // Check if component is focused
-        if(!component.hasFocus()) return;
-
+    private void dragged(int x, int y) {
         try {
             // Only update the mouse position
-            mouse.position.x = e.getPoint().x;
-            mouse.position.y = e.getPoint().y;
+            mouse.position.x = x;
+            mouse.position.y = y;
 
             // Update button press
             mouse.dragged = true;
@@ -284,16 +374,11 @@ public class MouseHandler implements MouseListener, MouseMotionListener {
         }
     }
 
-    @Override
-    public void mouseMoved(MouseEvent e) {
-
-        // Check if component is focused
-        if(!component.hasFocus()) return;
-
+    private void moved(int x, int y) {
         try {
             // Only update the mouse position
-            mouse.position.x = e.getPoint().x;
-            mouse.position.y = e.getPoint().y;
+            mouse.position.x = x;
+            mouse.position.y = y;
 
             // Update button press
             mouse.moved = true;
@@ -318,7 +403,8 @@ public class MouseHandler implements MouseListener, MouseMotionListener {
         private Mouse(MouseHandler mouseHandler) {
             this.mouseHandler = mouseHandler;
             this.position = new Vector2f();
-            screenPosition = new Vector2f((float) MouseInfo.getPointerInfo().getLocation().getX(), (float) MouseInfo.getPointerInfo().getLocation().getY());
+            this.screenPosition = new Vector2f();
+            getScreenPosition();
         }
 
         public Vector2f getPosition() {
@@ -334,18 +420,26 @@ public class MouseHandler implements MouseListener, MouseMotionListener {
         }
 
         public Vector2f getScreenPosition() {
-            screenPosition.x = (float) MouseInfo.getPointerInfo().getLocation().getX();
-            screenPosition.y = (float) MouseInfo.getPointerInfo().getLocation().getY();
+            // There is no real mouse pointer to ask when running headless
+            PointerInfo pointerInfo = GraphicsEnvironment.isHeadless() ? null : MouseInfo.getPointerInfo();
+
+            if (pointerInfo == null) {
+                screenPosition.x = position.x;
+                screenPosition.y = position.y;
+            } else {
+                screenPosition.x = (float) pointerInfo.getLocation().getX();
+                screenPosition.y = (float) pointerInfo.getLocation().getY();
+            }
 
             return screenPosition;
         }
 
         public float getScreenX() {
-            return getScreenPosition().getPosition().x;
+            return getScreenPosition().getPositionX();
         }
 
         public float getScreenY() {
-            return getScreenPosition().getPosition().y;
+            return getScreenPosition().getPositionY();
         }
 
         public boolean isPressed() {
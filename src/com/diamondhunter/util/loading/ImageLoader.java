@@ -4,21 +4,160 @@ import com.diamondhunter.hub.DiamondHunter;
 import com.diamondhunter.util.logging.Logger;
 
 import javax.imageio.ImageIO;
+import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.net.URL;
 
+/**
+ * Loads images and converts them into the format of the screen.
+ * <p>
+ * {@link ImageIO} returns images in whatever format the file was saved in, which is often
+ * an indexed or custom format that Java2D can only draw through slow generic loops. Every
+ * image loaded here is converted into an image that is compatible with the screen's
+ * {@link GraphicsConfiguration}, using the least transparency that its pixels need, so it
+ * can be drawn with the fastest loops and cached in video memory.
+ */
 public class ImageLoader extends ResourceLoader {
+
+    private static GraphicsConfiguration graphicsConfiguration;
+    private static boolean graphicsConfigurationLoaded;
+
     protected ImageLoader() {
     }
 
+    /**
+     * The configuration of the screen that images are made compatible with.
+     *
+     * @return Returns the configuration or {@code null} if there is no screen.
+     */
+    public static synchronized GraphicsConfiguration getGraphicsConfiguration() {
+        if (!graphicsConfigurationLoaded) {
+            graphicsConfigurationLoaded = true;
+
+            if (!GraphicsEnvironment.isHeadless())
+                graphicsConfiguration = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration();
+        }
+
+        return graphicsConfiguration;
+    }
+
+    /**
+     * Converts an image into the format of the screen, unless it already is. The image is
+     * given the least transparency its pixels need: opaque if every pixel is opaque,
+     * bitmask if every pixel is either opaque or fully transparent and translucent
+     * otherwise. Opaque and bitmask images can't hold other alpha values afterwards, which
+     * is why {@link com.diamondhunter.graphics.sprite.Sprite#setRGB(int, int, int)} copies
+     * its image into a translucent one before writing such pixels.
+     *
+     * @param image The image to convert
+     * @return Returns the compatible image, which may be the given image.
+     */
+    public static BufferedImage toCompatibleImage(BufferedImage image) {
+        if (image == null)
+            return null;
+
+        int transparency = getTransparency(image);
+
+        if (isCompatible(image, transparency))
+            return image;
+
+        return copyCompatibleImage(image, transparency);
+    }
+
+    /**
+     * Copies an image into a new image in the format of the screen. Unlike
+     * {@link #toCompatibleImage(BufferedImage)} this always copies, which is used to give
+     * sub-images their own pixels so they can be cached on their own.
+     *
+     * @param image The image to copy
+     * @return Returns the compatible copy.
+     */
+    public static BufferedImage copyCompatibleImage(BufferedImage image) {
+        return copyCompatibleImage(image, getTransparency(image));
+    }
+
+    /**
+     * Creates an empty image in the format of the screen.
+     *
+     * @param width        The width of the image
+     * @param height       The height of the image
+     * @param transparency The transparency of the image, from {@link Transparency}
+     * @return Returns the created image.
+     */
+    public static BufferedImage createCompatibleImage(int width, int height, int transparency) {
+        GraphicsConfiguration gc = getGraphicsConfiguration();
+
+        if (gc != null)
+            return gc.createCompatibleImage(width, height, transparency);
+
+        return new BufferedImage(width, height, getHeadlessType(transparency));
+    }
+
+    private static BufferedImage copyCompatibleImage(BufferedImage image, int transparency) {
+        BufferedImage compatible = createCompatibleImage(image.getWidth(), image.getHeight(), transparency);
+
+        Graphics2D g = compatible.createGraphics();
+        g.setComposite(AlphaComposite.Src);
+        g.drawImage(image, 0, 0, null);
+        g.dispose();
+
+        return compatible;
+    }
+
+    private static boolean isCompatible(BufferedImage image, int transparency) {
+        GraphicsConfiguration gc = getGraphicsConfiguration();
+
+        if (gc != null)
+            return image.getColorModel().equals(gc.getColorModel(transparency));
+
+        return image.getType() == getHeadlessType(transparency);
+    }
+
+    // Without a screen, use the formats that the display's back-buffer blits fastest
+    private static int getHeadlessType(int transparency) {
+        return transparency == Transparency.OPAQUE ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB;
+    }
+
+    /**
+     * Finds the least transparency that the pixels of an image need.
+     *
+     * @param image The image to check
+     * @return Returns {@link Transparency#OPAQUE}, {@link Transparency#BITMASK} or
+     * {@link Transparency#TRANSLUCENT}.
+     */
+    public static int getTransparency(BufferedImage image) {
+        if (image.getColorModel().getTransparency() == Transparency.OPAQUE)
+            return Transparency.OPAQUE;
+
+        int width = image.getWidth();
+        int[] row = new int[width];
+        boolean transparent = false;
+
+        for (int y = 0; y < image.getHeight(); y++) {
+            image.getRGB(0, y, width, 1, row, 0, width);
+
+            for (int x = 0; x < width; x++) {
+                int alpha = row[x] >>> 24;
+
+                if (alpha != 0 && alpha != 0xFF)
+                    return Transparency.TRANSLUCENT;
+
+                if (alpha == 0)
+                    transparent = true;
+            }
+        }
+
+        return transparent ? Transparency.BITMASK : Transparency.OPAQUE;
+    }
+
     public static BufferedImage loadImage(String path) {
         return loadImage(retrieveResource(path));
     }
 
     public static BufferedImage loadImage(URL path) {
         try {
-            return ImageIO.read(path);
+            return toCompatibleImage(ImageIO.read(path));
         } catch (Exception e) {
             if (DiamondHunter.isDebugMode()) {
                 if (path == null)
@@ -41,7 +180,7 @@ public class ImageLoader extends ResourceLoader {
 
     public static BufferedImage loadImage(File path) {
         try {
-            return ImageIO.read(path);
+            return toCompatibleImage(ImageIO.read(path));
         } catch (Exception e) {
             if (DiamondHunter.isDebugMode()) {
                 if (path == null)
@@ -118,13 +118,13 @@ public abstract class AABB {
 
         @Override
         public boolean collides(Vector2f point) {
-            float ax = (pos.getPosition().x + xOffset + width / 2);
-            float ay = (pos.getPosition().y + yOffset + height / 2);
+            float ax = (pos.getPositionX() + xOffset + width / 2);
+            float ay = (pos.getPositionY() + yOffset + height / 2);
 
             // Colliding on X axis
-            if (Math.abs(ax - point.getPosition().x) <= width / 2) {
+            if (Math.abs(ax - point.getPositionX()) <= width / 2) {
                 // Colliding on Y axis
-                return Math.abs(ay - point.getPosition().y) <= height / 2;
+                return Math.abs(ay - point.getPositionY()) <= height / 2;
             }
 
             return false;
@@ -147,10 +147,10 @@ public abstract class AABB {
          * the denoted rectangle on the screen.
          */
         public boolean collides(AABB.Rectangle rec) {
-            float ax = (pos.getPosition().x + xOffset + width / 2);
-            float ay = (pos.getPosition().y + yOffset + height / 2);
-            float bx = (rec.pos.getPosition().x + rec.xOffset + rec.width / 2);
-            float by = (rec.pos.getPosition().y + rec.yOffset + rec.height / 2);
+            float ax = (pos.getPositionX() + xOffset + width / 2);
+            float ay = (pos.getPositionY() + yOffset + height / 2);
+            float bx = (rec.pos.getPositionX() + rec.xOffset + rec.width / 2);
+            float by = (rec.pos.getPositionY() + rec.yOffset + rec.height / 2);
 
             // Colliding on X axis
             if (Math.abs(ax - bx) <= width / 2 + rec.width / 2) {
@@ -172,10 +172,10 @@ public abstract class AABB {
          * the denoted rectangle on the screen.
          */
         public boolean collidesTraditional(AABB.Rectangle rec) {
-            return this.pos.getPosition().x + xOffset < rec.pos.getPosition().x + rec.xOffset + rec.width &&
-                    this.pos.getPosition().x + xOffset + width > rec.pos.getPosition().x + rec.xOffset &&
-                    this.pos.getPosition().y + yOffset < rec.pos.getPosition().y + rec.yOffset + rec.height &&
-                    this.pos.getPosition().y + yOffset + height > rec.pos.getPosition().y + rec.yOffset;
+            return this.pos.getPositionX() + xOffset < rec.pos.getPositionX() + rec.xOffset + rec.width &&
+                    this.pos.getPositionX() + xOffset + width > rec.pos.getPositionX() + rec.xOffset &&
+                    this.pos.getPositionY() + yOffset < rec.pos.getPositionY() + rec.yOffset + rec.height &&
+                    this.pos.getPositionY() + yOffset + height > rec.pos.getPositionY() + rec.yOffset;
         }
 
         /**
@@ -188,23 +188,23 @@ public abstract class AABB {
          * the denoted circle on the screen.
          */
         public boolean collidesCircle(AABB.Circle circle) {
-            float closestX = circle.pos.getPosition().x + circle.xOffset + circle.radius;
-            float closestY = circle.pos.getPosition().y + circle.yOffset + circle.radius;
+            float closestX = circle.pos.getPositionX() + circle.xOffset + circle.radius;
+            float closestY = circle.pos.getPositionY() + circle.yOffset + circle.radius;
 
-            closestX = Utils.getNumberUtils().clamp(closestX, pos.getPosition().x + xOffset, pos.getPosition().x + xOffset + width);
-            closestY = Utils.getNumberUtils().clamp(closestY, pos.getPosition().y + yOffset, pos.getPosition().y + yOffset + height);
+            closestX = Utils.getNumberUtils().clamp(closestX, pos.getPositionX() + xOffset, pos.getPositionX() + xOffset + width);
+            closestY = Utils.getNumberUtils().clamp(closestY, pos.getPositionY() + yOffset, pos.getPositionY() + yOffset + height);
 
-            float distanceX = (circle.pos.getPosition().x + circle.xOffset + circle.radius) - (closestX);
-            float distanceY = (circle.pos.getPosition().y + circle.yOffset + circle.radius) - (closestY);
+            float distanceX = (circle.pos.getPositionX() + circle.xOffset + circle.radius) - (closestX);
+            float distanceY = (circle.pos.getPositionY() + circle.yOffset + circle.radius) - (closestY);
 
             return (distanceX * distanceX) + (distanceY * distanceY) <= (circle.radius * circle.radius);
         }
 
         public boolean inside(AABB.Rectangle rec) {
-            return this.pos.getPosition().x + xOffset > rec.pos.getPosition().x + rec.xOffset
-                    && this.pos.getPosition().x + xOffset + width < rec.pos.getPosition().x + rec.xOffset + rec.width
-                    && this.pos.getPosition().y + yOffset > rec.pos.getPosition().y + rec.yOffset
-                    && this.pos.getPosition().y + yOffset + height < rec.pos.getPosition().y + rec.yOffset + rec.height;
+            return this.pos.getPositionX() + xOffset > rec.pos.getPositionX() + rec.xOffset
+                    && this.pos.getPositionX() + xOffset + width < rec.pos.getPositionX() + rec.xOffset + rec.width
+                    && this.pos.getPositionY() + yOffset > rec.pos.getPositionY() + rec.yOffset
+                    && this.pos.getPositionY() + yOffset + height < rec.pos.getPositionY() + rec.yOffset + rec.height;
         }
 
         /**
@@ -294,8 +294,8 @@ public abstract class AABB {
 
         @Override
         public boolean collides(Vector2f point) {
-            float distanceX = (pos.getPosition().x + xOffset + radius) - (point.getPosition().x);
-            float distanceY = (pos.getPosition().y + yOffset + radius) - (point.getPosition().y);
+            float distanceX = (pos.getPositionX() + xOffset + radius) - (point.getPositionX());
+            float distanceY = (pos.getPositionY() + yOffset + radius) - (point.getPositionY());
 
             return (distanceX * distanceX) + (distanceY * distanceY) <= (radius * radius);
         }
@@ -306,8 +306,8 @@ public abstract class AABB {
         }
 
         public boolean collides(AABB.Circle circle) {
-            float ax = (circle.pos.getPosition().x + circle.xOffset + circle.radius) - (pos.getPosition().x + xOffset + radius);
-            float ay = (circle.pos.getPosition().y + circle.yOffset + circle.radius) - (pos.getPosition().y + yOffset + radius);
+            float ax = (circle.pos.getPositionX() + circle.xOffset + circle.radius) - (pos.getPositionX() + xOffset + radius);
+            float ay = (circle.pos.getPositionY() + circle.yOffset + circle.radius) - (pos.getPositionY() + yOffset + radius);
 
             return (ax * ax) + (ay * ay) <= (circle.radius + radius) * (circle.radius + radius);
         }
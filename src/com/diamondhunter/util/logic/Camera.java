@@ -0,0 +1,206 @@
+package com.diamondhunter.util.logic;
+
+/**
+ * A {@code Camera} is the part of the world that is shown on the screen. Its position is the
+ * world position of the top-left corner of the screen and its viewport is the size of the
+ * screen, so everything inside of the rectangle {@code x, y, width, height} is visible.
+ * <p>
+ * Tiles and entities are drawn at their world position minus the position of the camera,
+ * and anything outside of the {@link #isVisible(float, float, float, float) visible area}
+ * does not have to be drawn at all. A camera with an empty viewport sees the whole world,
+ * so code that never sets a viewport, like the Tiled launcher, still draws everything.
+ * <p>
+ * The game renders with the {@link #getMainCamera() main camera}. Its position is the same
+ * {@code Vector2f} that {@link Vector2f#getWorldVar()} used to return, so code that still
+ * moves the world variable moves the camera.
+ */
+public class Camera {
+
+    private static final Camera mainCamera = new Camera();
+
+    /**
+     * The position of this camera. Only the x and y positions (with their offsets) are used.
+     */
+    private final Vector2f position;
+
+    private float width;
+    private float height;
+
+    /**
+     * Creates a camera at {@code 0,0} with an empty viewport, which sees everything.
+     */
+    public Camera() {
+        this(0, 0);
+    }
+
+    /**
+     * Creates a camera at {@code 0,0}.
+     *
+     * @param width  The width of the viewport
+     * @param height The height of the viewport
+     */
+    public Camera(float width, float height) {
+        this.position = new Vector2f();
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * The camera that the game renders with.
+     *
+     * @return Returns the main camera.
+     */
+    public static Camera getMainCamera() {
+        return mainCamera;
+    }
+
+    /**
+     * Moves this camera so the top-left corner of the screen is at the given world position.
+     *
+     * @param x The x position in the world
+     * @param y The y position in the world
+     */
+    public void setPosition(float x, float y) {
+        position.x = x - position.xOffset;
+        position.y = y - position.yOffset;
+    }
+
+    /**
+     * Moves this camera so the center of the screen is at the given world position.
+     *
+     * @param x The x position in the world
+     * @param y The y position in the world
+     */
+    public void center(float x, float y) {
+        setPosition(x - width / 2, y - height / 2);
+    }
+
+    public void translate(float dx, float dy) {
+        position.x += dx;
+        position.y += dy;
+    }
+
+    public void setViewportSize(float width, float height) {
+        if (width < 0 || height < 0)
+            throw new IllegalArgumentException("Cannot set the viewport size to " + width + "x" + height);
+
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Whether this camera only sees its viewport. Without a viewport, everything is visible.
+     *
+     * @return Returns {@code true} if the viewport is not empty.
+     */
+    public boolean isCulling() {
+        return width > 0 && height > 0;
+    }
+
+    /**
+     * Whether any part of the given rectangle is visible.
+     *
+     * @param x      The x position of the rectangle in the world
+     * @param y      The y position of the rectangle in the world
+     * @param width  The width of the rectangle
+     * @param height The height of the rectangle
+     * @return Returns {@code true} if the rectangle overlaps the visible area.
+     */
+    public boolean isVisible(float x, float y, float width, float height) {
+        if (!isCulling())
+            return true;
+
+        float left = getX();
+        float top = getY();
+
+        return x + width > left && y + height > top && x < left + this.width && y < top + this.height;
+    }
+
+    /**
+     * The first column of a grid that is visible, for example the first column of tiles
+     * of a map. The column may lie outside of the grid.
+     *
+     * @param cellWidth The width of the cells of the grid
+     * @return Returns the index of the first visible column.
+     */
+    public int getFirstColumn(float cellWidth) {
+        if (!isCulling())
+            return Integer.MIN_VALUE;
+
+        return (int) Math.floor(getX() / cellWidth);
+    }
+
+    /**
+     * The last column of a grid that is visible. The column may lie outside of the grid.
+     *
+     * @param cellWidth The width of the cells of the grid
+     * @return Returns the index of the last visible column.
+     */
+    public int getLastColumn(float cellWidth) {
+        if (!isCulling())
+            return Integer.MAX_VALUE;
+
+        return (int) Math.ceil((getX() + width) / cellWidth) - 1;
+    }
+
+    /**
+     * The first row of a grid that is visible. The row may lie outside of the grid.
+     *
+     * @param cellHeight The height of the cells of the grid
+     * @return Returns the index of the first visible row.
+     */
+    public int getFirstRow(float cellHeight) {
+        if (!isCulling())
+            return Integer.MIN_VALUE;
+
+        return (int) Math.floor(getY() / cellHeight);
+    }
+
+    /**
+     * The last row of a grid that is visible. The row may lie outside of the grid.
+     *
+     * @param cellHeight The height of the cells of the grid
+     * @return Returns the index of the last visible row.
+     */
+    public int getLastRow(float cellHeight) {
+        if (!isCulling())
+            return Integer.MAX_VALUE;
+
+        return (int) Math.ceil((getY() + height) / cellHeight) - 1;
+    }
+
+    /**
+     * The position of this camera as a {@code Vector2f}. Changing it moves the camera.
+     *
+     * @return Returns the position of this camera.
+     */
+    public Vector2f getPosition() {
+        return position;
+    }
+
+    /**
+     * The x position, in the world, of the left side of the screen.
+     *
+     * @return Returns the x position of this camera.
+     */
+    public float getX() {
+        return position.x + position.xOffset;
+    }
+
+    /**
+     * The y position, in the world, of the top of the screen.
+     *
+     * @return Returns the y position of this camera.
+     */
+    public float getY() {
+        return position.y + position.yOffset;
+    }
+
+    public float getWidth() {
+        return width;
+    }
+
+    public float getHeight() {
+        return height;
+    }
+}
@@ -22,48 +22,6 @@ import java.util.regex.Pattern;
  */
 public class Vector2f implements Comparable<Vector2f> {
 
-    /**
-     * The position of the world. This variable will determine how
-     * much a tile or an entity should be moved to get the correct position on
-     * the world or map.
-     * <p>
-     * Let's say that the map/world moves like how it is illustrated below:
-     * <blockquote><pre>
-     * |----------------------------------------|                |----------------------------------------|
-     * |  |------------------|                  |                |---------------|                        |
-     * |  |                  |                  |                |               |                        |
-     * |  |------------------|                  |   ------->     |---------------|                        |
-     * |                                        |                |                                        |
-     * |                                        |                |                                        |
-     * |----------------------------------------|                |----------------------------------------|
-     * </pre></blockquote>
-     * <p>
-     * Then this {@code world.x} would equal to, let's say 5 (assuming the map moved five pixels
-     * to the left), and every tile would have to shift to the opposite direction of the map.
-     * So if {@code world.x} == 5, then every tile's X position will change to their current
-     * position -5 on the x-axis which will then shift the map towards the left.
-     * <p>
-     * Now let's say that the map/world moves like how it is illustrated below:
-     *
-     * <blockquote><pre>
-     * |----------------------------------------|                |----------------------------------------|
-     * |  |------------------|                  |                |                                        |
-     * |  |                  |                  |                |                                        |
-     * |  |------------------|                  |   ------->     |  |------------------|                  |
-     * |                                        |                |  |                  |                  |
-     * |                                        |                |  |------------------|                  |
-     * |----------------------------------------|                |----------------------------------------|
-     * </pre></blockquote>
-     * <p>
-     * Then this {@code world.y} would equal to, let's say 5 (assuming the map moved five pixels
-     * to the down), and every tile would have to shift to the opposite direction of the map.
-     * So if {@code world.y} == 5, then every tile's Y position will change to their current
-     * position -5 on the y-axis which will then shift the map downwards.
-     * <p>
-     * So this world variable is basically a camera for the entities and tiles.
-     */
-    private static final Vector2f world = new Vector2f();
-
     /**
      * The X position of this {@code Vector2f}. This should not be used directly to achieve the position
      * of this {@code Vector2f} because it does not take into account the {@link #xOffset xOffset} to your position.
@@ -146,10 +104,12 @@ public class Vector2f implements Comparable<Vector2f> {
      *
      * @param x The X position.
      * @param y The Y position.
+     * @deprecated Move the {@link Camera#getMainCamera() main camera} instead.
      */
+    @Deprecated
     public static void setWorldVar(float x, float y) {
-        world.x = x;
-        world.y = y;
+        Camera.getMainCamera().getPosition().x = x;
+        Camera.getMainCamera().getPosition().y = y;
     }
 
     /**
@@ -157,29 +117,71 @@ public class Vector2f implements Comparable<Vector2f> {
      * {@code Vector2f}'s X and Y positions.
      *
      * @param vec The {@code Vector2f} to copy positions from.
+     * @deprecated Move the {@link Camera#getMainCamera() main camera} instead.
      */
+    @Deprecated
     public static void setWorldVar(Vector2f vec) {
-        setWorldVar(vec.getPosition().x, vec.getPosition().y);
+        setWorldVar(vec.getPositionX(), vec.getPositionY());
     }
 
     /**
      * Translates the world position by the factor of the given position.
      *
      * @param translate How much we should translate
+     * @deprecated Move the {@link Camera#getMainCamera() main camera} instead.
      */
+    @Deprecated
     public static void setWorldVar(float translate) {
         setWorldVar(getWorldVar().x + translate, getWorldVar().y + translate);
     }
 
     /**
-     * Returns the world {@code Vector2f} which can be used for changing the world's position, or
-     * change the x and y offsets.
+     * Returns the position of the world. This variable will determine how
+     * much a tile or an entity should be moved to get the correct position on
+     * the world or map.
+     * <p>
+     * Let's say that the map/world moves like how it is illustrated below:
+     * <blockquote><pre>
+     * |----------------------------------------|                |----------------------------------------|
+     * |  |------------------|                  |                |---------------|                        |
+     * |  |                  |                  |                |               |                        |
+     * |  |------------------|                  |   ------->     |---------------|                        |
+     * |                                        |                |                                        |
+     * |                                        |                |                                        |
+     * |----------------------------------------|                |----------------------------------------|
+     * </pre></blockquote>
+     * <p>
+     * Then this {@code world.x} would equal to, let's say 5 (assuming the map moved five pixels
+     * to the left), and every tile would have to shift to the opposite direction of the map.
+     * So if {@code world.x} == 5, then every tile's X position will change to their current
+     * position -5 on the x-axis which will then shift the map towards the left.
+     * <p>
+     * Now let's say that the map/world moves like how it is illustrated below:
+     *
+     * <blockquote><pre>
+     * |----------------------------------------|                |----------------------------------------|
+     * |  |------------------|                  |                |                                        |
+     * |  |                  |                  |                |                                        |
+     * |  |------------------|                  |   ------->     |  |------------------|                  |
+     * |                                        |                |  |                  |                  |
+     * |                                        |                |  |------------------|                  |
+     * |----------------------------------------|                |----------------------------------------|
+     * </pre></blockquote>
+     * <p>
+     * Then this {@code world.y} would equal to, let's say 5 (assuming the map moved five pixels
+     * to the down), and every tile would have to shift to the opposite direction of the map.
+     * So if {@code world.y} == 5, then every tile's Y position will change to their current
+     * position -5 on the y-axis which will then shift the map downwards.
+     * <p>
+     * So this world variable is basically a camera for the entities and tiles, which is why
+     * it is now the position of the {@link Camera#getMainCamera() main camera}.
      *
      * @return Returns the world's {@code Vector2f}.
-     * @see #world
+     * @deprecated Use the {@link Camera#getMainCamera() main camera} instead.
      */
+    @Deprecated
     public static Vector2f getWorldVar() {
-        return world;
+        return Camera.getMainCamera().getPosition();
     }
 
     /**
@@ -196,6 +198,46 @@ public class Vector2f implements Comparable<Vector2f> {
         return new Vector2f(x + xOffset, y + yOffset);
     }
 
+    /**
+     * The X position of this {@code Vector2f} with the offset accounted for. Unlike
+     * {@link #getPosition()}, this does not create a new {@code Vector2f}.
+     *
+     * @return Returns the on-screen X position of this {@code Vector2f}.
+     */
+    public float getPositionX() {
+        return x + xOffset;
+    }
+
+    /**
+     * The Y position of this {@code Vector2f} with the offset accounted for. Unlike
+     * {@link #getPosition()}, this does not create a new {@code Vector2f}.
+     *
+     * @return Returns the on-screen Y position of this {@code Vector2f}.
+     */
+    public float getPositionY() {
+        return y + yOffset;
+    }
+
+    /**
+     * The X position of this {@code Vector2f} relative to the world, see
+     * {@link #getWorldVector()}. This does not create a new {@code Vector2f}.
+     *
+     * @return Returns the X position relative to the world/map.
+     */
+    public float getWorldX() {
+        return getPositionX() - Camera.getMainCamera().getX();
+    }
+
+    /**
+     * The Y position of this {@code Vector2f} relative to the world, see
+     * {@link #getWorldVector()}. This does not create a new {@code Vector2f}.
+     *
+     * @return Returns the Y position relative to the world/map.
+     */
+    public float getWorldY() {
+        return getPositionY() - Camera.getMainCamera().getY();
+    }
+
     /**
      * The position of this {@code Vector2f} relative to the world. With this method, the point
      * {@code 0,0} will be equal to {@code world.x == 0} && {@code world.y == 0}. The
@@ -208,18 +250,18 @@ public class Vector2f implements Comparable<Vector2f> {
      * {@code 0}.
      *
      * @return Returns the {@code Vector2f} position relative to the world/map.
-     * @see #world
+     * @see Camera
      */
     public Vector2f getWorldVector() {
-        return getRelation(getWorldVar());
+        return new Vector2f(getWorldX(), getWorldY());
     }
 
     public Vector2f getRelation(float x, float y) {
-        return new Vector2f(getPosition().x - x, getPosition().y - y);
+        return new Vector2f(getPositionX() - x, getPositionY() - y);
     }
 
     public Vector2f getRelation(Vector2f vec) {
-        return getRelation(vec.getPosition().x, vec.getPosition().y);
+        return getRelation(vec.getPositionX(), vec.getPositionY());
     }
 
     /**
@@ -229,8 +271,8 @@ public class Vector2f implements Comparable<Vector2f> {
      * @return Returns the distance squared between the two vectors.
      */
     public float distanceSq(Vector2f vec) {
-        float distX = (getPosition().x - vec.getPosition().x);
-        float distY = (getPosition().y - vec.getPosition().y);
+        float distX = (getPositionX() - vec.getPositionX());
+        float distY = (getPositionY() - vec.getPositionY());
 
         return (distX * distX) + (distY * distY);
     }
@@ -246,8 +288,8 @@ public class Vector2f implements Comparable<Vector2f> {
      * @see #distance(float, float)
      */
     public float distanceSq(float x, float y) {
-        float distX = (getPosition().x - x);
-        float distY = (getPosition().y - y);
+        float distX = (getPositionX() - x);
+        float distY = (getPositionY() - y);
 
         return (distX * distX) + (distY * distY);
     }
@@ -334,7 +376,7 @@ public class Vector2f implements Comparable<Vector2f> {
      * @return Returns the X position of this {@code Vector2f} as an integer.
      */
     public int getX() {
-        return (int) getPosition().x;
+        return (int) getPositionX();
     }
 
     /**
@@ -344,7 +386,7 @@ public class Vector2f implements Comparable<Vector2f> {
      * @return Returns the Y position of this {@code Vector2f} as an integer.
      */
     public int getY() {
-        return (int) getPosition().y;
+        return (int) getPositionY();
     }
 
     /**
@@ -358,17 +400,17 @@ public class Vector2f implements Comparable<Vector2f> {
     @Override
     public int compareTo(Vector2f vec) {
 
-        if (getPosition().x > vec.getPosition().x && getPosition().y > vec.getPosition().y) {
+        if (getPositionX() > vec.getPositionX() && getPositionY() > vec.getPositionY()) {
             return 1;
-        } else if (getPosition().x < vec.getPosition().x && getPosition().y < vec.getPosition().y) {
+        } else if (getPositionX() < vec.getPositionX() && getPositionY() < vec.getPositionY()) {
             return -1;
-        } else if (getPosition().x > vec.getPosition().x) {
+        } else if (getPositionX() > vec.getPositionX()) {
             return 1;
-        } else if (getPosition().y > vec.getPosition().y) {
+        } else if (getPositionY() > vec.getPositionY()) {
             return 1;
-        } else if (getPosition().x < vec.getPosition().x) {
+        } else if (getPositionX() < vec.getPositionX()) {
             return -1;
-        } else if (getPosition().y < vec.getPosition().y) {
+        } else if (getPositionY() < vec.getPositionY()) {
             return -1;
         }
 
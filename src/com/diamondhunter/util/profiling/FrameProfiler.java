@@ -0,0 +1,250 @@
+package com.diamondhunter.util.profiling;
+
+import com.diamondhunter.graphics.font.ImageFont;
+
+import java.awt.*;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A {@code FrameProfiler} times the different phases of a frame (input, updates, renders,
+ * presenting...) so that spikes can be found. Every phase keeps a {@link PhaseHistogram}
+ * of its timings, which is used to draw the debug overlay and is written to a CSV or JSON
+ * file when the game shuts down.
+ * <p>
+ * A phase is timed by calling {@link Phase#begin()} and {@link Phase#end()} around it.
+ * Those calls do nothing while the profiler is disabled, so phases can be left in place
+ * in the game code.
+ * <p>
+ * Each phase must only be timed by one thread. Different phases may be timed by different
+ * threads.
+ */
+public final class FrameProfiler {
+
+    /**
+     * The amount of the latest samples drawn in the overlay for each phase.
+     */
+    public static final int OVERLAY_SAMPLES = 120;
+
+    private static final int GRAPH_WIDTH = OVERLAY_SAMPLES;
+    private static final int GRAPH_HEIGHT = 20;
+    private static final int ROW_HEIGHT = GRAPH_HEIGHT + 6;
+
+    // The letters that the names of the phases are padded to
+    private static final int NAME_COLUMNS = 22;
+
+    private static final Color GRAPH_BACKGROUND = new Color(0, 0, 0, 150);
+    private static final Color GRAPH_BUDGET = new Color(255, 255, 255, 80);
+
+    private final Map<String, Phase> phases;
+    private final List<Phase> phaseOrder;
+
+    private volatile boolean enabled;
+
+    private File exportFile;
+
+    // Re-used to draw the graphs without creating garbage
+    private final int[] graphXs = new int[OVERLAY_SAMPLES];
+    private final int[] graphYs = new int[OVERLAY_SAMPLES];
+
+    public FrameProfiler() {
+        phases = new ConcurrentHashMap<>();
+        phaseOrder = new CopyOnWriteArrayList<>();
+    }
+
+    /**
+     * Retrieves the phase with the given name, creating it if it doesn't exist yet. Phases
+     * are shown in the order that they were created.
+     *
+     * @param name The name of the phase
+     * @return Returns the phase with the given name.
+     */
+    public Phase getPhase(String name) {
+        Phase phase = phases.get(name);
+
+        if (phase == null) {
+            synchronized (this) {
+                phase = phases.get(name);
+
+                if (phase == null) {
+                    phase = new Phase(name);
+                    phases.put(name, phase);
+                    phaseOrder.add(phase);
+                }
+            }
+        }
+
+        return phase;
+    }
+
+    public List<Phase> getPhases() {
+        return phaseOrder;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public File getExportFile() {
+        return exportFile;
+    }
+
+    /**
+     * Sets the file that the profile is written to by {@link #export()}. Files ending in
+     * {@code .json} are written as JSON, anything else is written as CSV.
+     *
+     * @param exportFile The file to export to or {@code null} to not export.
+     */
+    public void setExportFile(File exportFile) {
+        this.exportFile = exportFile;
+    }
+
+    /**
+     * Draws a graph of the latest timings of every phase along with its rolling p50, p99
+     * and maximum.
+     *
+     * @param g              The graphics to draw with
+     * @param font           The font used to write the timings
+     * @param x              The x position of the overlay
+     * @param y              The y position of the overlay
+     * @param budgetNanos    The time, in nanoseconds, that reaches the top of each graph.
+     *                       This is usually the time that one frame may take.
+     */
+    public void render(Graphics2D g, ImageFont font, int x, int y, long budgetNanos) {
+        Color oldColor = g.getColor();
+
+        for (Phase phase : phaseOrder) {
+            PhaseHistogram histogram = phase.histogram;
+
+            g.setColor(GRAPH_BACKGROUND);
+            g.fillRect(x, y, GRAPH_WIDTH, GRAPH_HEIGHT);
+
+            int count = histogram.copyRecent(graphYs);
+
+            for (int i = 0; i < count; i++) {
+                long height = graphYs[i] * (long) GRAPH_HEIGHT / budgetNanos;
+
+                graphXs[i] = x + GRAPH_WIDTH - count + i;
+                graphYs[i] = y + GRAPH_HEIGHT - (int) Math.min(height, GRAPH_HEIGHT);
+            }
+
+            g.setColor(GRAPH_BUDGET);
+            g.drawLine(x, y, x + GRAPH_WIDTH - 1, y);
+
+            g.setColor(oldColor);
+            g.drawPolyline(graphXs, graphYs, count);
+
+            // The name never changes, so only the timings are laid out again when they change
+            int textX = x + GRAPH_WIDTH + 10;
+            float textY = y + (GRAPH_HEIGHT - font.getLineSpacing()) / 2f;
+            int columns = Math.max(phase.name.length(), NAME_COLUMNS);
+
+            font.renderText(g, phase.name, textX, textY);
+            font.renderText(g, String.format(Locale.ROOT, " p50 %6.2f  p99 %6.2f  max %6.2f ms",
+                    histogram.getRecentPercentile(0.50) / 1000000.0, histogram.getRecentPercentile(0.99) / 1000000.0,
+                    histogram.getRecentMax() / 1000000.0), textX + columns * (font.getLetterSpacing() + font.getLetterXOffset()),
+                    textY + columns * font.getLetterYOffset());
+
+            y += ROW_HEIGHT;
+        }
+
+        g.setColor(oldColor);
+    }
+
+    /**
+     * Writes the timings of every phase, over the whole run, to the {@link #getExportFile()
+     * export file}. Nothing is written if there is no export file.
+     *
+     * @throws IOException If the file could not be written.
+     */
+    public void export() throws IOException {
+        if (exportFile == null)
+            return;
+
+        boolean json = exportFile.getName().toLowerCase(Locale.ROOT).endsWith(".json");
+
+        try (PrintWriter writer = new PrintWriter(exportFile, "UTF-8")) {
+            if (json) {
+                writer.println("{");
+                writer.println("  \"phases\": [");
+            } else {
+                writer.println("phase,samples,mean_ms,p50_ms,p90_ms,p99_ms,max_ms");
+            }
+
+            for (int i = 0; i < phaseOrder.size(); i++) {
+                Phase phase = phaseOrder.get(i);
+                PhaseHistogram histogram = phase.histogram;
+
+                if (json) {
+                    writer.printf(Locale.ROOT, "    {\"phase\": \"%s\", \"samples\": %d, \"mean_ms\": %.4f, \"p50_ms\": %.4f, "
+                                    + "\"p90_ms\": %.4f, \"p99_ms\": %.4f, \"max_ms\": %.4f}%s%n",
+                            phase.name.replace("\"", "\\\""), histogram.getCount(), histogram.getMean() / 1000000.0,
+                            histogram.getPercentile(0.50) / 1000000.0, histogram.getPercentile(0.90) / 1000000.0,
+                            histogram.getPercentile(0.99) / 1000000.0, histogram.getMax() / 1000000.0,
+                            i == phaseOrder.size() - 1 ? "" : ",");
+                } else {
+                    writer.printf(Locale.ROOT, "\"%s\",%d,%.4f,%.4f,%.4f,%.4f,%.4f%n", phase.name.replace("\"", "\"\""),
+                            histogram.getCount(), histogram.getMean() / 1000000.0, histogram.getPercentile(0.50) / 1000000.0,
+                            histogram.getPercentile(0.90) / 1000000.0, histogram.getPercentile(0.99) / 1000000.0,
+                            histogram.getMax() / 1000000.0);
+                }
+            }
+
+            if (json) {
+                writer.println("  ]");
+                writer.println("}");
+            }
+        }
+    }
+
+    /**
+     * One phase of a frame that is timed by a {@link FrameProfiler}.
+     */
+    public final class Phase {
+        private final String name;
+        private final PhaseHistogram histogram;
+
+        private long startTime;
+
+        private Phase(String name) {
+            this.name = name;
+            this.histogram = new PhaseHistogram(OVERLAY_SAMPLES);
+        }
+
+        /**
+         * Starts timing this phase.
+         */
+        public void begin() {
+            startTime = enabled ? System.nanoTime() : 0;
+        }
+
+        /**
+         * Stops timing this phase and records how long it took since {@link #begin()}.
+         */
+        public void end() {
+            if (startTime == 0)
+                return;
+
+            histogram.record(System.nanoTime() - startTime);
+            startTime = 0;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public PhaseHistogram getHistogram() {
+            return histogram;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.diamondhunter.util.profiling;
+
+import java.util.Arrays;
+
+/**
+ * A {@code PhaseHistogram} keeps the timings, in nanoseconds, of one phase of a frame.
+ * <p>
+ * It keeps two things: a rolling window of the latest samples, which is used for the
+ * debug overlay, and a histogram of every sample since the game started, which is used
+ * when exporting. The histogram uses buckets that get wider as the timings get larger
+ * (32 buckets for every power of two), so it takes up a fixed amount of memory and every
+ * percentile is accurate to about 3%.
+ * <p>
+ * Samples must only be recorded by one thread. Reading from another thread is allowed but
+ * may see a sample that is only partly recorded.
+ */
+public final class PhaseHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final long[] buckets = new long[BUCKET_COUNT];
+    private long count;
+    private long total;
+    private long max;
+
+    private final long[] recent;
+    private final long[] sortedRecent;
+    private int recentIndex;
+    private int recentCount;
+
+    /**
+     * Creates a histogram.
+     *
+     * @param windowSize The amount of the latest samples kept in the rolling window.
+     */
+    public PhaseHistogram(int windowSize) {
+        recent = new long[windowSize];
+        sortedRecent = new long[windowSize];
+    }
+
+    /**
+     * Records one sample.
+     *
+     * @param nanos How long the phase took, in nanoseconds.
+     */
+    public void record(long nanos) {
+        if (nanos < 0)
+            nanos = 0;
+
+        buckets[bucketIndex(nanos)]++;
+        count++;
+        total += nanos;
+
+        if (nanos > max)
+            max = nanos;
+
+        recent[recentIndex] = nanos;
+        recentIndex = (recentIndex + 1) % recent.length;
+
+        if (recentCount < recent.length)
+            recentCount++;
+    }
+
+    private static int bucketIndex(long nanos) {
+        if (nanos < SUB_BUCKETS)
+            return (int) nanos;
+
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        int shift = exponent - SUB_BUCKET_BITS;
+
+        return (shift + 1) * SUB_BUCKETS + (int) ((nanos >>> shift) - SUB_BUCKETS);
+    }
+
+    private static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKETS)
+            return index;
+
+        int shift = index / SUB_BUCKETS - 1;
+        long subBucket = index % SUB_BUCKETS + SUB_BUCKETS;
+
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    /**
+     * The value that the given fraction of every recorded sample is below.
+     *
+     * @param percentile The percentile, from {@code 0} to {@code 1}.
+     * @return Returns the percentile in nanoseconds.
+     */
+    public long getPercentile(double percentile) {
+        if (count == 0)
+            return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(percentile * count));
+        long seen = 0;
+
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+
+            if (seen >= rank)
+                return Math.min(bucketUpperBound(i), max);
+        }
+
+        return max;
+    }
+
+    /**
+     * The value that the given fraction of the latest samples is below.
+     *
+     * @param percentile The percentile, from {@code 0} to {@code 1}.
+     * @return Returns the percentile in nanoseconds.
+     */
+    public long getRecentPercentile(double percentile) {
+        int size = recentCount;
+
+        if (size == 0)
+            return 0;
+
+        System.arraycopy(recent, 0, sortedRecent, 0, size);
+        Arrays.sort(sortedRecent, 0, size);
+
+        int index = (int) Math.ceil(percentile * size) - 1;
+        return sortedRecent[Math.max(0, Math.min(index, size - 1))];
+    }
+
+    /**
+     * The largest of the latest samples.
+     *
+     * @return Returns the largest recent sample in nanoseconds.
+     */
+    public long getRecentMax() {
+        long recentMax = 0;
+
+        for (int i = 0; i < recentCount; i++) {
+            if (recent[i] > recentMax)
+                recentMax = recent[i];
+        }
+
+        return recentMax;
+    }
+
+    /**
+     * Copies the latest samples, oldest first, into the given array. Samples that are too
+     * large to fit in an {@code int} are clamped.
+     *
+     * @param dest The array to copy into.
+     * @return Returns the amount of samples copied.
+     */
+    public int copyRecent(int[] dest) {
+        int size = Math.min(recentCount, dest.length);
+        int start = recentIndex - size;
+
+        for (int i = 0; i < size; i++) {
+            long sample = recent[Math.floorMod(start + i, recent.length)];
+            dest[i] = (int) Math.min(sample, Integer.MAX_VALUE);
+        }
+
+        return size;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public double getMean() {
+        return count == 0 ? 0 : (double) total / count;
+    }
+}